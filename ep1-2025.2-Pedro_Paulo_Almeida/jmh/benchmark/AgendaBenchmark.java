@@ -0,0 +1,97 @@
+package benchmark;
+
+import modelos.Consulta;
+import modelos.Paciente;
+import servicos.Hospital;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Agendar e concluir em memória (sem diário), em lote: cada medição percorre a massa inteira
+// sobre um hospital montado de novo, fora do tempo medido.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AgendaBenchmark {
+
+    // Só pacientes e médicos cadastrados
+    @State(Scope.Thread)
+    public static class Vazio {
+        Hospital hospital;
+
+        @Setup(Level.Iteration)
+        public void montar(Dados dados) {
+            hospital = dados.cadastrado();
+        }
+    }
+
+    // Com todas as consultas da massa agendadas (ids 1..n)
+    @State(Scope.Thread)
+    public static class Agendado {
+        Hospital hospital;
+
+        @Setup(Level.Iteration)
+        public void montar(Dados dados) {
+            hospital = dados.cadastrado();
+            AgendaBenchmark.agendar(hospital, dados.consultas());
+        }
+    }
+
+    @Benchmark
+    public int agendarConsulta(Dados dados, Vazio vazio) {
+        return agendar(vazio.hospital, dados.consultas());
+    }
+
+    @Benchmark
+    public int concluirERemoverConsulta(Dados dados, Agendado agendado) {
+        int concluidas = 0;
+        for (long id = 1; id <= dados.n; id++) {
+            if (agendado.hospital.concluirERemoverConsulta(id, "Alta")) concluidas++;
+        }
+        return concluidas;
+    }
+
+    // Rodadas que enchem e esvaziam todos os quartos, tantas quantas as internações da massa
+    @Benchmark
+    public int agendarEConcluirInternacao(Dados dados, Vazio vazio) {
+        Hospital h = vazio.hospital;
+        List<Paciente> pacientes = dados.gerador.getPacientes();
+        String crm = dados.gerador.getMedicos().get(0).getCrm();
+        int rodadas = Math.max(1, dados.internacoes().size() / GeradorDados.TOTAL_QUARTOS);
+        int concluidas = 0;
+        long id = 1;
+        for (int r = 0; r < rodadas; r++) {
+            LocalDate entrada = GeradorDados.INICIO.toLocalDate().plusDays(2L * r);
+            for (int q = 1; q <= GeradorDados.TOTAL_QUARTOS; q++) {
+                h.agendarInternacao(pacientes.get((r * 31 + q) % pacientes.size()).getCpf(), crm, entrada, q);
+            }
+            for (int q = 1; q <= GeradorDados.TOTAL_QUARTOS; q++) {
+                if (h.concluirERemoverInternacao(id++, entrada.plusDays(1))) concluidas++;
+            }
+        }
+        return concluidas;
+    }
+
+    static int agendar(Hospital h, List<Consulta> consultas) {
+        int agendadas = 0;
+        for (Consulta c : consultas) {
+            if (h.agendarConsulta(c.getPaciente().getCpf(), c.getMedico().getCrm(), c.getDataHora(), c.getLocal())) {
+                agendadas++;
+            }
+        }
+        return agendadas;
+    }
+}
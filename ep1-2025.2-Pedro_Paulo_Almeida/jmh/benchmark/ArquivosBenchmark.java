@@ -0,0 +1,167 @@
+package benchmark;
+
+import servicos.Hospital;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Carga e gravação: CSV (completo e incremental) e partida a frio pelo CSV ou pelo snapshot.
+// Cada medição trabalha numa cópia nova dos arquivos, para uma não herdar o que a outra gravou.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ArquivosBenchmark {
+
+    // Os quatro CSV da massa e um snapshot equivalente (sem os CSV ao lado), gravados uma vez
+    @State(Scope.Benchmark)
+    public static class Arquivos {
+        Path raiz;
+        Path csv;
+        Path snapshot;
+        private Path copia;
+        private int copias;
+
+        @Setup(Level.Trial)
+        public void gravar(Dados dados) throws IOException {
+            raiz = Files.createTempDirectory("benchmark-hospital");
+            csv = raiz.resolve("csv");
+            dados.gerador.gravarCSV(csv);
+            snapshot = Dados.copiarCSV(csv, raiz.resolve("snapshot"));
+            Hospital h = Dados.silencioso(new Hospital(snapshot));
+            h.carregarDados();
+            h.salvarDados();
+            h.encerrar();
+            for (String arquivo : Dados.ARQUIVOS_CSV) {
+                Files.delete(snapshot.resolve(arquivo));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void apagar() throws IOException {
+            Dados.apagar(raiz);
+        }
+
+        Hospital copiaCSV() throws IOException {
+            return Dados.silencioso(new Hospital(Dados.copiarCSV(csv, novaCopia())));
+        }
+
+        Hospital copiaSnapshot() throws IOException {
+            Path destino = novaCopia();
+            try (Stream<Path> arquivos = Files.list(snapshot)) {
+                for (Path arquivo : (Iterable<Path>) arquivos::iterator) {
+                    Files.copy(arquivo, destino.resolve(arquivo.getFileName()));
+                }
+            }
+            return Dados.silencioso(new Hospital(destino));
+        }
+
+        // Só a cópia da medição em curso fica no disco
+        private Path novaCopia() throws IOException {
+            Dados.apagar(copia);
+            copia = Files.createDirectories(raiz.resolve("copia" + copias++));
+            return copia;
+        }
+    }
+
+    // Hospital sobre uma cópia nova dos CSV, ainda sem carregar
+    @State(Scope.Thread)
+    public static class NovoCSV {
+        Hospital hospital;
+
+        @Setup(Level.Iteration)
+        public void montar(Arquivos arquivos) throws IOException {
+            hospital = arquivos.copiaCSV();
+        }
+    }
+
+    // Hospital sobre uma cópia nova do snapshot, ainda sem carregar
+    @State(Scope.Thread)
+    public static class NovoSnapshot {
+        Hospital hospital;
+
+        @Setup(Level.Iteration)
+        public void montar(Arquivos arquivos) throws IOException {
+            hospital = arquivos.copiaSnapshot();
+        }
+    }
+
+    // Recém-carregado dos CSV: a gravação regrava tudo
+    @State(Scope.Thread)
+    public static class Carregado {
+        Hospital hospital;
+
+        @Setup(Level.Iteration)
+        public void montar(Arquivos arquivos) throws IOException {
+            hospital = arquivos.copiaCSV();
+            hospital.carregarDadosCSV();
+        }
+    }
+
+    // Carregado e gravado uma vez; antes de cada medição, uma consulta é concluída, então a
+    // gravação só reescreve as ativas e a última partição do histórico
+    @State(Scope.Thread)
+    public static class Alterado {
+        Hospital hospital;
+
+        @Setup(Level.Trial)
+        public void carregar(Arquivos arquivos) throws IOException {
+            hospital = arquivos.copiaCSV();
+            hospital.carregarDadosCSV();
+            hospital.salvarDadosCSV();
+        }
+
+        @Setup(Level.Iteration)
+        public void alterar() {
+            hospital.concluirERemoverConsulta(hospital.getConsultas().get(0).getId(), "Retorno");
+        }
+    }
+
+    @Benchmark
+    public Hospital carregarDadosCSV(NovoCSV novo) {
+        novo.hospital.carregarDadosCSV();
+        return novo.hospital;
+    }
+
+    @Benchmark
+    public Hospital salvarDadosCSVCompleto(Carregado carregado) {
+        carregado.hospital.salvarDadosCSV();
+        return carregado.hospital;
+    }
+
+    @Benchmark
+    public Hospital salvarDadosCSVIncremental(Alterado alterado) {
+        alterado.hospital.salvarDadosCSV();
+        return alterado.hospital;
+    }
+
+    // Partida a frio com o diário: inclui abrir e fechar o diário
+    @Benchmark
+    public Hospital carregarDadosDoCSV(NovoCSV novo) {
+        novo.hospital.carregarDados();
+        novo.hospital.encerrar();
+        return novo.hospital;
+    }
+
+    @Benchmark
+    public Hospital carregarDadosDoSnapshot(NovoSnapshot novo) {
+        novo.hospital.carregarDados();
+        novo.hospital.encerrar();
+        return novo.hospital;
+    }
+}
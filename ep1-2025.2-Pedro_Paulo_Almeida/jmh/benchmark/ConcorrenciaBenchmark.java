@@ -0,0 +1,123 @@
+package benchmark;
+
+import modelos.Medico;
+import modelos.Paciente;
+import servicos.Hospital;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Várias recepções agendando ao mesmo tempo, cada uma com seus próprios médicos.
+// Sem diário mede a disputa pelas travas; com diário, o ganho do fsync em lote.
+// A massa tem tamanho fixo (100 mil consultas): o parâmetro aqui é o número de clientes.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ConcorrenciaBenchmark {
+    private static final int OPERACOES = 100_000;
+    private static final int OPERACOES_COM_DIARIO = 4_000; // reservas com fsync (por medição)
+
+    @Param({"1", "2", "4", "8"})
+    public int clientes;
+
+    GeradorDados gerador;
+    Path raiz;
+
+    @Setup(Level.Trial)
+    public void gerar() throws IOException {
+        gerador = new GeradorDados(OPERACOES, Dados.SEMENTE);
+        raiz = Files.createTempDirectory("benchmark-concorrencia");
+    }
+
+    @TearDown(Level.Trial)
+    public void apagar() throws IOException {
+        Dados.apagar(raiz);
+    }
+
+    // Em memória, só com pacientes e médicos
+    @State(Scope.Thread)
+    public static class Memoria {
+        Hospital hospital;
+
+        @Setup(Level.Iteration)
+        public void montar(ConcorrenciaBenchmark b) {
+            hospital = Dados.silencioso(new Hospital());
+            b.gerador.cadastrar(hospital);
+        }
+    }
+
+    // Diário aberto depois do cadastro, numa pasta nova: só as reservas são registradas
+    @State(Scope.Thread)
+    public static class ComDiario {
+        Hospital hospital;
+
+        @Setup(Level.Iteration)
+        public void montar(ConcorrenciaBenchmark b) throws IOException {
+            Path pasta = Files.createDirectories(b.raiz.resolve("x" + System.nanoTime()));
+            hospital = Dados.silencioso(new Hospital(pasta));
+            b.gerador.cadastrar(hospital);
+            hospital.carregarDados();
+        }
+    }
+
+    @Benchmark
+    public Hospital agendarEmMemoria(Memoria memoria) throws Exception {
+        agendarEmParalelo(memoria.hospital, OPERACOES);
+        return memoria.hospital;
+    }
+
+    // Inclui fechar o diário, que espera o último fsync
+    @Benchmark
+    public Hospital agendarComDiario(ComDiario comDiario) throws Exception {
+        agendarEmParalelo(comDiario.hospital, OPERACOES_COM_DIARIO);
+        comDiario.hospital.encerrar();
+        return comDiario.hospital;
+    }
+
+    private void agendarEmParalelo(Hospital hospital, int operacoes) throws Exception {
+        List<Medico> medicos = gerador.getMedicos();
+        List<Paciente> pacientes = gerador.getPacientes();
+        ExecutorService executor = Executors.newFixedThreadPool(clientes);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int c = 0; c < clientes; c++) {
+            int cliente = c;
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                // O cliente c atende os médicos c, c + clientes, c + 2*clientes...
+                for (int k = cliente; k < operacoes; k += clientes) {
+                    Medico m = medicos.get(k % medicos.size());
+                    hospital.agendarConsulta(pacientes.get(k % pacientes.size()).getCpf(), m.getCrm(),
+                            GeradorDados.INICIO.plusMinutes(30L * (k / medicos.size())), "Sala 1");
+                }
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> f : tarefas) f.get();
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,69 @@
+package benchmark;
+
+import modelos.Consulta;
+import modelos.Internacao;
+import servicos.Hospital;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Massa gerada por GeradorDados, uma vez por tamanho (n = número de consultas), e os utilitários
+// que os benchmarks usam para montar hospitais a partir dela fora do tempo medido.
+@State(Scope.Benchmark)
+public class Dados {
+    static final long SEMENTE = Long.getLong("bench.semente", GeradorDados.SEMENTE_PADRAO);
+    static final String[] ARQUIVOS_CSV = {"medicos.csv", "pacientes.csv", "consultas.csv", "internacoes.csv"};
+    // As mensagens [INFO] do Hospital não entram na medição
+    private static final PrintStream SILENCIO = new PrintStream(OutputStream.nullOutputStream());
+
+    @Param({"10000", "100000", "1000000"})
+    public int n;
+
+    GeradorDados gerador;
+
+    @Setup(Level.Trial)
+    public void gerar() {
+        gerador = new GeradorDados(n, SEMENTE);
+    }
+
+    List<Consulta> consultas() { return gerador.getConsultas(); }
+    List<Internacao> internacoes() { return gerador.getInternacoes(); }
+
+    // Hospital em memória só com pacientes e médicos
+    Hospital cadastrado() {
+        Hospital h = silencioso(new Hospital());
+        gerador.cadastrar(h);
+        return h;
+    }
+
+    static Hospital silencioso(Hospital h) {
+        h.setMensagens(SILENCIO);
+        return h;
+    }
+
+    static Path copiarCSV(Path origem, Path destino) throws IOException {
+        Files.createDirectories(destino);
+        for (String arquivo : ARQUIVOS_CSV) {
+            Files.copy(origem.resolve(arquivo), destino.resolve(arquivo), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return destino;
+    }
+
+    static void apagar(Path raiz) throws IOException {
+        if (raiz == null || !Files.exists(raiz)) return;
+        try (Stream<Path> caminhos = Files.walk(raiz)) {
+            caminhos.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package benchmark;
+
+import modelos.Consulta;
+import modelos.Internacao;
+import modelos.Medico;
+import modelos.Paciente;
+import modelos.PlanoSaude;
+import servicos.Hospital;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Operações curtas, medidas uma a uma: parsing de linhas CSV, buscas por CPF/CRM e a regra de
+// custo da internação. Cada chamada pega o próximo item (linha ou chave sorteada) em rodízio.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LeituraBenchmark {
+    private static final int CHAVES = 1 << 20; // chaves sorteadas de antemão
+
+    private List<PlanoSaude> planos;
+    private Hospital cadastro;
+    private String[] linhasPacientes;
+    private String[] linhasConsultas;
+    private Internacao[] internacoes;
+    private String[] cpfs;
+    private String[] crms;
+    private int proximo;
+
+    @Setup(Level.Trial)
+    public void preparar(Dados dados) {
+        GeradorDados gerador = dados.gerador;
+        planos = new Hospital().getPlanos();
+        cadastro = dados.cadastrado();
+        linhasPacientes = gerador.getPacientes().stream().map(Paciente::toCSV).toArray(String[]::new);
+        linhasConsultas = dados.consultas().stream().map(Consulta::toCSV).toArray(String[]::new);
+        internacoes = dados.internacoes().toArray(new Internacao[0]);
+        Random aleatorio = new Random(Dados.SEMENTE);
+        cpfs = new String[CHAVES];
+        crms = new String[CHAVES];
+        for (int i = 0; i < CHAVES; i++) {
+            cpfs[i] = gerador.getPacientes().get(aleatorio.nextInt(gerador.getPacientes().size())).getCpf();
+            crms[i] = gerador.getMedicos().get(aleatorio.nextInt(gerador.getMedicos().size())).getCrm();
+        }
+    }
+
+    @Benchmark
+    public Paciente pacienteFromCSV() {
+        return Paciente.fromCSV(linhasPacientes[proximo(linhasPacientes.length)], planos);
+    }
+
+    @Benchmark
+    public Consulta consultaFromCSV() {
+        return Consulta.fromCSV(linhasConsultas[proximo(linhasConsultas.length)], cadastro);
+    }
+
+    @Benchmark
+    public Paciente buscarPacientePorCpf() {
+        return cadastro.buscarPacientePorCpf(cpfs[proximo(CHAVES)]);
+    }
+
+    @Benchmark
+    public Medico buscarMedicoPorCrm() {
+        return cadastro.buscarMedicoPorCrm(crms[proximo(CHAVES)]);
+    }
+
+    @Benchmark
+    public double calcularCustoTotal() {
+        return internacoes[proximo(internacoes.length)].calcularCustoTotal();
+    }
+
+    private int proximo(int total) {
+        int i = proximo;
+        proximo = (i + 1 < total) ? i + 1 : 0;
+        return i;
+    }
+}
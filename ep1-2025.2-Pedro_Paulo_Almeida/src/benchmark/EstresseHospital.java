@@ -0,0 +1,297 @@
+package benchmark;
+
+import modelos.*;
+import servicos.FiltroRelatorio;
+import servicos.GeradorRelatorios;
+import servicos.Hospital;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Teste de estresse das travas do Hospital: várias recepções disputam os mesmos médicos,
+// horários, quartos e CPFs, misturando cadastros, agendamentos, conclusões e relatórios.
+// Cada chamada aceita (retorno true) é contada; no fim o estado tem de bater com as contagens:
+//   - consultas e internações guardadas (ativas + histórico) = agendamentos aceitos, e o
+//     histórico = conclusões aceitas (nenhuma atualização perdida);
+//   - nenhum id repetido, e os ids vão de 1 ao total (nenhum pulado);
+//   - nenhum médico com duas consultas agendadas que se sobrepõem, nenhum quarto com dois
+//     períodos de internação que se sobrepõem (ativas e histórico);
+//   - nenhum CPF cadastrado duas vezes.
+// A rodada com diário é recarregada (reaplicação do diário) e verificada de novo.
+// Termina com código 1 se alguma verificação falhar.
+//
+// Uso: java -cp bin benchmark.EstresseHospital [operacoes por cliente]   (padrão 5000)
+//      -Dbench.semente=20252
+public class EstresseHospital {
+    private static final long SEMENTE = Long.getLong("bench.semente", GeradorDados.SEMENTE_PADRAO);
+    private static final int[] CLIENTES = {1, 2, 4, 8, 16};
+    private static final int MEDICOS = 8;       // poucos médicos e horários: muita disputa
+    private static final int HORARIOS = 400;    // grade de 15 min com consultas de 30 min
+    private static final int QUARTOS = 20;
+    private static final int DIAS = 120;
+    private static final int PACIENTES = 500;
+    private static final int CPFS_NOVOS = 2_000; // cadastros disputando os mesmos CPFs
+
+    private static final PrintStream SAIDA = System.out;
+    private static final PrintStream SILENCIO = new PrintStream(OutputStream.nullOutputStream());
+
+    // Chamadas aceitas pelo Hospital, somadas entre as threads
+    private static final class Contagem {
+        final AtomicInteger cadastros = new AtomicInteger();
+        final AtomicInteger consultasAgendadas = new AtomicInteger();
+        final AtomicInteger consultasConcluidas = new AtomicInteger();
+        final AtomicInteger internacoesAgendadas = new AtomicInteger();
+        final AtomicInteger internacoesConcluidas = new AtomicInteger();
+        final AtomicInteger operacoes = new AtomicInteger();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int porCliente = (args.length == 0) ? 5_000 : Integer.parseInt(args[0]);
+        Path raiz = Files.createTempDirectory("estresse-hospital");
+        List<String> falhas = new ArrayList<>();
+        SAIDA.printf("Semente %d, %d operações por cliente%n", SEMENTE, porCliente);
+        SAIDA.printf("%-22s %8s %10s %12s %14s  %s%n", "rodada", "clientes", "operações", "tempo (ms)", "ops/s", "verificação");
+        try {
+            for (int clientes : CLIENTES) {
+                Hospital h = hospitalBase(null);
+                Contagem contagem = new Contagem();
+                long duracao = disputar(h, clientes, porCliente, contagem);
+                relatar("memória", clientes, contagem, duracao, verificar(h, contagem), falhas);
+            }
+
+            // Com diário: as mesmas verificações, e de novo depois de reaplicar o diário
+            int clientes = CLIENTES[CLIENTES.length - 1];
+            Path pasta = raiz.resolve("diario");
+            Files.createDirectories(pasta);
+            Hospital h = hospitalBase(pasta);
+            Contagem contagem = new Contagem();
+            long duracao = disputar(h, clientes, porCliente / 4, contagem);
+            relatar("diário", clientes, contagem, duracao, verificar(h, contagem), falhas);
+            h.encerrar();
+
+            Hospital recuperado = new Hospital(pasta);
+            recuperado.setMensagens(SILENCIO);
+            recuperado.carregarDados();
+            relatar("diário (reaplicado)", clientes, contagem, 0, verificar(recuperado, contagem), falhas);
+            recuperado.encerrar();
+        } finally {
+            apagar(raiz);
+        }
+
+        if (!falhas.isEmpty()) {
+            for (String falha : falhas) SAIDA.println("[ERRO] " + falha);
+            System.exit(1);
+        }
+        SAIDA.println("[INFO] Nenhuma atualização perdida, id repetido ou reserva dupla.");
+    }
+
+    // Médicos e pacientes fixos; com diretório, vão para um snapshot e o diário começa depois deles
+    private static Hospital hospitalBase(Path diretorio) {
+        Hospital h = (diretorio == null) ? new Hospital() : new Hospital(diretorio);
+        h.setMensagens(SILENCIO);
+        for (int m = 0; m < MEDICOS; m++) {
+            h.cadastrarMedico(new Medico("Médico " + m, "m" + m, 40, "CRM" + m, "Clínica Geral", 100 + m));
+        }
+        for (int p = 0; p < PACIENTES; p++) {
+            h.cadastrarPaciente(new Paciente("Paciente " + p, "p" + p, 20 + p % 60));
+        }
+        h.setTotalQuartos(QUARTOS);
+        if (diretorio != null) {
+            h.carregarDados();
+            h.salvarDados();
+        }
+        return h;
+    }
+
+    // Cada cliente sorteia operações sobre o mesmo conjunto de médicos, horários, quartos e CPFs
+    private static long disputar(Hospital h, int clientes, int porCliente, Contagem contagem) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(clientes);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int c = 0; c < clientes; c++) {
+            Random aleatorio = new Random(SEMENTE * 31 + c);
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                for (int k = 0; k < porCliente; k++) {
+                    operar(h, aleatorio, contagem);
+                }
+                return null;
+            }));
+        }
+        long inicio = System.nanoTime();
+        largada.countDown();
+        try {
+            for (Future<?> f : tarefas) f.get(); // uma exceção numa thread (ex.: iteração concorrente) falha aqui
+        } finally {
+            executor.shutdown();
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private static void operar(Hospital h, Random aleatorio, Contagem contagem) throws IOException {
+        String cpf = "p" + aleatorio.nextInt(PACIENTES);
+        int sorteio = aleatorio.nextInt(100);
+        if (sorteio < 40) {
+            LocalDateTime horario = GeradorDados.INICIO.plusMinutes(15L * aleatorio.nextInt(HORARIOS));
+            if (h.agendarConsulta(cpf, "CRM" + aleatorio.nextInt(MEDICOS), horario, "Sala 1")) {
+                contagem.consultasAgendadas.incrementAndGet();
+            }
+        } else if (sorteio < 60) {
+            long id = 1 + aleatorio.nextInt(Math.max(1, contagem.consultasAgendadas.get()));
+            if (h.concluirERemoverConsulta(id, "Alta")) contagem.consultasConcluidas.incrementAndGet();
+        } else if (sorteio < 75) {
+            LocalDate entrada = GeradorDados.INICIO.toLocalDate().plusDays(aleatorio.nextInt(DIAS));
+            if (h.agendarInternacao(cpf, "CRM" + aleatorio.nextInt(MEDICOS), entrada, 1 + aleatorio.nextInt(QUARTOS))) {
+                contagem.internacoesAgendadas.incrementAndGet();
+            }
+        } else if (sorteio < 85) {
+            long id = 1 + aleatorio.nextInt(Math.max(1, contagem.internacoesAgendadas.get()));
+            LocalDate saida = GeradorDados.INICIO.toLocalDate().plusDays(aleatorio.nextInt(DIAS + 10));
+            if (h.concluirERemoverInternacao(id, saida)) contagem.internacoesConcluidas.incrementAndGet();
+        } else if (sorteio < 95) {
+            String novo = "n" + aleatorio.nextInt(CPFS_NOVOS);
+            if (h.cadastrarPaciente(new Paciente("Novo " + novo, novo, 30))) contagem.cadastros.incrementAndGet();
+        } else {
+            // Relatórios percorrendo as partições enquanto as outras recepções escrevem
+            new GeradorRelatorios(h).consultas(Writer.nullWriter(), new FiltroRelatorio().pagina(1, 50));
+            new GeradorRelatorios(h).internacoes(Writer.nullWriter(), new FiltroRelatorio().pagina(1, 50));
+        }
+        contagem.operacoes.incrementAndGet();
+    }
+
+    // Retorna as violações encontradas (vazia se o estado bate com as contagens)
+    private static List<String> verificar(Hospital h, Contagem contagem) {
+        List<String> violacoes = new ArrayList<>();
+        List<Paciente> pacientes = h.getPacientes();
+
+        // Cadastros: um paciente por CPF, e todos os aceitos estão na lista
+        Set<String> cpfs = new HashSet<>();
+        for (Paciente p : pacientes) {
+            if (!cpfs.add(p.getCpf())) violacoes.add("CPF cadastrado duas vezes: " + p.getCpf());
+        }
+        esperar(violacoes, "pacientes", PACIENTES + contagem.cadastros.get(), pacientes.size());
+
+        // Consultas: ativas + histórico
+        List<Consulta> ativas = h.getConsultas();
+        List<Consulta> concluidas = new ArrayList<>();
+        for (Paciente p : pacientes) concluidas.addAll(p.getHistoricoConsultas());
+        esperar(violacoes, "consultas guardadas", contagem.consultasAgendadas.get(), ativas.size() + concluidas.size());
+        esperar(violacoes, "consultas no histórico", contagem.consultasConcluidas.get(), concluidas.size());
+        Set<Long> ids = new HashSet<>();
+        for (Consulta c : ativas) idUnico(violacoes, "consulta", ids, c.getId());
+        for (Consulta c : concluidas) idUnico(violacoes, "consulta", ids, c.getId());
+        idsContinuos(violacoes, "consultas", ids);
+        sobreposicoesMedicos(violacoes, ativas, h.getDuracaoConsulta());
+
+        // Internações: ativas + histórico
+        List<Internacao> internadas = h.getInternacoes();
+        List<Internacao> finalizadas = new ArrayList<>();
+        for (Paciente p : pacientes) finalizadas.addAll(p.getHistoricoInternacoes());
+        esperar(violacoes, "internações guardadas", contagem.internacoesAgendadas.get(), internadas.size() + finalizadas.size());
+        esperar(violacoes, "internações no histórico", contagem.internacoesConcluidas.get(), finalizadas.size());
+        ids = new HashSet<>();
+        for (Internacao i : internadas) idUnico(violacoes, "internação", ids, i.getId());
+        for (Internacao i : finalizadas) idUnico(violacoes, "internação", ids, i.getId());
+        idsContinuos(violacoes, "internações", ids);
+        List<Internacao> todas = new ArrayList<>(internadas);
+        todas.addAll(finalizadas);
+        sobreposicoesQuartos(violacoes, todas);
+        return violacoes;
+    }
+
+    private static void esperar(List<String> violacoes, String o, int esperado, int obtido) {
+        if (esperado != obtido) violacoes.add(o + ": " + esperado + " aceitos, " + obtido + " guardados");
+    }
+
+    private static void idUnico(List<String> violacoes, String tipo, Set<Long> ids, long id) {
+        if (!ids.add(id)) violacoes.add(tipo + " com id repetido: " + id);
+    }
+
+    // Ids são atribuídos só a quem foi aceito, em sequência: de 1 ao total, sem buracos
+    private static void idsContinuos(List<String> violacoes, String tipo, Set<Long> ids) {
+        for (long id = 1; id <= ids.size(); id++) {
+            if (!ids.contains(id)) {
+                violacoes.add(tipo + ": id " + id + " faltando entre 1 e " + ids.size());
+                return;
+            }
+        }
+    }
+
+    // Duas consultas agendadas do mesmo médico a menos de uma duração de distância
+    private static void sobreposicoesMedicos(List<String> violacoes, List<Consulta> ativas, Duration duracao) {
+        Map<String, List<Consulta>> porMedico = new HashMap<>();
+        for (Consulta c : ativas) porMedico.computeIfAbsent(c.getMedico().getCrm(), k -> new ArrayList<>()).add(c);
+        for (List<Consulta> agenda : porMedico.values()) {
+            agenda.sort(Comparator.comparing(Consulta::getDataHora));
+            for (int i = 1; i < agenda.size(); i++) {
+                Consulta anterior = agenda.get(i - 1);
+                Consulta atual = agenda.get(i);
+                if (anterior.getDataHora().plus(duracao).isAfter(atual.getDataHora())) {
+                    violacoes.add("médico " + atual.getMedico().getCrm() + " com consultas #" + anterior.getId()
+                            + " e #" + atual.getId() + " sobrepostas");
+                }
+            }
+        }
+    }
+
+    // Períodos [entrada, saída) do mesmo quarto que se sobrepõem (ativa: sem fim)
+    private static void sobreposicoesQuartos(List<String> violacoes, List<Internacao> internacoes) {
+        Map<Integer, List<Internacao>> porQuarto = new HashMap<>();
+        for (Internacao i : internacoes) {
+            if (i.getDataSaida() == null && i.getStatus() != StatusInternacao.ATIVA) continue; // cancelada sem ocupar
+            porQuarto.computeIfAbsent(i.getNumeroQuarto(), k -> new ArrayList<>()).add(i);
+        }
+        for (List<Internacao> quarto : porQuarto.values()) {
+            quarto.sort(Comparator.comparing(Internacao::getDataEntrada));
+            for (int k = 1; k < quarto.size(); k++) {
+                Internacao anterior = quarto.get(k - 1);
+                Internacao atual = quarto.get(k);
+                LocalDate fim = anterior.getDataSaida();
+                if (fim != null && !fim.isAfter(anterior.getDataEntrada())) fim = anterior.getDataEntrada().plusDays(1);
+                if (fim == null || fim.isAfter(atual.getDataEntrada())) {
+                    violacoes.add("quarto " + atual.getNumeroQuarto() + " com internações #" + anterior.getId()
+                            + " e #" + atual.getId() + " sobrepostas");
+                }
+            }
+        }
+    }
+
+    private static void relatar(String rodada, int clientes, Contagem contagem, long nanos, List<String> violacoes,
+                                List<String> falhas) {
+        int operacoes = contagem.operacoes.get();
+        String verificacao = violacoes.isEmpty() ? "ok" : violacoes.size() + " violação(ões)";
+        if (nanos > 0) {
+            SAIDA.printf("%-22s %8d %10d %12.1f %14.0f  %s%n", rodada, clientes, operacoes, nanos / 1e6,
+                    operacoes * 1e9 / nanos, verificacao);
+        } else {
+            SAIDA.printf("%-22s %8d %10s %12s %14s  %s%n", rodada, clientes, "-", "-", "-", verificacao);
+        }
+        for (String v : violacoes) falhas.add(rodada + " x" + clientes + ": " + v);
+    }
+
+    private static void apagar(Path raiz) throws IOException {
+        try (Stream<Path> caminhos = Files.walk(raiz)) {
+            caminhos.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package benchmark;
+
+import modelos.*;
+import servicos.Hospital;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Gera massas de dados sintéticas e determinísticas: a mesma semente e o mesmo tamanho
+// produzem sempre os mesmos arquivos, o que permite comparar medições entre commits.
+// Proporções para n consultas: n/10 pacientes, n/1000 médicos (mín. 10), n/10 internações.
+public class GeradorDados {
+    public static final long SEMENTE_PADRAO = 20252L;
+
+    private static final String[] NOMES = {"Ana", "Bruno", "Carla", "Diego", "Elisa", "Fábio", "Gabriela",
+            "Heitor", "Isabela", "João", "Karina", "Lucas", "Marina", "Nicolas", "Olívia", "Pedro", "Rafaela",
+            "Samuel", "Tatiane", "Vitor"};
+    private static final String[] SOBRENOMES = {"Almeida", "Barbosa", "Costa", "Dias", "Ferreira", "Gomes",
+            "Lima", "Martins", "Oliveira", "Pereira", "Ribeiro", "Santos", "Silva", "Souza"};
+    private static final String[] ESPECIALIDADES = {"Cardiologia", "Clínica Geral", "Dermatologia",
+            "Ortopedia", "Pediatria", "Neurologia"};
+    private static final String[] DIAGNOSTICOS = {"Gripe", "Hipertensão", "Check-up", "Fratura", "Enxaqueca"};
+    static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 8, 0);
+    static final int TOTAL_QUARTOS = 100;
+
+    private final Random aleatorio;
+    private final List<Medico> medicos = new ArrayList<>();
+    private final List<Paciente> pacientes = new ArrayList<>();
+    private final List<Consulta> consultas = new ArrayList<>();
+    private final List<Internacao> internacoes = new ArrayList<>();
+
+    public GeradorDados(int totalConsultas, long semente) {
+        this.aleatorio = new Random(semente);
+        List<PlanoSaude> planos = new Hospital().getPlanos();
+
+        int totalMedicos = Math.max(10, totalConsultas / 1000);
+        for (int i = 0; i < totalMedicos; i++) {
+            medicos.add(new Medico(nome(), cpf(900_000_000L + i), 30 + aleatorio.nextInt(35), crm(i),
+                    ESPECIALIDADES[i % ESPECIALIDADES.length], 100 + 10 * aleatorio.nextInt(20)));
+        }
+
+        int totalPacientes = Math.max(10, totalConsultas / 10);
+        for (int i = 0; i < totalPacientes; i++) {
+            int idade = 1 + aleatorio.nextInt(95);
+            int tipo = aleatorio.nextInt(3); // 0: comum; 1, 2: plano
+            pacientes.add(tipo == 0 ? new Paciente(nome(), cpf(i), idade)
+                                    : new PacienteEspecial(nome(), cpf(i), idade, planos.get(tipo - 1)));
+        }
+
+        // Consultas em sequência na agenda de cada médico (sem conflitos); 70% já concluídas
+        for (int k = 0; k < totalConsultas; k++) {
+            Medico m = medicos.get(k % totalMedicos);
+            Paciente p = pacientes.get(aleatorio.nextInt(totalPacientes));
+            LocalDateTime dataHora = INICIO.plusMinutes(30L * (k / totalMedicos));
+            boolean concluida = aleatorio.nextInt(10) < 7;
+            consultas.add(Consulta.restaurar(k + 1, p, m, dataHora, "Sala " + (1 + k % 20),
+                    concluida ? StatusConsulta.CONCLUIDA : StatusConsulta.AGENDADA,
+                    concluida ? DIAGNOSTICOS[aleatorio.nextInt(DIAGNOSTICOS.length)] : null,
+                    p.calcularCustoConsulta(m.getCustoConsulta())));
+        }
+
+        // Internações em sequência por quarto; só a última de cada quarto fica ativa
+        int totalInternacoes = totalConsultas / 10;
+        for (int k = 0; k < totalInternacoes; k++) {
+            Paciente p = pacientes.get(aleatorio.nextInt(totalPacientes));
+            Medico m = medicos.get(aleatorio.nextInt(totalMedicos));
+            LocalDate entrada = INICIO.toLocalDate().plusDays(5L * (k / TOTAL_QUARTOS));
+            boolean ativa = k >= totalInternacoes - TOTAL_QUARTOS;
+            internacoes.add(Internacao.restaurar(k + 1, p, m, entrada,
+                    ativa ? null : entrada.plusDays(1 + aleatorio.nextInt(4)), 1 + k % TOTAL_QUARTOS, 200.0,
+                    ativa ? StatusInternacao.ATIVA : StatusInternacao.CONCLUIDA));
+        }
+    }
+
+    public List<Medico> getMedicos() { return medicos; }
+    public List<Paciente> getPacientes() { return pacientes; }
+    public List<Consulta> getConsultas() { return consultas; }
+    public List<Internacao> getInternacoes() { return internacoes; }
+
+    // Grava os quatro CSV no formato lido por Hospital.carregarDadosCSV()
+    public void gravarCSV(Path diretorio) throws IOException {
+        Files.createDirectories(diretorio);
+        try (BufferedWriter out = Files.newBufferedWriter(diretorio.resolve("medicos.csv"))) {
+            out.write("TIPO;NOME;CPF;IDADE;CRM;ESPECIALIDADE;CUSTO_CONSULTA\n");
+            for (Medico m : medicos) { out.write(m.toCSV()); out.write('\n'); }
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(diretorio.resolve("pacientes.csv"))) {
+            out.write("TIPO;NOME;CPF;IDADE;PLANO_NOME(apenas_especial)\n");
+            for (Paciente p : pacientes) { out.write(p.toCSV()); out.write('\n'); }
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(diretorio.resolve("consultas.csv"))) {
+            out.write("ID;PACIENTE_CPF;MEDICO_CRM;DATA_HORA;LOCAL;STATUS;DIAGNOSTICO;VALOR_COBRADO\n");
+            for (Consulta c : consultas) { out.write(c.toCSV()); out.write('\n'); }
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(diretorio.resolve("internacoes.csv"))) {
+            out.write("ID;PACIENTE_CPF;MEDICO_CRM;DATA_ENTRADA;DATA_SAIDA;QUARTO;CUSTO_DIARIO;STATUS\n");
+            for (Internacao i : internacoes) { out.write(i.toCSV()); out.write('\n'); }
+        }
+    }
+
+    // Só pacientes e médicos: consultas e internações são criadas pelo próprio benchmark.
+    // Os pacientes são copiados, pois o histórico de cada um fica no próprio objeto.
+    public void cadastrar(Hospital hospital) {
+        for (Medico m : medicos) hospital.cadastrarMedico(m);
+        for (Paciente p : pacientes) {
+            hospital.cadastrarPaciente(p instanceof PacienteEspecial
+                    ? new PacienteEspecial(p.getNome(), p.getCpf(), p.getIdade(), ((PacienteEspecial) p).getPlano())
+                    : new Paciente(p.getNome(), p.getCpf(), p.getIdade()));
+        }
+    }
+
+    private String nome() {
+        return NOMES[aleatorio.nextInt(NOMES.length)] + " " + SOBRENOMES[aleatorio.nextInt(SOBRENOMES.length)];
+    }
+
+    static String cpf(long i) {
+        return String.format("%011d", i);
+    }
+
+    static String crm(int i) {
+        return "CRM" + (10000 + i);
+    }
+}
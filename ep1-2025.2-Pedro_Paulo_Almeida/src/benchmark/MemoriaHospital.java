@@ -0,0 +1,104 @@
+package benchmark;
+
+import servicos.Hospital;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+// Heap ocupado pelo hospital carregado do CSV e do snapshot (diferença entre antes e depois da
+// carga, com coletas completas nas duas pontas). Mede o efeito de mudanças na representação;
+// do snapshot, o histórico fica nos arquivos e não entra na conta. Os tempos ficam com os
+// benchmarks JMH (pasta jmh/); isto não cabe lá, pois mede memória e não tempo.
+//
+// Uso: java -Xmx4g -cp build/classes/java/main benchmark.MemoriaHospital [tamanhos...]
+//      -Dbench.semente=20252
+public class MemoriaHospital {
+    private static final long SEMENTE = Long.getLong("bench.semente", GeradorDados.SEMENTE_PADRAO);
+    private static final String[] ARQUIVOS_CSV = {"medicos.csv", "pacientes.csv", "consultas.csv", "internacoes.csv"};
+    private static final PrintStream SILENCIO = new PrintStream(OutputStream.nullOutputStream());
+    private static volatile long sumidouro; // mantém o hospital vivo até a medição
+
+    public static void main(String[] args) throws Exception {
+        int[] tamanhos = (args.length == 0) ? new int[] {10_000, 100_000}
+                                            : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        Path raiz = Files.createTempDirectory("memoria-hospital");
+        System.out.printf("%-40s %9s %15s %18s%n", "cenário", "n", "heap", "por registro");
+        try {
+            for (int n : tamanhos) {
+                medir(n, raiz.resolve("n" + n));
+            }
+        } finally {
+            apagar(raiz);
+        }
+    }
+
+    private static void medir(int n, Path diretorio) throws Exception {
+        GeradorDados dados = new GeradorDados(n, SEMENTE);
+        Path csv = diretorio.resolve("csv");
+        dados.gravarCSV(csv);
+        long linhas = dados.getMedicos().size() + dados.getPacientes().size() + n + dados.getInternacoes().size();
+
+        Path snapshot = diretorio.resolve("snapshot");
+        Files.createDirectories(snapshot);
+        for (String arquivo : ARQUIVOS_CSV) {
+            Files.copy(csv.resolve(arquivo), snapshot.resolve(arquivo));
+        }
+        Hospital gravador = silencioso(new Hospital(snapshot));
+        gravador.carregarDados();
+        gravador.salvarDados();
+        gravador.encerrar();
+        for (String arquivo : ARQUIVOS_CSV) {
+            Files.delete(snapshot.resolve(arquivo));
+        }
+        dados = null; // a massa gerada não entra na conta
+        gravador = null;
+
+        long antes = heapUsado();
+        Hospital h = silencioso(new Hospital(csv));
+        h.carregarDadosCSV();
+        long depois = heapUsado();
+        sumidouro += h.getPacientes().size();
+        imprimir("heap retido (carregarDadosCSV)", n, depois - antes, linhas);
+        h = null;
+
+        antes = heapUsado();
+        Hospital s = silencioso(new Hospital(snapshot));
+        s.carregarDados();
+        depois = heapUsado();
+        sumidouro += s.getPacientes().size();
+        s.encerrar();
+        imprimir("heap retido (carregarDados, snapshot)", n, depois - antes, linhas);
+    }
+
+    private static void imprimir(String cenario, int n, long bytes, long linhas) {
+        System.out.printf("%-40s %9d %12.1f MB %9.0f bytes%n", cenario, n,
+                bytes / (1024.0 * 1024.0), (double) bytes / linhas);
+    }
+
+    private static long heapUsado() throws InterruptedException {
+        Runtime rt = Runtime.getRuntime();
+        long usado = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) { // a menor leitura após algumas coletas
+            System.gc();
+            Thread.sleep(50);
+            usado = Math.min(usado, rt.totalMemory() - rt.freeMemory());
+        }
+        return usado;
+    }
+
+    private static Hospital silencioso(Hospital h) {
+        h.setMensagens(SILENCIO);
+        return h;
+    }
+
+    private static void apagar(Path raiz) throws IOException {
+        try (Stream<Path> caminhos = Files.walk(raiz)) {
+            caminhos.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
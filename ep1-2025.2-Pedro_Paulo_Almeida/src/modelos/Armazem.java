@@ -0,0 +1,169 @@
+package modelos;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Bytes só de acréscimo, em segmentos de SEGMENTO bytes: na memória (o último segmento cresce
+// dobrando) ou num arquivo mapeado, cujas páginas o sistema operacional carrega quando são lidas
+// e descarta quando falta memória (fora do heap). Um registro nunca atravessa dois segmentos.
+// Leituras são posicionais e podem ser concorrentes; acréscimos precisam de exclusão mútua.
+final class Armazem {
+    static final int SEGMENTO = 1 << 24; // 16 MB
+
+    private final List<ByteBuffer> segmentos = new ArrayList<>();
+    private FileChannel canal; // null = na memória
+    private long tamanho;
+
+    long tamanho() { return tamanho; }
+    boolean emArquivo() { return canal != null; }
+
+    // Posição de um registro de tamanho fixo, com os mesmos saltos de segmento de reservar()
+    static long posicao(int indice, int tamanhoRegistro) {
+        int porSegmento = SEGMENTO / tamanhoRegistro;
+        return (long) (indice / porSegmento) * SEGMENTO + (long) (indice % porSegmento) * tamanhoRegistro;
+    }
+
+    // Reserva n bytes contíguos no fim e retorna a posição do primeiro
+    long reservar(int n) {
+        long inicio = tamanho;
+        int livre = SEGMENTO - deslocamento(inicio);
+        if (n > livre) inicio += livre; // não cabe no segmento atual: começa no próximo
+        garantir(inicio + n);
+        tamanho = inicio + n;
+        return inicio;
+    }
+
+    long getLong(long pos) { return segmento(pos).getLong(deslocamento(pos)); }
+    int getInt(long pos) { return segmento(pos).getInt(deslocamento(pos)); }
+    double getDouble(long pos) { return segmento(pos).getDouble(deslocamento(pos)); }
+    byte getByte(long pos) { return segmento(pos).get(deslocamento(pos)); }
+
+    void putLong(long pos, long v) { segmento(pos).putLong(deslocamento(pos), v); }
+    void putInt(long pos, int v) { segmento(pos).putInt(deslocamento(pos), v); }
+    void putDouble(long pos, double v) { segmento(pos).putDouble(deslocamento(pos), v); }
+    void putByte(long pos, byte v) { segmento(pos).put(deslocamento(pos), v); }
+
+    // Texto em UTF-8 precedido do tamanho em bytes
+    long acrescentarTexto(String texto) {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > SEGMENTO - 4) {
+            throw new IllegalArgumentException("Texto grande demais para o histórico: " + bytes.length + " bytes");
+        }
+        long pos = reservar(4 + bytes.length);
+        putInt(pos, bytes.length);
+        segmento(pos).put(deslocamento(pos) + 4, bytes);
+        return pos;
+    }
+
+    String getTexto(long pos) {
+        byte[] bytes = new byte[getInt(pos)];
+        segmento(pos).get(deslocamento(pos) + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Passa a usar o arquivo (recriado) copiando o que está na memória
+    void gravarEm(Path arquivo) throws IOException {
+        FileChannel novo = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            List<ByteBuffer> mapeados = new ArrayList<>(segmentos.size());
+            for (int s = 0; s < segmentos.size(); s++) {
+                ByteBuffer destino = mapear(novo, s);
+                ByteBuffer origem = segmentos.get(s).duplicate();
+                origem.clear().limit((int) Math.min(SEGMENTO, tamanho - (long) s * SEGMENTO));
+                destino.duplicate().put(origem);
+                mapeados.add(destino);
+            }
+            segmentos.clear();
+            segmentos.addAll(mapeados);
+            canal = novo;
+        } catch (IOException | RuntimeException e) {
+            novo.close();
+            throw e;
+        }
+    }
+
+    // Reabre um arquivo gravado antes; o que passar de tamanhoConfirmado (escrito depois do último
+    // snapshot) é ignorado e sobrescrito pelos próximos acréscimos
+    void abrir(Path arquivo, long tamanhoConfirmado) throws IOException {
+        FileChannel novo = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (novo.size() < tamanhoConfirmado) {
+            novo.close();
+            throw new IOException("histórico " + arquivo.getFileName() + " menor que o registrado no snapshot");
+        }
+        fechar();
+        segmentos.clear();
+        canal = novo;
+        tamanho = 0;
+        garantir(tamanhoConfirmado);
+        tamanho = tamanhoConfirmado;
+    }
+
+    // Força os segmentos mapeados para o disco (antes do snapshot que confirma o tamanho)
+    void forcar() {
+        if (canal == null) return;
+        for (ByteBuffer segmento : segmentos) {
+            ((MappedByteBuffer) segmento).force();
+        }
+    }
+
+    void fechar() throws IOException {
+        if (canal != null) canal.close();
+    }
+
+    private void garantir(long fim) {
+        if (fim == 0) return;
+        int ultimo = (int) ((fim - 1) / SEGMENTO);
+        while (segmentos.size() <= ultimo) {
+            if (canal != null) {
+                segmentos.add(mapearOuFalhar(segmentos.size()));
+            } else {
+                // Na memória só o último segmento fica incompleto: ao abrir outro, completa o atual
+                if (!segmentos.isEmpty()) redimensionar(segmentos.size() - 1, SEGMENTO);
+                segmentos.add(ByteBuffer.allocate(1024));
+            }
+        }
+        if (canal == null && segmentos.get(ultimo).capacity() < deslocamento(fim - 1) + 1) {
+            int capacidade = segmentos.get(ultimo).capacity();
+            while (capacidade <= deslocamento(fim - 1)) capacidade = Math.min(SEGMENTO, capacidade * 2);
+            redimensionar(ultimo, capacidade);
+        }
+    }
+
+    private void redimensionar(int indice, int capacidade) {
+        ByteBuffer atual = segmentos.get(indice);
+        if (atual.capacity() >= capacidade) return;
+        ByteBuffer maior = ByteBuffer.allocate(capacidade);
+        maior.put(atual.duplicate().clear());
+        segmentos.set(indice, maior);
+    }
+
+    private ByteBuffer mapearOuFalhar(int indice) {
+        try {
+            return mapear(canal, indice);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao estender o histórico em disco", e);
+        }
+    }
+
+    private static ByteBuffer mapear(FileChannel canal, int indice) throws IOException {
+        return canal.map(FileChannel.MapMode.READ_WRITE, (long) indice * SEGMENTO, SEGMENTO);
+    }
+
+    private ByteBuffer segmento(long pos) {
+        return segmentos.get((int) (pos / SEGMENTO));
+    }
+
+    private static int deslocamento(long pos) {
+        return (int) (pos % SEGMENTO);
+    }
+}
@@ -0,0 +1,179 @@
+package modelos;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Histórico das consultas concluídas/canceladas em registros binários de tamanho fixo: uma
+// consulta arquivada nunca muda, então não precisa ser um objeto. Cada registro tem 49 bytes (id,
+// paciente, médico, minuto desde a época, valor, local, diagnóstico, status e o registro anterior
+// do mesmo paciente); pessoas viram números pelos dicionários e textos ficam num segundo armazém.
+// Até gravarEm/abrir os registros ficam na memória; depois, em arquivos mapeados (ver Armazem),
+// e o índice por paciente é só o último registro e o total (a corrente é seguida ao ler).
+// A Consulta só é recriada quando alguém a lê (consulta(linha) ou historico(paciente)).
+// Não é thread-safe: o Hospital o protege com a trava das consultas.
+public final class ArquivoConsultas {
+    private static final StatusConsulta[] STATUS = StatusConsulta.values();
+    private static final int REGISTRO = 49;
+    private static final int ID = 0, PACIENTE = 8, MEDICO = 12, MINUTO = 16, VALOR = 20, LOCAL = 28,
+            DIAGNOSTICO = 36, ESTADO = 44, ANTERIOR = 45;
+    private static final long SEM_TEXTO = -1;
+    private static final int TEXTOS_REPETIDOS = 4096; // locais e diagnósticos já gravados, para reaproveitar
+
+    private final Dicionario<Paciente> pacientes = new Dicionario<>();
+    private final Dicionario<Medico> medicos = new Dicionario<>();
+    private final Armazem registros = new Armazem();
+    private final Armazem textos = new Armazem();
+    private final Map<String, Long> textosGravados = new HashMap<>();
+    private final CacheHistoricos<Consulta> cache = new CacheHistoricos<>();
+    private int tamanho;
+
+    // Copia a consulta para um novo registro e o encadeia no histórico do paciente. Os segundos
+    // da data/hora são descartados (a agenda trabalha em minutos).
+    public int arquivar(Consulta c) {
+        int minuto = Math.toIntExact(c.getDataHora().toEpochSecond(ZoneOffset.UTC) / 60);
+        int linha = tamanho;
+        int anterior = c.getPaciente().vincularConsulta(this, linha);
+        long pos = registros.reservar(REGISTRO);
+        registros.putLong(pos + ID, c.getId());
+        registros.putInt(pos + PACIENTE, pacientes.id(c.getPaciente()));
+        registros.putInt(pos + MEDICO, medicos.id(c.getMedico()));
+        registros.putInt(pos + MINUTO, minuto);
+        registros.putDouble(pos + VALOR, c.getValorCobrado());
+        registros.putLong(pos + LOCAL, texto(c.getLocal()));
+        registros.putLong(pos + DIAGNOSTICO, texto(c.getDiagnostico()));
+        registros.putByte(pos + ESTADO, (byte) c.getStatus().ordinal());
+        registros.putInt(pos + ANTERIOR, anterior);
+        tamanho++;
+        cache.descartar(c.getPaciente());
+        return linha;
+    }
+
+    // Recria a consulta da linha (um objeto novo a cada chamada)
+    public Consulta consulta(int linha) {
+        return Consulta.restaurar(getId(linha), getPaciente(linha), getMedico(linha), getDataHora(linha),
+                getLocal(linha), getStatus(linha), getDiagnostico(linha), getValorCobrado(linha));
+    }
+
+    /**
+     * Histórico do paciente em ordem de arquivamento (somente leitura). Na primeira leitura os
+     * registros são trazidos do armazém; depois a lista fica num cache LRU limitado pelo total de
+     * consultas guardadas (ver CacheHistoricos), de onde os pacientes menos lidos saem primeiro.
+     */
+    public List<Consulta> historico(Paciente p) {
+        return cache.obter(p, () -> {
+            int[] linhas = linhas(p);
+            Consulta[] lidas = new Consulta[linhas.length];
+            for (int i = 0; i < linhas.length; i++) lidas[i] = consulta(linhas[i]);
+            return List.of(lidas);
+        });
+    }
+
+    // Linhas do paciente em ordem de arquivamento, seguindo a corrente a partir da última
+    public int[] linhas(Paciente p) {
+        int[] linhas = new int[p.totalConsultas(this)];
+        int linha = p.ultimaConsulta(this);
+        for (int i = linhas.length - 1; i >= 0; i--) {
+            linhas[i] = linha;
+            linha = registros.getInt(posicao(linha) + ANTERIOR);
+        }
+        return linhas;
+    }
+
+    public int tamanho() { return tamanho; }
+
+    // --- Colunas (sem criar a Consulta) ---
+    public long getId(int linha) { return registros.getLong(posicao(linha) + ID); }
+    public Paciente getPaciente(int linha) { return pacientes.valor(registros.getInt(posicao(linha) + PACIENTE)); }
+    public Medico getMedico(int linha) { return medicos.valor(registros.getInt(posicao(linha) + MEDICO)); }
+    public LocalDateTime getDataHora(int linha) { return LocalDateTime.ofEpochSecond(minuto(linha) * 60L, 0, ZoneOffset.UTC); }
+    public LocalDate getDia(int linha) { return LocalDate.ofEpochDay(getEpochDia(linha)); }
+    public int getEpochDia(int linha) { return Math.floorDiv(minuto(linha), 24 * 60); }
+    public StatusConsulta getStatus(int linha) { return STATUS[registros.getByte(posicao(linha) + ESTADO)]; }
+    public double getValorCobrado(int linha) { return registros.getDouble(posicao(linha) + VALOR); }
+    public String getLocal(int linha) { return lerTexto(registros.getLong(posicao(linha) + LOCAL)); }
+    public String getDiagnostico(int linha) { return lerTexto(registros.getLong(posicao(linha) + DIAGNOSTICO)); }
+
+    // --- Disco ---
+
+    public boolean isEmDisco() { return registros.emArquivo(); }
+
+    // Passa a gravar nos arquivos (recriados), copiando o que já foi arquivado na memória
+    public void gravarEm(Path arquivoRegistros, Path arquivoTextos) throws IOException {
+        registros.gravarEm(arquivoRegistros);
+        textos.gravarEm(arquivoTextos);
+    }
+
+    // Força os arquivos para o disco: chamado antes do snapshot que confirma o tamanho
+    public void forcar() {
+        registros.forcar();
+        textos.forcar();
+    }
+
+    public void fechar() throws IOException {
+        registros.fechar();
+        textos.fechar();
+    }
+
+    /**
+     * Estado que vai no snapshot (ver EstadoHistorico), na ordem dos pacientes do snapshot:
+     * quantidade de registros, bytes de texto, dicionários de pessoas e, por paciente, último
+     * registro e total. Chamado com a trava das consultas; o resultado é gravado sem ela.
+     */
+    public EstadoHistorico capturarEstado(List<Paciente> todos) {
+        int[] ultimas = new int[todos.size()];
+        int[] totais = new int[todos.size()];
+        for (int i = 0; i < ultimas.length; i++) {
+            ultimas[i] = todos.get(i).ultimaConsulta(this);
+            totais[i] = todos.get(i).totalConsultas(this);
+        }
+        return new EstadoHistorico(tamanho, textos.tamanho(), pacientes.valores(), medicos.valores(), ultimas, totais);
+    }
+
+    // Lê o que EstadoHistorico.gravar gravou e reabre os arquivos (arquivo ainda vazio, logo após a carga)
+    public void carregarEstado(ByteBuffer in, Paciente[] todos, Medico[] todosMedicos,
+                               Path arquivoRegistros, Path arquivoTextos) throws IOException {
+        int linhas = in.getInt();
+        long bytesTextos = in.getLong();
+        for (int i = in.getInt(); i > 0; i--) pacientes.id(todos[in.getInt()]);
+        for (int i = in.getInt(); i > 0; i--) medicos.id(todosMedicos[in.getInt()]);
+        for (Paciente p : todos) {
+            int ultima = in.getInt();
+            int total = in.getInt();
+            if (total > 0) p.restaurarConsultas(this, ultima, total);
+        }
+        registros.abrir(arquivoRegistros, linhas == 0 ? 0 : posicao(linhas - 1) + REGISTRO);
+        textos.abrir(arquivoTextos, bytesTextos);
+        tamanho = linhas;
+    }
+
+    private static long posicao(int linha) {
+        return Armazem.posicao(linha, REGISTRO);
+    }
+
+    private int minuto(int linha) {
+        return registros.getInt(posicao(linha) + MINUTO);
+    }
+
+    // Textos repetidos (locais, diagnósticos padrão) apontam para a mesma posição; o mapa é
+    // limitado e recomeça quando enche
+    private long texto(String s) {
+        if (s == null) return SEM_TEXTO;
+        Long pos = textosGravados.get(s);
+        if (pos != null) return pos;
+        if (textosGravados.size() == TEXTOS_REPETIDOS) textosGravados.clear();
+        long novo = textos.acrescentarTexto(s);
+        textosGravados.put(s, novo);
+        return novo;
+    }
+
+    private String lerTexto(long pos) {
+        return pos == SEM_TEXTO ? null : textos.getTexto(pos);
+    }
+}
@@ -0,0 +1,135 @@
+package modelos;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+// Histórico das internações concluídas/canceladas em registros binários de 41 bytes (ver
+// ArquivoConsultas): datas em dias desde a época, pessoas pelos dicionários, status pelo ordinal
+// e o registro anterior do mesmo paciente. A Internacao só é recriada quando alguém a lê.
+// Não é thread-safe: o Hospital o protege com a trava das internações.
+public final class ArquivoInternacoes {
+    private static final StatusInternacao[] STATUS = StatusInternacao.values();
+    private static final int SEM_SAIDA = Integer.MIN_VALUE;
+    private static final int REGISTRO = 41;
+    private static final int ID = 0, PACIENTE = 8, MEDICO = 12, ENTRADA = 16, SAIDA = 20, QUARTO = 24,
+            CUSTO = 28, ESTADO = 36, ANTERIOR = 37;
+
+    private final Dicionario<Paciente> pacientes = new Dicionario<>();
+    private final Dicionario<Medico> medicos = new Dicionario<>();
+    private final Armazem registros = new Armazem();
+    private final CacheHistoricos<Internacao> cache = new CacheHistoricos<>();
+    private int tamanho;
+
+    // Copia a internação para um novo registro e o encadeia no histórico do paciente
+    public int arquivar(Internacao i) {
+        int entrada = Math.toIntExact(i.getDataEntrada().toEpochDay());
+        int saida = (i.getDataSaida() == null) ? SEM_SAIDA : Math.toIntExact(i.getDataSaida().toEpochDay());
+        int linha = tamanho;
+        int anterior = i.getPaciente().vincularInternacao(this, linha);
+        long pos = registros.reservar(REGISTRO);
+        registros.putLong(pos + ID, i.getId());
+        registros.putInt(pos + PACIENTE, pacientes.id(i.getPaciente()));
+        registros.putInt(pos + MEDICO, medicos.id(i.getMedicoResponsavel()));
+        registros.putInt(pos + ENTRADA, entrada);
+        registros.putInt(pos + SAIDA, saida);
+        registros.putInt(pos + QUARTO, i.getNumeroQuarto());
+        registros.putDouble(pos + CUSTO, i.getCustoDiario());
+        registros.putByte(pos + ESTADO, (byte) i.getStatus().ordinal());
+        registros.putInt(pos + ANTERIOR, anterior);
+        tamanho++;
+        cache.descartar(i.getPaciente());
+        return linha;
+    }
+
+    // Recria a internação da linha (um objeto novo a cada chamada)
+    public Internacao internacao(int linha) {
+        return Internacao.restaurar(getId(linha), getPaciente(linha), getMedicoResponsavel(linha), getDataEntrada(linha),
+                getDataSaida(linha), getNumeroQuarto(linha), getCustoDiario(linha), getStatus(linha));
+    }
+
+    // Histórico do paciente em ordem de arquivamento, pelo cache LRU (ver ArquivoConsultas.historico)
+    public List<Internacao> historico(Paciente p) {
+        return cache.obter(p, () -> {
+            int[] linhas = linhas(p);
+            Internacao[] lidas = new Internacao[linhas.length];
+            for (int i = 0; i < linhas.length; i++) lidas[i] = internacao(linhas[i]);
+            return List.of(lidas);
+        });
+    }
+
+    public int[] linhas(Paciente p) {
+        int[] linhas = new int[p.totalInternacoes(this)];
+        int linha = p.ultimaInternacao(this);
+        for (int i = linhas.length - 1; i >= 0; i--) {
+            linhas[i] = linha;
+            linha = registros.getInt(posicao(linha) + ANTERIOR);
+        }
+        return linhas;
+    }
+
+    public int tamanho() { return tamanho; }
+
+    // --- Colunas (sem criar a Internacao) ---
+    public long getId(int linha) { return registros.getLong(posicao(linha) + ID); }
+    public Paciente getPaciente(int linha) { return pacientes.valor(registros.getInt(posicao(linha) + PACIENTE)); }
+    public Medico getMedicoResponsavel(int linha) { return medicos.valor(registros.getInt(posicao(linha) + MEDICO)); }
+    public LocalDate getDataEntrada(int linha) { return LocalDate.ofEpochDay(getEpochEntrada(linha)); }
+    public LocalDate getDataSaida(int linha) {
+        int saida = getEpochSaida(linha);
+        return saida == SEM_SAIDA ? null : LocalDate.ofEpochDay(saida);
+    }
+    public int getEpochEntrada(int linha) { return registros.getInt(posicao(linha) + ENTRADA); }
+    public int getEpochSaida(int linha) { return registros.getInt(posicao(linha) + SAIDA); } // Integer.MIN_VALUE = sem saída
+    public int getNumeroQuarto(int linha) { return registros.getInt(posicao(linha) + QUARTO); }
+    public double getCustoDiario(int linha) { return registros.getDouble(posicao(linha) + CUSTO); }
+    public StatusInternacao getStatus(int linha) { return STATUS[registros.getByte(posicao(linha) + ESTADO)]; }
+
+    // --- Disco (ver ArquivoConsultas) ---
+
+    public boolean isEmDisco() { return registros.emArquivo(); }
+
+    public void gravarEm(Path arquivoRegistros) throws IOException {
+        registros.gravarEm(arquivoRegistros);
+    }
+
+    public void forcar() {
+        registros.forcar();
+    }
+
+    public void fechar() throws IOException {
+        registros.fechar();
+    }
+
+    // Como em ArquivoConsultas, sem os textos
+    public EstadoHistorico capturarEstado(List<Paciente> todos) {
+        int[] ultimas = new int[todos.size()];
+        int[] totais = new int[todos.size()];
+        for (int i = 0; i < ultimas.length; i++) {
+            ultimas[i] = todos.get(i).ultimaInternacao(this);
+            totais[i] = todos.get(i).totalInternacoes(this);
+        }
+        return new EstadoHistorico(tamanho, EstadoHistorico.SEM_TEXTOS, pacientes.valores(), medicos.valores(),
+                ultimas, totais);
+    }
+
+    public void carregarEstado(ByteBuffer in, Paciente[] todos, Medico[] todosMedicos, Path arquivoRegistros)
+            throws IOException {
+        int linhas = in.getInt();
+        for (int i = in.getInt(); i > 0; i--) pacientes.id(todos[in.getInt()]);
+        for (int i = in.getInt(); i > 0; i--) medicos.id(todosMedicos[in.getInt()]);
+        for (Paciente p : todos) {
+            int ultima = in.getInt();
+            int total = in.getInt();
+            if (total > 0) p.restaurarInternacoes(this, ultima, total);
+        }
+        registros.abrir(arquivoRegistros, linhas == 0 ? 0 : posicao(linhas - 1) + REGISTRO);
+        tamanho = linhas;
+    }
+
+    private static long posicao(int linha) {
+        return Armazem.posicao(linha, REGISTRO);
+    }
+}
@@ -0,0 +1,49 @@
+package modelos;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Cache LRU dos históricos já trazidos do disco, limitado pelo total de registros guardados
+// (não pelo número de pacientes: quem tem centenas de consultas pesa mais). Ao passar do limite,
+// saem os pacientes lidos há mais tempo. Sincronizado: relatórios e faturamento leem em paralelo.
+final class CacheHistoricos<T> {
+    // Registros guardados por arquivo; ajustável com -Dhospital.cacheHistorico=N
+    static final int LIMITE_PADRAO = Integer.getInteger("hospital.cacheHistorico", 100_000);
+
+    private final LinkedHashMap<Paciente, List<T>> listas = new LinkedHashMap<>(256, 0.75f, true);
+    private final int limite;
+    private long registros;
+
+    CacheHistoricos() {
+        this(LIMITE_PADRAO);
+    }
+
+    CacheHistoricos(int limite) {
+        this.limite = limite;
+    }
+
+    // A leitura acontece com o cache travado, para não guardar uma lista que um arquivar() acabou de invalidar
+    synchronized List<T> obter(Paciente p, Supplier<List<T>> leitura) {
+        List<T> lista = listas.get(p);
+        if (lista != null) return lista;
+        lista = leitura.get();
+        if (lista.isEmpty()) return lista;
+        listas.put(p, lista);
+        registros += lista.size();
+        // O mais recente fica mesmo sozinho acima do limite
+        Iterator<Map.Entry<Paciente, List<T>>> antigos = listas.entrySet().iterator();
+        while (registros > limite && listas.size() > 1) {
+            registros -= antigos.next().getValue().size();
+            antigos.remove();
+        }
+        return lista;
+    }
+
+    synchronized void descartar(Paciente p) {
+        List<T> lista = listas.remove(p);
+        if (lista != null) registros -= lista.size();
+    }
+}
@@ -1,12 +1,14 @@
 package modelos;
 
-import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import servicos.Hospital;
 
-public class Consulta implements Serializable {
+public class Consulta {
+    private static final DateTimeFormatter FORMATO_DATA_HORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private long id; // Identificador estável, atribuído pelo Hospital (0 = ainda sem id)
     private Paciente paciente;
     private Medico medico; 
     private LocalDateTime dataHora;
@@ -15,11 +17,12 @@ public class Consulta implements Serializable {
     private String diagnostico;
     private double valorCobrado; // Valor final após descontos
 
-    public Consulta(Paciente paciente, Medico medico, LocalDateTime dataHora, String local) {
+    public Consulta(long id, Paciente paciente, Medico medico, LocalDateTime dataHora, String local) {
+        this.id = id;
         this.paciente = paciente;
         this.medico = medico;
         this.dataHora = dataHora;
-        this.local = local;
+        this.local = Simbolos.simbolo(local); // "Sala 1" se repete em milhares de consultas
         this.status = StatusConsulta.AGENDADA;
         
         // calcula o custo base do médico, aplicando a regra de desconto
@@ -28,6 +31,7 @@ public class Consulta implements Serializable {
     }
 
     // Getters para leitura
+    public long getId() { return id; }
     public Paciente getPaciente() { return paciente; }
     public Medico getMedico() { return medico; }
     public LocalDateTime getDataHora() { return dataHora; }
@@ -36,25 +40,30 @@ public class Consulta implements Serializable {
     public String getDiagnostico() { return diagnostico;}
     public double getValorCobrado() { return valorCobrado; }
 
-    // Métodos de Ação
-    public void concluir(String diagnostico) {
-        this.status = StatusConsulta.CONCLUIDA;
-        this.diagnostico = diagnostico;
+    // Usado ao carregar registros antigos, gravados antes de existir o id
+    public void atribuirId(long id) {
+        if (this.id != 0) {
+            throw new IllegalStateException("Consulta já possui id " + this.id);
+        }
+        this.id = id;
     }
 
-    public void cancelar() {
-        this.status = StatusConsulta.CANCELADA;
+    // Cópia concluída, para o histórico; a consulta ativa não muda (o salvamento em segundo
+    // plano lê as ativas depois de soltar as travas). Não há como concluir ou cancelar a própria
+    // consulta: quem muda o estado é o Hospital, que arquiva esta cópia (concluirERemoverConsulta).
+    public Consulta concluida(String diagnostico) {
+        return restaurar(id, paciente, medico, dataHora, local, StatusConsulta.CONCLUIDA, diagnostico, valorCobrado);
     }
 
     @Override
     public String toString() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
         String diag = (diagnostico == null) ? "N/A" : diagnostico; 
         
-        return String.format("Paciente: %s | Médico: %s | Data: %s | Local: %s | Status: %s | Diagnóstico: %s | Valor: R$%.2f",
+        return String.format("#%d | Paciente: %s | Médico: %s | Data: %s | Local: %s | Status: %s | Diagnóstico: %s | Valor: R$%.2f",
+                id,
                 paciente.getNome(), 
                 medico.getNome(), 
-                dataHora.format(formatter), 
+                dataHora.format(FORMATO_DATA_HORA), 
                 local, 
                 status, 
                 diag, 
@@ -62,19 +71,22 @@ public class Consulta implements Serializable {
     }
     public String toCSV() {
         String diag = (diagnostico == null) ? "N/A" : diagnostico;
-        // Formato: PACIENTE_CPF;MEDICO_CRM;DATA_HORA;LOCAL;STATUS;DIAGNOSTICO;VALOR_COBRADO
-        return paciente.getCpf() + ";" + medico.getCrm() + ";" + dataHora.toString() + ";" +
+        // Formato: ID;PACIENTE_CPF;MEDICO_CRM;DATA_HORA;LOCAL;STATUS;DIAGNOSTICO;VALOR_COBRADO
+        return id + ";" + paciente.getCpf() + ";" + medico.getCrm() + ";" + dataHora.toString() + ";" +
                local + ";" + status.toString() + ";" + diag + ";" + valorCobrado;
     }
 
     // ADIÇÃO: fromCSV para Consulta
     public static Consulta fromCSV(String csvLine, Hospital hospital) throws DateTimeParseException {
         String[] parts = csvLine.split(";");
-        if (parts.length != 7) return null; 
+        // Linhas com 7 campos são do formato antigo, sem ID (o Hospital atribui um ao incorporar)
+        if (parts.length != 8 && parts.length != 7) return null; 
+        int campo = parts.length - 7;
+        long id = (campo == 1) ? Long.parseLong(parts[0]) : 0;
 
         // 1. Busca Paciente e Médico pelo CPF/CRM
-        String pacienteCpf = parts[0];
-        String medicoCrm = parts[1];
+        String pacienteCpf = parts[campo];
+        String medicoCrm = parts[campo + 1];
         Paciente p = hospital.buscarPacientePorCpf(pacienteCpf);
         Medico m = hospital.buscarMedicoPorCrm(medicoCrm);
         
@@ -83,14 +95,20 @@ public class Consulta implements Serializable {
         }
 
         // 2. Parsers
-        LocalDateTime dataHora = LocalDateTime.parse(parts[2]);
-        String local = parts[3];
-        StatusConsulta status = StatusConsulta.valueOf(parts[4]);
-        String diagnostico = parts[5].equals("N/A") ? null : parts[5];
-        double valorCobrado = Double.parseDouble(parts[6]);
+        LocalDateTime dataHora = LocalDateTime.parse(parts[campo + 2]);
+        String local = parts[campo + 3];
+        StatusConsulta status = StatusConsulta.valueOf(parts[campo + 4]);
+        String diagnostico = parts[campo + 5].equals("N/A") ? null : parts[campo + 5];
+        double valorCobrado = Double.parseDouble(parts[campo + 6]);
 
         // 3. Reconstrução
-        Consulta c = new Consulta(p, m, dataHora, local);
+        return restaurar(id, p, m, dataHora, local, status, diagnostico, valorCobrado);
+    }
+
+    // Recria uma consulta persistida (CSV ou snapshot) com os campos que não vêm do construtor
+    public static Consulta restaurar(long id, Paciente p, Medico m, LocalDateTime dataHora, String local,
+                                     StatusConsulta status, String diagnostico, double valorCobrado) {
+        Consulta c = new Consulta(id, p, m, dataHora, local);
         
         // Ajusta campos que não são definidos no construtor
         c.status = status;
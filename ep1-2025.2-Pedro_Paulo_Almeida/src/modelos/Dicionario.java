@@ -0,0 +1,35 @@
+package modelos;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Valor <-> número, na ordem de chegada: os arquivos de histórico guardam pessoas como int nos
+// registros e só voltam ao objeto ao materializar um registro. null = -1.
+class Dicionario<T> {
+    static final int NULO = -1;
+
+    private final Map<T, Integer> ids = new HashMap<>();
+    private final List<T> valores = new ArrayList<>();
+
+    int id(T valor) {
+        if (valor == null) return NULO;
+        Integer id = ids.get(valor);
+        if (id == null) {
+            id = valores.size();
+            ids.put(valor, id);
+            valores.add(valor);
+        }
+        return id;
+    }
+
+    T valor(int id) {
+        return id == NULO ? null : valores.get(id);
+    }
+
+    int tamanho() { return valores.size(); }
+
+    // Cópia dos valores na ordem dos números (para o estado do snapshot)
+    List<T> valores() { return List.copyOf(valores); }
+}
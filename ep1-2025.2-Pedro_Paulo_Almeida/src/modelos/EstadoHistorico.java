@@ -0,0 +1,44 @@
+package modelos;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+// Estado de um arquivo de histórico num instante: quantidade de registros (e de bytes de texto),
+// dicionários de pessoas e, para cada paciente, o último registro e o total. Copiado com a trava
+// da partição (ver capturarEstado nos arquivos); imutável, pode ser gravado depois sem ela.
+public final class EstadoHistorico {
+    static final long SEM_TEXTOS = -1; // o histórico de internações não tem armazém de textos
+
+    private final int registros;
+    private final long bytesTextos;
+    private final List<Paciente> pacientes;
+    private final List<Medico> medicos;
+    private final int[] ultimos;
+    private final int[] totais;
+
+    EstadoHistorico(int registros, long bytesTextos, List<Paciente> pacientes, List<Medico> medicos,
+                    int[] ultimos, int[] totais) {
+        this.registros = registros;
+        this.bytesTextos = bytesTextos;
+        this.pacientes = pacientes;
+        this.medicos = medicos;
+        this.ultimos = ultimos;
+        this.totais = totais;
+    }
+
+    // Mesmo layout que carregarEstado lê: pessoas pelos índices do snapshot
+    public void gravar(DataOutput out, Map<Pessoa, Integer> idPaciente, Map<Pessoa, Integer> idMedico) throws IOException {
+        out.writeInt(registros);
+        if (bytesTextos != SEM_TEXTOS) out.writeLong(bytesTextos);
+        out.writeInt(pacientes.size());
+        for (Paciente p : pacientes) out.writeInt(idPaciente.get(p));
+        out.writeInt(medicos.size());
+        for (Medico m : medicos) out.writeInt(idMedico.get(m));
+        for (int i = 0; i < ultimos.length; i++) {
+            out.writeInt(ultimos[i]);
+            out.writeInt(totais[i]);
+        }
+    }
+}
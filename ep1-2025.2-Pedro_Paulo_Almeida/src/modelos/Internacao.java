@@ -1,53 +1,67 @@
 package modelos;
 
 
-import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.time.format.DateTimeParseException; 
 import servicos.Hospital;
 
-public class Internacao implements Serializable {
+public class Internacao {
+    private long id; // Identificador estável, atribuído pelo Hospital (0 = ainda sem id)
     private Paciente paciente;
     private Medico medicoResponsavel;
     private LocalDate dataEntrada;
     private LocalDate dataSaida; // Null se ainda internado
     private int numeroQuarto;
     private double custoDiario = 200.00; // Custo diário base fixo
-    private String status; // Ativa, Concluída, Cancelada
+    private StatusInternacao status;
 
-    public Internacao(Paciente paciente, Medico medicoResponsavel, LocalDate dataEntrada, int numeroQuarto) {
+    public Internacao(long id, Paciente paciente, Medico medicoResponsavel, LocalDate dataEntrada, int numeroQuarto) {
+        this.id = id;
         this.paciente = paciente;
         this.medicoResponsavel = medicoResponsavel;
         this.dataEntrada = dataEntrada;
         this.numeroQuarto = numeroQuarto;
-        this.status = "Ativa";
+        this.status = StatusInternacao.ATIVA;
     }
 
     // Getters
+    public long getId() { return id; }
     public Paciente getPaciente() { return paciente; }
     public Medico getMedicoResponsavel() { return medicoResponsavel; } 
     public int getNumeroQuarto() { return numeroQuarto; }
-    public String getStatus() { return status; }
+    public StatusInternacao getStatus() { return status; }
     public LocalDate getDataEntrada() { return dataEntrada; }
     public LocalDate getDataSaida() { return dataSaida; }
     public double getCustoDiario() { return custoDiario; } 
 
-    // Finalizar internação
-    public void finalizar(LocalDate dataSaida) {
-        this.dataSaida = dataSaida;
-        this.status = "Concluída";
-        System.out.println("[INFO] Internação finalizada em " + dataSaida);
+    // Usado ao carregar registros antigos, gravados antes de existir o id
+    public void atribuirId(long id) {
+        if (this.id != 0) {
+            throw new IllegalStateException("Internação já possui id " + this.id);
+        }
+        this.id = id;
+    }
+
+    // Cópia finalizada, para o histórico; a internação ativa não muda (ver Consulta.concluida).
+    // A mensagem fica com o Hospital, que sabe para onde mandá-la (concluirERemoverInternacao).
+    public Internacao finalizada(LocalDate dataSaida) {
+        return restaurar(id, paciente, medicoResponsavel, dataEntrada, dataSaida, numeroQuarto, custoDiario,
+                StatusInternacao.CONCLUIDA);
     }
     
     // Método para calcular o custo total (Regra de Negócio)
     public double calcularCustoTotal() {
         // Se ainda está ativo, calcula até a data atual
-        LocalDate dataFim = (dataSaida == null) ? LocalDate.now() : dataSaida;
-        
-        long dias = ChronoUnit.DAYS.between(dataEntrada, dataFim);
-        // Garante pelo menos 1 dia de internação
-        if (dias < 1) dias = 1; 
+        return calcularCustoAte((dataSaida == null) ? LocalDate.now() : dataSaida);
+    }
+
+    // Custo acumulado até a data de corte, sem depender do relógio: se a alta foi antes,
+    // vale a alta; antes da entrada, zero. O custo de um período é a diferença entre dois
+    // cortes, o que mantém os dias gratuitos do plano no início da internação.
+    public double calcularCustoAte(LocalDate corte) {
+        long dias = contarDiasAte(corte);
+        if (dias == 0) return 0;
 
         double custoBase = dias * custoDiario;
         
@@ -64,31 +78,44 @@ public class Internacao implements Serializable {
         return Math.max(0, custoBase);
     }
 
+    // Diárias cobráveis até a data de corte (0 antes da entrada)
+    public long contarDiasAte(LocalDate corte) {
+        if (corte.isBefore(dataEntrada)) return 0;
+        LocalDate dataFim = (dataSaida != null && dataSaida.isBefore(corte)) ? dataSaida : corte;
+
+        long dias = ChronoUnit.DAYS.between(dataEntrada, dataFim);
+        // Garante pelo menos 1 dia de internação
+        return Math.max(dias, 1);
+    }
+
     @Override
     public String toString() {
         String saidaStr = dataSaida == null ? "Em andamento" : dataSaida.toString();
-        String custoStr = status.equals("Concluída") ? String.format("Total: R$%.2f", calcularCustoTotal()) : "Custo Diário: R$200.00";
+        String custoStr = status == StatusInternacao.CONCLUIDA ? String.format("Total: R$%.2f", calcularCustoTotal()) : "Custo Diário: R$200.00";
 
-        return String.format("Internação - %s | %s - Entrada: %s, Saída: %s | Quarto: %d. %s",
-             status, paciente.getNome(), dataEntrada, saidaStr, numeroQuarto, custoStr);
+        return String.format("#%d | Internação - %s | %s - Entrada: %s, Saída: %s | Quarto: %d. %s",
+             id, status, paciente.getNome(), dataEntrada, saidaStr, numeroQuarto, custoStr);
     }
 
     // Formato CSV
     public String toCSV() { 
         String dataSaidaStr = dataSaida == null ? "N/A" : dataSaida.toString();
-        // PACIENTE_CPF;MEDICO_CRM;DATA_ENTRADA;DATA_SAIDA;QUARTO;CUSTO_DIARIO;STATUS
-        return paciente.getCpf() + ";" + medicoResponsavel.getCrm() + ";" + dataEntrada.toString() + ";" +
+        // ID;PACIENTE_CPF;MEDICO_CRM;DATA_ENTRADA;DATA_SAIDA;QUARTO;CUSTO_DIARIO;STATUS
+        return id + ";" + paciente.getCpf() + ";" + medicoResponsavel.getCrm() + ";" + dataEntrada.toString() + ";" +
                dataSaidaStr + ";" + numeroQuarto + ";" + custoDiario + ";" + status;
     }
 
     
     public static Internacao fromCSV(String csvLine, Hospital hospital) throws DateTimeParseException {
         String[] parts = csvLine.split(";");
-        if (parts.length != 7) return null; 
+        // Linhas com 7 campos são do formato antigo, sem ID (o Hospital atribui um ao incorporar)
+        if (parts.length != 8 && parts.length != 7) return null; 
+        int campo = parts.length - 7;
+        long id = (campo == 1) ? Long.parseLong(parts[0]) : 0;
 
         // 1. Busca Paciente e Médico pelo CPF/CRM
-        String pacienteCpf = parts[0];
-        String medicoCrm = parts[1];
+        String pacienteCpf = parts[campo];
+        String medicoCrm = parts[campo + 1];
         Paciente p = hospital.buscarPacientePorCpf(pacienteCpf);
         Medico m = hospital.buscarMedicoPorCrm(medicoCrm);
         
@@ -97,15 +124,21 @@ public class Internacao implements Serializable {
         }
 
         // 2. Parsers
-        LocalDate dataEntrada = LocalDate.parse(parts[2]);
-        String dataSaidaStr = parts[3];
+        LocalDate dataEntrada = LocalDate.parse(parts[campo + 2]);
+        String dataSaidaStr = parts[campo + 3];
         LocalDate dataSaida = dataSaidaStr.equals("N/A") ? null : LocalDate.parse(dataSaidaStr);
-        int numeroQuarto = Integer.parseInt(parts[4]);
-        double custoDiario = Double.parseDouble(parts[5]);
-        String status = parts[6];
+        int numeroQuarto = Integer.parseInt(parts[campo + 4]);
+        double custoDiario = Double.parseDouble(parts[campo + 5]);
+        StatusInternacao status = StatusInternacao.deTexto(parts[campo + 6]);
 
         // 3. Reconstrução
-        Internacao i = new Internacao(p, m, dataEntrada, numeroQuarto);
+        return restaurar(id, p, m, dataEntrada, dataSaida, numeroQuarto, custoDiario, status);
+    }
+
+    // Recria uma internação persistida (CSV ou snapshot) com os campos que não vêm do construtor
+    public static Internacao restaurar(long id, Paciente p, Medico m, LocalDate dataEntrada, LocalDate dataSaida,
+                                       int numeroQuarto, double custoDiario, StatusInternacao status) {
+        Internacao i = new Internacao(id, p, m, dataEntrada, numeroQuarto);
         i.custoDiario = custoDiario;
         i.status = status;
         i.dataSaida = dataSaida; 
@@ -9,7 +9,7 @@ public class Medico extends Pessoa {
     public Medico(String nome, String cpf, int idade, String crm, String especialidade, double custoConsulta) {
         super(nome, cpf, idade);
         this.crm = crm;
-        this.especialidade = especialidade;
+        this.especialidade = Simbolos.simbolo(especialidade); // Poucas especialidades para muitos médicos
         this.custoConsulta = custoConsulta;
     }
 
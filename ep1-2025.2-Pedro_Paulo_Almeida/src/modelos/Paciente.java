@@ -1,26 +1,77 @@
 package modelos;
 
 
-import java.util.ArrayList;
 import java.util.List;
 
 // Herança: Paciente herda de Pessoa
 public class Paciente extends Pessoa {
-    private List<Consulta> historicoConsultas;
-    private List<Internacao> historicoInternacoes;
+    // O histórico fica nos arquivos do Hospital (em disco depois da carga); o paciente guarda só
+    // o índice: último registro de cada tipo e o total (os registros se encadeiam de trás para frente)
+    private ArquivoConsultas arquivoConsultas;
+    private int ultimaConsulta = -1;
+    private int totalConsultas;
+    private ArquivoInternacoes arquivoInternacoes;
+    private int ultimaInternacao = -1;
+    private int totalInternacoes;
 
     public Paciente(String nome, String cpf, int idade) {
         super(nome, cpf, idade);
-        this.historicoConsultas = new ArrayList<>();
-        this.historicoInternacoes = new ArrayList<>();
     }
 
-    // Getters
-    public List<Consulta> getHistoricoConsultas() { return historicoConsultas; }
-    public List<Internacao> getHistoricoInternacoes() { return historicoInternacoes; }
+    // Getters: listas somente leitura, lidas do arquivo no primeiro acesso e guardadas no cache dele.
+    // Não há adicionarConsulta/adicionarInternacao: o histórico só cresce quando o Hospital arquiva
+    // um registro concluído (concluirERemoverConsulta/Internacao ou carga), que chama vincular*.
+    public List<Consulta> getHistoricoConsultas() {
+        return arquivoConsultas == null ? List.of() : arquivoConsultas.historico(this);
+    }
+
+    public List<Internacao> getHistoricoInternacoes() {
+        return arquivoInternacoes == null ? List.of() : arquivoInternacoes.historico(this);
+    }
+
+    // Chamados por ArquivoConsultas/ArquivoInternacoes.arquivar: um paciente pertence a um único
+    // arquivo. Retornam o registro anterior (-1 no primeiro), que o novo registro guarda.
+    int vincularConsulta(ArquivoConsultas arquivo, int linha) {
+        if (arquivoConsultas == null) {
+            arquivoConsultas = arquivo;
+        } else if (arquivoConsultas != arquivo) {
+            throw new IllegalStateException("Histórico de consultas de " + getCpf() + " já está em outro arquivo");
+        }
+        int anterior = ultimaConsulta;
+        ultimaConsulta = linha;
+        totalConsultas++;
+        return anterior;
+    }
+
+    int vincularInternacao(ArquivoInternacoes arquivo, int linha) {
+        if (arquivoInternacoes == null) {
+            arquivoInternacoes = arquivo;
+        } else if (arquivoInternacoes != arquivo) {
+            throw new IllegalStateException("Histórico de internações de " + getCpf() + " já está em outro arquivo");
+        }
+        int anterior = ultimaInternacao;
+        ultimaInternacao = linha;
+        totalInternacoes++;
+        return anterior;
+    }
+
+    // Índice lido do snapshot (os registros continuam no disco)
+    void restaurarConsultas(ArquivoConsultas arquivo, int ultima, int total) {
+        arquivoConsultas = arquivo;
+        ultimaConsulta = ultima;
+        totalConsultas = total;
+    }
+
+    void restaurarInternacoes(ArquivoInternacoes arquivo, int ultima, int total) {
+        arquivoInternacoes = arquivo;
+        ultimaInternacao = ultima;
+        totalInternacoes = total;
+    }
 
-    public void adicionarConsulta(Consulta c) { this.historicoConsultas.add(c); }
-    public void adicionarInternacao(Internacao i) { this.historicoInternacoes.add(i); }
+    int ultimaConsulta(ArquivoConsultas arquivo) { return arquivo == arquivoConsultas ? ultimaConsulta : -1; }
+    int totalConsultas(ArquivoConsultas arquivo) { return arquivo == arquivoConsultas ? totalConsultas : 0; }
+    int ultimaInternacao(ArquivoInternacoes arquivo) { return arquivo == arquivoInternacoes ? ultimaInternacao : -1; }
+    int totalInternacoes(ArquivoInternacoes arquivo) { return arquivo == arquivoInternacoes ? totalInternacoes : 0; }
 
     //Implementação do método abstrato
     @Override
@@ -0,0 +1,47 @@
+package modelos;
+
+import java.time.LocalDateTime;
+
+// Pedido de internação à espera de quarto (ver servicos.FilaInternacao). Imutável: mudar a
+// urgência gera outro pedido com o mesmo id e a mesma chegada.
+public class PedidoInternacao {
+    public static final int URGENCIA_MINIMA = 1; // eletiva
+    public static final int URGENCIA_MAXIMA = 5; // emergência
+
+    private final long id; // atribuído pelo Hospital
+    private final Paciente paciente;
+    private final Medico medicoResponsavel;
+    private final int urgencia;
+    private final LocalDateTime chegada;
+
+    public PedidoInternacao(long id, Paciente paciente, Medico medicoResponsavel, int urgencia, LocalDateTime chegada) {
+        this.id = id;
+        this.paciente = paciente;
+        this.medicoResponsavel = medicoResponsavel;
+        this.urgencia = urgencia;
+        this.chegada = chegada;
+    }
+
+    public long getId() { return id; }
+    public Paciente getPaciente() { return paciente; }
+    public Medico getMedicoResponsavel() { return medicoResponsavel; }
+    public int getUrgencia() { return urgencia; }
+    public LocalDateTime getChegada() { return chegada; }
+
+    // Plano com internação garantida (ver PlanoSaude.isInternaGarantida) passa na frente, na mesma urgência
+    public boolean isInternacaoGarantida() {
+        return paciente instanceof PacienteEspecial && ((PacienteEspecial) paciente).getPlano().isInternaGarantida();
+    }
+
+    public PedidoInternacao comUrgencia(int novaUrgencia) {
+        return new PedidoInternacao(id, paciente, medicoResponsavel, novaUrgencia, chegada);
+    }
+
+    @Override
+    public String toString() {
+        return "Pedido " + id + " | Paciente: " + paciente.getNome() + " (" + paciente.getCpf() + ")"
+                + " | Médico: " + medicoResponsavel.getNome() + " | Urgência: " + urgencia
+                + (isInternacaoGarantida() ? " | Internação garantida" : "")
+                + " | Chegada: " + chegada.toLocalDate() + " " + chegada.toLocalTime().withNano(0);
+    }
+}
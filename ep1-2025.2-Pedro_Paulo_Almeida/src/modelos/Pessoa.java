@@ -1,8 +1,7 @@
 package modelos;
 
-import java.io.Serializable;
 
-public abstract class Pessoa implements Serializable {
+public abstract class Pessoa {
     private String nome;
     private String cpf;
     private int idade;
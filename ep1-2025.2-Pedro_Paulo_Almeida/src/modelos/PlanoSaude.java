@@ -1,8 +1,7 @@
 package modelos;
 
-import java.io.Serializable;
 
-public class PlanoSaude implements Serializable {
+public class PlanoSaude {
     private String nome;
     private double descontoGeral; 
     private boolean internaGarantida; 
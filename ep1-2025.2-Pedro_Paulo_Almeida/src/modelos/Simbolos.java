@@ -0,0 +1,20 @@
+package modelos;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Tabela de símbolos para textos de poucos valores distintos que se repetem em milhões de
+// registros (especialidades, locais de consulta): cada valor é guardado uma única vez e os
+// objetos passam a apontar para a mesma instância. Segura para as cargas paralelas do CSV.
+public final class Simbolos {
+    private static final ConcurrentHashMap<String, String> TABELA = new ConcurrentHashMap<>();
+
+    private Simbolos() {}
+
+    public static String simbolo(String texto) {
+        if (texto == null) return null;
+        String existente = TABELA.putIfAbsent(texto, texto);
+        return existente != null ? existente : texto;
+    }
+
+    public static int tamanho() { return TABELA.size(); }
+}
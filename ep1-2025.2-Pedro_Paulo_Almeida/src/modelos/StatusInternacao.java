@@ -0,0 +1,31 @@
+package modelos;
+
+public enum StatusInternacao {
+    ATIVA("Ativa"),
+    CONCLUIDA("Concluída"),
+    CANCELADA("Cancelada");
+
+    private final String descricao; // Texto gravado no CSV e exibido nos relatórios
+
+    StatusInternacao(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public String getDescricao() { return descricao; }
+
+    // Aceita a descrição ("Concluída") e o nome ("CONCLUIDA") sem diferenciar maiúsculas. Compara
+    // só o início da palavra, que não tem acento: "Concluida" e arquivos antigos gravados em outra
+    // codificação ("Conclu?da") também são reconhecidos.
+    public static StatusInternacao deTexto(String texto) {
+        String t = texto.trim().toLowerCase();
+        if (t.startsWith("ativ")) return ATIVA;
+        if (t.startsWith("conclu")) return CONCLUIDA;
+        if (t.startsWith("cancel")) return CANCELADA;
+        throw new IllegalArgumentException("Status de internação desconhecido: " + texto);
+    }
+
+    @Override
+    public String toString() {
+        return descricao;
+    }
+}
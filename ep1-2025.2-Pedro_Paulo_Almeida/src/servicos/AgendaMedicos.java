@@ -0,0 +1,81 @@
+package servicos;
+
+import modelos.Consulta;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Agenda ordenada por médico (CRM -> dataHora -> consulta agendada).
+// Todas as consultas têm a mesma duração, então basta olhar a vizinha anterior
+// e a seguinte no TreeMap para saber se um horário conflita: O(log n).
+class AgendaMedicos {
+    private final Map<String, TreeMap<LocalDateTime, Consulta>> agendas = new HashMap<>();
+    private Duration duracaoConsulta;
+
+    AgendaMedicos(Duration duracaoConsulta) {
+        this.duracaoConsulta = duracaoConsulta;
+    }
+
+    Duration getDuracaoConsulta() { return duracaoConsulta; }
+    void setDuracaoConsulta(Duration duracaoConsulta) { this.duracaoConsulta = duracaoConsulta; }
+
+    // Primeira consulta que passaria a sobrepor a seguinte do mesmo médico com a nova duração,
+    // ou null. Com duração única, olhar só as vizinhas basta: se uma consulta alcança alguma
+    // posterior, alcança a seguinte. O(n) sobre as agendadas.
+    Consulta sobreposicaoCom(Duration duracao) {
+        for (TreeMap<LocalDateTime, Consulta> agenda : agendas.values()) {
+            LocalDateTime anterior = null;
+            for (Map.Entry<LocalDateTime, Consulta> e : agenda.entrySet()) {
+                if (anterior != null && anterior.plus(duracao).isAfter(e.getKey())) {
+                    return agenda.get(anterior);
+                }
+                anterior = e.getKey();
+            }
+        }
+        return null;
+    }
+
+    // Retorna a consulta que ocupa [dataHora, dataHora + duração), ou null se o médico está livre
+    Consulta conflito(String crm, LocalDateTime dataHora) {
+        TreeMap<LocalDateTime, Consulta> agenda = agendas.get(crm);
+        if (agenda == null) return null;
+
+        Map.Entry<LocalDateTime, Consulta> anterior = agenda.floorEntry(dataHora);
+        if (anterior != null && anterior.getKey().plus(duracaoConsulta).isAfter(dataHora)) {
+            return anterior.getValue();
+        }
+        Map.Entry<LocalDateTime, Consulta> seguinte = agenda.higherEntry(dataHora);
+        if (seguinte != null && seguinte.getKey().isBefore(dataHora.plus(duracaoConsulta))) {
+            return seguinte.getValue();
+        }
+        return null;
+    }
+
+    boolean estaLivre(String crm, LocalDateTime dataHora) {
+        return conflito(crm, dataHora) == null;
+    }
+
+    void adicionar(Consulta c) {
+        agendas.computeIfAbsent(c.getMedico().getCrm(), k -> new TreeMap<>()).put(c.getDataHora(), c);
+    }
+
+    void remover(Consulta c) {
+        TreeMap<LocalDateTime, Consulta> agenda = agendas.get(c.getMedico().getCrm());
+        if (agenda != null) {
+            agenda.remove(c.getDataHora(), c);
+        }
+    }
+
+    // Consultas do médico com início em [inicio, fim), em ordem de horário
+    List<Consulta> consultasEntre(String crm, LocalDateTime inicio, LocalDateTime fim) {
+        TreeMap<LocalDateTime, Consulta> agenda = agendas.get(crm);
+        if (agenda == null) return new ArrayList<>();
+        NavigableMap<LocalDateTime, Consulta> faixa = agenda.subMap(inicio, true, fim, false);
+        return new ArrayList<>(faixa.values());
+    }
+}
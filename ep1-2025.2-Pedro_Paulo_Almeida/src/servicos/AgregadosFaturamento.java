@@ -0,0 +1,86 @@
+package servicos;
+
+import modelos.*;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Totais de faturamento mantidos incrementalmente (um por tipo: consultas ou internações).
+// Cada grupo guarda quantidade e valor (em centavos, para somas e subtrações exatas) do que
+// está previsto (agendado/ativo) e do que já foi realizado. O Hospital soma ao agendar,
+// e ao concluir retira do previsto e soma ao realizado.
+class AgregadosFaturamento {
+    enum Dimensao { MEDICO, ESPECIALIDADE, PLANO }
+
+    static final String SEM_PLANO = "Sem plano";
+
+    static class Acumulado {
+        long quantidadePrevista;
+        long centavosPrevistos;
+        long quantidadeRealizada;
+        long centavosRealizados;
+
+        void somar(Acumulado outro) {
+            quantidadePrevista += outro.quantidadePrevista;
+            centavosPrevistos += outro.centavosPrevistos;
+            quantidadeRealizada += outro.quantidadeRealizada;
+            centavosRealizados += outro.centavosRealizados;
+        }
+    }
+
+    private final Map<Dimensao, Map<String, Acumulado>> grupos = new EnumMap<>(Dimensao.class);
+    private final TreeMap<LocalDate, Acumulado> porDia = new TreeMap<>();
+    private final Acumulado total = new Acumulado();
+
+    AgregadosFaturamento() {
+        limpar();
+    }
+
+    void limpar() {
+        for (Dimensao d : Dimensao.values()) {
+            grupos.put(d, new HashMap<>());
+        }
+        porDia.clear();
+        total.quantidadePrevista = total.centavosPrevistos = 0;
+        total.quantidadeRealizada = total.centavosRealizados = 0;
+    }
+
+    // sinal = +1 para incluir, -1 para retirar um registro já contabilizado
+    void registrar(Medico m, Paciente p, LocalDate dia, boolean realizado, double valor, int sinal) {
+        long centavos = Math.round(valor * 100) * sinal;
+        acumular(total, realizado, centavos, sinal);
+        acumular(porDia.computeIfAbsent(dia, k -> new Acumulado()), realizado, centavos, sinal);
+        acumular(grupo(Dimensao.MEDICO, m.getCrm()), realizado, centavos, sinal);
+        acumular(grupo(Dimensao.ESPECIALIDADE, m.getEspecialidade()), realizado, centavos, sinal);
+        String plano = (p instanceof PacienteEspecial) ? ((PacienteEspecial) p).getPlano().getNome() : SEM_PLANO;
+        acumular(grupo(Dimensao.PLANO, plano), realizado, centavos, sinal);
+    }
+
+    Acumulado getTotal() { return total; }
+
+    Map<String, Acumulado> porDimensao(Dimensao dimensao) {
+        return grupos.get(dimensao);
+    }
+
+    // Dias de [inicio, fim], ambos inclusive
+    NavigableMap<LocalDate, Acumulado> dias(LocalDate inicio, LocalDate fim) {
+        return porDia.subMap(inicio, true, fim, true);
+    }
+
+    private Acumulado grupo(Dimensao dimensao, String chave) {
+        return grupos.get(dimensao).computeIfAbsent(chave, k -> new Acumulado());
+    }
+
+    private static void acumular(Acumulado a, boolean realizado, long centavos, int sinal) {
+        if (realizado) {
+            a.quantidadeRealizada += sinal;
+            a.centavosRealizados += centavos;
+        } else {
+            a.quantidadePrevista += sinal;
+            a.centavosPrevistos += centavos;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package servicos;
+
+import modelos.Consulta;
+import modelos.Medico;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+// Primeiros horários livres entre vários médicos: cada médico tem um cursor que anda pela
+// grade da sua jornada pulando as consultas já agendadas (AgendaMedicos.conflito, O(log n)), e
+// uma fila de prioridade intercala os cursores (k-way merge). Para K horários e M médicos o
+// custo é O((M + K) log M) mais os pulos sobre consultas marcadas, sem testar horário a horário.
+// Chamado com a trava das consultas (leitura).
+class BuscaHorarios {
+    // Até onde um cursor procura antes de desistir (médico sem jornada ou agenda lotada)
+    static final Duration HORIZONTE = Duration.ofDays(366);
+
+    private final AgendaMedicos agenda;
+    private final Function<Medico, JornadaTrabalho> jornadas;
+
+    BuscaHorarios(AgendaMedicos agenda, Function<Medico, JornadaTrabalho> jornadas) {
+        this.agenda = agenda;
+        this.jornadas = jornadas;
+    }
+
+    // Horários livres de um médico, em ordem, a partir de um instante
+    private final class Cursor {
+        final Medico medico;
+        final JornadaTrabalho jornada;
+        final LocalDateTime limite;
+        LocalDateTime atual;
+
+        Cursor(Medico medico, LocalDateTime aPartirDe) {
+            this.medico = medico;
+            this.jornada = jornadas.apply(medico);
+            this.limite = aPartirDe.plus(HORIZONTE);
+            this.atual = proximo(aPartirDe);
+        }
+
+        void avancar() {
+            atual = proximo(atual.plus(agenda.getDuracaoConsulta()));
+        }
+
+        // Próximo início da grade; se conflitar, recomeça depois do fim da consulta que ocupa o horário
+        private LocalDateTime proximo(LocalDateTime t) {
+            Duration duracao = agenda.getDuracaoConsulta();
+            while (true) {
+                LocalDateTime candidato = jornada.proximoInicio(t, duracao, limite);
+                if (candidato == null) return null;
+                Consulta ocupada = agenda.conflito(medico.getCrm(), candidato);
+                if (ocupada == null) return candidato;
+                t = ocupada.getDataHora().plus(duracao);
+            }
+        }
+    }
+
+    /**
+     * Os 'quantidade' primeiros horários livres a partir de aPartirDe entre os médicos, em ordem
+     * de horário. No mesmo horário vem primeiro o de menor custo de consulta, se
+     * preferirMenorCusto, e depois o de menor CRM.
+     */
+    List<HorarioLivre> primeiros(List<Medico> medicos, LocalDateTime aPartirDe, int quantidade,
+                                 boolean preferirMenorCusto) {
+        Comparator<Cursor> ordem = Comparator.comparing((Cursor c) -> c.atual);
+        if (preferirMenorCusto) ordem = ordem.thenComparingDouble(c -> c.medico.getCustoConsulta());
+        ordem = ordem.thenComparing(c -> c.medico.getCrm());
+
+        PriorityQueue<Cursor> fila = new PriorityQueue<>(Math.max(1, medicos.size()), ordem);
+        for (Medico m : medicos) {
+            Cursor c = new Cursor(m, aPartirDe);
+            if (c.atual != null) fila.add(c);
+        }
+
+        List<HorarioLivre> encontrados = new ArrayList<>(Math.min(quantidade, 64));
+        while (encontrados.size() < quantidade && !fila.isEmpty()) {
+            Cursor c = fila.poll();
+            encontrados.add(new HorarioLivre(c.medico, c.atual));
+            c.avancar();
+            if (c.atual != null) fila.add(c);
+        }
+        return encontrados;
+    }
+}
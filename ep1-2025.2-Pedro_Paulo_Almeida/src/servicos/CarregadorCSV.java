@@ -0,0 +1,194 @@
+package servicos;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+// Leitor de CSV que mapeia o arquivo em memória (NIO) e converte blocos de linhas em paralelo.
+// Os blocos sempre terminam em quebra de linha, e o resultado final preserva a ordem do arquivo.
+class CarregadorCSV {
+    private static final long TAMANHO_BLOCO = 4L * 1024 * 1024; // 4 MB por bloco
+
+    private CarregadorCSV() {}
+
+    /**
+     * Lê o arquivo pulando o cabeçalho e aplica o conversor em cada linha.
+     * Linhas para as quais o conversor retorna null são descartadas; uma data inválida
+     * interrompe a carga.
+     */
+    static <T> List<T> carregar(Path arquivo, Function<String, T> conversor) throws IOException {
+        return carregar(arquivo, conversor, null, null);
+    }
+
+    /**
+     * Como carregar(arquivo, conversor), mas linhas com data inválida são reportadas em
+     * 'mensagens' com mensagemErroData na frente, em vez de interromper a carga. Os blocos
+     * só guardam os erros: eles são impressos aqui, na thread de quem chamou e na ordem do
+     * arquivo, depois de cada bloco terminar.
+     */
+    static <T> List<T> carregar(Path arquivo, Function<String, T> conversor, String mensagemErroData,
+                                PrintStream mensagens) throws IOException {
+        List<ForkJoinTask<Bloco<T>>> tarefas = new ArrayList<>();
+
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            long inicio = fimDaLinha(canal, 0, tamanho); // Pular o cabeçalho
+
+            while (inicio < tamanho) {
+                long fim = fimDaLinha(canal, Math.min(inicio + TAMANHO_BLOCO, tamanho) - 1, tamanho);
+                MappedByteBuffer regiao = canal.map(FileChannel.MapMode.READ_ONLY, inicio, fim - inicio);
+                tarefas.add(ForkJoinPool.commonPool().submit(() -> converterBloco(regiao, conversor, mensagemErroData)));
+                inicio = fim;
+            }
+        }
+
+        // Junta os blocos na ordem original
+        List<T> itens = new ArrayList<>();
+        for (ForkJoinTask<Bloco<T>> tarefa : tarefas) {
+            Bloco<T> bloco = tarefa.join();
+            itens.addAll(bloco.itens);
+            for (String erro : bloco.erros) {
+                mensagens.println(erro);
+            }
+        }
+        return itens;
+    }
+
+    /**
+     * Variante para importação: nenhuma linha é descartada em silêncio. Cada linha não vazia
+     * vira uma Linha com o item convertido ou, se o conversor lançar uma exceção, com o motivo
+     * da rejeição (a mensagem da exceção). Os números de linha contam o cabeçalho como linha 1.
+     */
+    static <T> List<Linha<T>> carregarLinhas(Path arquivo, Function<String, T> conversor) throws IOException {
+        List<ForkJoinTask<BlocoNumerado<T>>> tarefas = new ArrayList<>();
+
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            long inicio = fimDaLinha(canal, 0, tamanho);
+
+            while (inicio < tamanho) {
+                long fim = fimDaLinha(canal, Math.min(inicio + TAMANHO_BLOCO, tamanho) - 1, tamanho);
+                MappedByteBuffer regiao = canal.map(FileChannel.MapMode.READ_ONLY, inicio, fim - inicio);
+                tarefas.add(ForkJoinPool.commonPool().submit(() -> converterLinhas(regiao, conversor)));
+                inicio = fim;
+            }
+        }
+
+        // Os blocos numeram as linhas a partir de 1; aqui recebem o deslocamento dos anteriores
+        List<Linha<T>> linhas = new ArrayList<>();
+        int deslocamento = 1; // cabeçalho
+        for (ForkJoinTask<BlocoNumerado<T>> tarefa : tarefas) {
+            BlocoNumerado<T> bloco = tarefa.join();
+            for (Linha<T> linha : bloco.linhas) {
+                linha.numero += deslocamento;
+                linhas.add(linha);
+            }
+            deslocamento += bloco.totalLinhas;
+        }
+        return linhas;
+    }
+
+    private static <T> BlocoNumerado<T> converterLinhas(MappedByteBuffer regiao, Function<String, T> conversor) {
+        BlocoNumerado<T> bloco = new BlocoNumerado<>();
+        String texto = StandardCharsets.UTF_8.decode(regiao).toString();
+
+        int numero = 0;
+        int inicio = 0;
+        while (inicio < texto.length()) {
+            int fim = texto.indexOf('\n', inicio);
+            if (fim < 0) fim = texto.length();
+            int fimConteudo = (fim > inicio && texto.charAt(fim - 1) == '\r') ? fim - 1 : fim;
+            String conteudo = texto.substring(inicio, fimConteudo);
+            numero++;
+
+            if (!conteudo.isBlank()) {
+                try {
+                    bloco.linhas.add(new Linha<>(numero, conteudo, conversor.apply(conteudo), null));
+                } catch (RuntimeException e) {
+                    bloco.linhas.add(new Linha<>(numero, conteudo, null, e.getMessage() != null ? e.getMessage() : e.toString()));
+                }
+            }
+            inicio = fim + 1;
+        }
+        bloco.totalLinhas = numero;
+        return bloco;
+    }
+
+    // Retorna a posição logo após a primeira quebra de linha a partir de 'posicao' (ou o fim do arquivo)
+    private static long fimDaLinha(FileChannel canal, long posicao, long tamanho) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (posicao < tamanho) {
+            buffer.clear();
+            int lidos = canal.read(buffer, posicao);
+            if (lidos <= 0) break;
+            for (int i = 0; i < lidos; i++) {
+                if (buffer.get(i) == '\n') {
+                    return posicao + i + 1;
+                }
+            }
+            posicao += lidos;
+        }
+        return tamanho;
+    }
+
+    private static <T> Bloco<T> converterBloco(MappedByteBuffer regiao, Function<String, T> conversor, String mensagemErroData) {
+        Bloco<T> bloco = new Bloco<>();
+        String texto = StandardCharsets.UTF_8.decode(regiao).toString();
+
+        int inicio = 0;
+        while (inicio < texto.length()) {
+            int fim = texto.indexOf('\n', inicio);
+            if (fim < 0) fim = texto.length();
+            int fimConteudo = (fim > inicio && texto.charAt(fim - 1) == '\r') ? fim - 1 : fim;
+            String linha = texto.substring(inicio, fimConteudo);
+
+            try {
+                T item = conversor.apply(linha);
+                if (item != null) {
+                    bloco.itens.add(item);
+                }
+            } catch (DateTimeParseException e) {
+                if (mensagemErroData == null) throw e;
+                bloco.erros.add(mensagemErroData + linha);
+            }
+            inicio = fim + 1;
+        }
+        return bloco;
+    }
+
+    // Uma linha do arquivo: item convertido ou motivo da rejeição (nunca os dois)
+    static class Linha<T> {
+        int numero;
+        final String conteudo;
+        final T item;
+        final String motivo;
+
+        Linha(int numero, String conteudo, T item, String motivo) {
+            this.numero = numero;
+            this.conteudo = conteudo;
+            this.item = item;
+            this.motivo = motivo;
+        }
+    }
+
+    private static class Bloco<T> {
+        private final List<T> itens = new ArrayList<>();
+        private final List<String> erros = new ArrayList<>();
+    }
+
+    private static class BlocoNumerado<T> {
+        private final List<Linha<T>> linhas = new ArrayList<>();
+        private int totalLinhas; // inclui as vazias, para a numeração continuar certa no próximo bloco
+    }
+}
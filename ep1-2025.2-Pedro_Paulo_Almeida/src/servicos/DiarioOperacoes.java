@@ -0,0 +1,247 @@
+package servicos;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Diário (write-ahead log) das operações que alteram o Hospital.
+// Cada operação vira uma linha de texto acrescentada ao segmento atual; uma thread
+// gravadora junta as linhas pendentes e faz um único fsync por lote (group commit).
+// Na compactação o segmento é rotacionado e os antigos são apagados depois que os
+// dados foram gravados no snapshot, que guarda o último segmento já incluído nele.
+// Se uma gravação falhar, o diário para: nenhum registro daí em diante é gravado, e quem
+// espera por um registro não gravado recebe a falha (nunca é dado como durável).
+class DiarioOperacoes implements Closeable {
+    private static final String PREFIXO = "operacoes-";
+    private static final String SUFIXO = ".journal";
+
+    private final Path diretorio;
+    private final Object trava = new Object();
+    private final Thread gravador;
+
+    private FileChannel canal;
+    private long segmentoAtual;
+    private ByteArrayOutputStream pendente = new ByteArrayOutputStream();
+    private long ultimaSequencia;
+    private long sequenciaDuravel;
+    private boolean fechado;
+    private IOException falha; // primeira falha de gravação; depois dela nada mais é gravado
+
+    private DiarioOperacoes(Path diretorio, long segmento) throws IOException {
+        this.diretorio = diretorio;
+        abrirSegmento(segmento);
+        this.gravador = new Thread(this::gravarLotes, "diario-operacoes");
+        this.gravador.setDaemon(true);
+        this.gravador.start();
+    }
+
+    // Abre um segmento novo, depois de todos os que já existem no diretório
+    static DiarioOperacoes abrir(Path diretorio, long marco) throws IOException {
+        List<Path> existentes = segmentos(diretorio);
+        long proximo = Math.max(marco,
+                existentes.isEmpty() ? 0 : numeroSegmento(existentes.get(existentes.size() - 1))) + 1;
+        return new DiarioOperacoes(diretorio, proximo);
+    }
+
+    private void abrirSegmento(long numero) throws IOException {
+        this.segmentoAtual = numero;
+        this.canal = FileChannel.open(diretorio.resolve(nomeSegmento(numero)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Enfileira o registro e retorna sua sequência, sem esperar o fsync. Depois de uma falha o
+    // registro é descartado, e aguardar(sequência) lança a falha.
+    long acrescentar(String registro) {
+        byte[] bytes = (registro + "\n").getBytes(StandardCharsets.UTF_8);
+        synchronized (trava) {
+            if (falha == null) pendente.write(bytes, 0, bytes.length);
+            ultimaSequencia++;
+            trava.notifyAll();
+            return ultimaSequencia;
+        }
+    }
+
+    // Bloqueia até que o registro com a sequência informada esteja em disco; lança a falha de
+    // gravação se ele não chegou (nem vai chegar) ao disco
+    void aguardar(long sequencia) throws IOException {
+        synchronized (trava) {
+            while (sequenciaDuravel < sequencia && falha == null && !fechado) {
+                try {
+                    trava.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (sequenciaDuravel < sequencia && falha != null) {
+                throw indisponivel();
+            }
+        }
+    }
+
+    // Espera a thread gravadora ficar ociosa (nada pendente nem em gravação, ou parada por falha)
+    private void esvaziar() {
+        synchronized (trava) {
+            while (sequenciaDuravel < ultimaSequencia && falha == null) {
+                try {
+                    trava.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void gravarLotes() {
+        while (true) {
+            byte[] lote;
+            long alvo;
+            FileChannel destino;
+            synchronized (trava) {
+                while (pendente.size() == 0 && !fechado) {
+                    try {
+                        trava.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pendente.size() == 0) return; // fechado e sem pendências
+                lote = pendente.toByteArray();
+                pendente.reset();
+                alvo = ultimaSequencia;
+                destino = canal;
+            }
+
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(lote);
+                while (buffer.hasRemaining()) {
+                    destino.write(buffer);
+                }
+                destino.force(false);
+            } catch (IOException e) {
+                // O lote pode ter ido pela metade: nada dele (nem depois dele) conta como durável.
+                // Quem espera recebe a falha em aguardar() e a informa pelo Hospital.
+                synchronized (trava) {
+                    falha = e;
+                    pendente.reset();
+                    trava.notifyAll();
+                }
+                return;
+            }
+
+            synchronized (trava) {
+                sequenciaDuravel = alvo;
+                trava.notifyAll();
+            }
+        }
+    }
+
+    private IOException indisponivel() {
+        String motivo = (falha.getMessage() != null) ? falha.getMessage() : falha.toString();
+        return new IOException("diário de operações indisponível (" + motivo + ")", falha);
+    }
+
+    // Fecha o segmento atual (após gravar o que estiver pendente) e abre o próximo.
+    // Retorna o número do segmento fechado: tudo até ele entra no próximo snapshot.
+    // Com o diário parado por falha, lança a falha: o snapshot não pode dar por gravado o que
+    // foi recusado às operações.
+    long rotacionar() throws IOException {
+        synchronized (trava) {
+            esvaziar();
+            if (falha != null) {
+                throw indisponivel();
+            }
+            long fechadoAgora = segmentoAtual;
+            canal.close();
+            abrirSegmento(fechadoAgora + 1);
+            return fechadoAgora;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (trava) {
+            esvaziar();
+            fechado = true;
+            trava.notifyAll();
+        }
+        try {
+            gravador.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        boolean vazio = canal.size() == 0;
+        canal.close();
+        if (vazio) {
+            Files.deleteIfExists(diretorio.resolve(nomeSegmento(segmentoAtual)));
+        }
+        if (falha != null) {
+            throw indisponivel();
+        }
+    }
+
+    // --- Recuperação e compactação ---
+
+    // Reaplica, em ordem, os registros dos segmentos posteriores ao marco.
+    // Uma última linha sem '\n' (gravação interrompida) é descartada.
+    static int reproduzir(Path diretorio, long marco, Consumer<String> aplicador) throws IOException {
+        int aplicados = 0;
+        for (Path segmento : segmentos(diretorio)) {
+            if (numeroSegmento(segmento) <= marco) continue;
+
+            String conteudo = new String(Files.readAllBytes(segmento), StandardCharsets.UTF_8);
+            int inicio = 0;
+            int fim;
+            while ((fim = conteudo.indexOf('\n', inicio)) >= 0) {
+                String registro = conteudo.substring(inicio, fim);
+                if (!registro.isEmpty()) {
+                    aplicador.accept(registro);
+                    aplicados++;
+                }
+                inicio = fim + 1;
+            }
+        }
+        return aplicados;
+    }
+
+    // Apaga os segmentos já incluídos no snapshot
+    static void excluirAte(Path diretorio, long segmento) throws IOException {
+        for (Path p : segmentos(diretorio)) {
+            if (numeroSegmento(p) <= segmento) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private static List<Path> segmentos(Path diretorio) throws IOException {
+        List<Path> lista = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(diretorio, PREFIXO + "*" + SUFIXO)) {
+            for (Path p : ds) {
+                lista.add(p);
+            }
+        }
+        lista.sort(Comparator.comparingLong(DiarioOperacoes::numeroSegmento));
+        return lista;
+    }
+
+    private static long numeroSegmento(Path segmento) {
+        String nome = segmento.getFileName().toString();
+        return Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - SUFIXO.length()));
+    }
+
+    private static String nomeSegmento(long numero) {
+        return String.format("%s%06d%s", PREFIXO, numero, SUFIXO);
+    }
+}
@@ -0,0 +1,211 @@
+package servicos;
+
+import modelos.*;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+// Execução de comandos sem menu (modo --lote do Main): um comando por linha, campos separados
+// por ';', nos formatos de USOS. Linhas em branco e começadas por '#' são ignoradas.
+// As mensagens que o Hospital emite durante cada comando são recolhidas num buffer: se o comando
+// falha, viram o erro da linha (com o número); se não, seguem para a saída. A saída só é
+// descarregada quando o buffer enche ou no fim, e o diário é esperado uma única vez no fim
+// (Hospital.abrirLote/concluirLote), então o custo por comando é só o da própria operação.
+public class ExecutorLote {
+    private static final DateTimeFormatter FORMATO_DATA_HORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    // Formatos aceitos ([...] é opcional). Nenhum campo pode conter ';', que também separa os CSV.
+    private static final String[] USOS = {
+            "cadastrar-paciente;NOME;CPF;IDADE[;PLANO]",
+            "cadastrar-medico;NOME;CPF;IDADE;CRM;ESPECIALIDADE;CUSTO_CONSULTA",
+            "agendar-consulta;CPF;CRM;dd/MM/yyyy HH:mm;LOCAL",
+            "agendar-internacao;CPF;CRM;dd/MM/yyyy;QUARTO",
+            "concluir-consulta;ID;DIAGNOSTICO",
+            "concluir-internacao;ID;dd/MM/yyyy",
+            "fila-internacao;CPF;CRM;URGENCIA",
+            "sair-fila;ID",
+            "salvar" };
+    private static final Map<String, Formato> FORMATOS = new HashMap<>();
+    static {
+        for (String uso : USOS) FORMATOS.put(uso.split(";", 2)[0], new Formato(uso));
+    }
+
+    private static class Formato {
+        final String uso;
+        final int campos;        // com os opcionais
+        final int obrigatorios;
+
+        Formato(String uso) {
+            this.uso = uso;
+            this.campos = uso.replace("[", "").split(";").length;
+            this.obrigatorios = uso.replaceAll("\\[.*\\]", "").split(";").length;
+        }
+    }
+
+    private final Hospital hospital;
+    private final PrintStream saida;
+    private final ByteArrayOutputStream capturadas = new ByteArrayOutputStream(256);
+    private final PrintStream mensagens = new PrintStream(capturadas, false);
+
+    public ExecutorLote(Hospital hospital, PrintStream saida) {
+        this.hospital = hospital;
+        this.saida = saida;
+    }
+
+    // Executa todos os comandos da entrada, na ordem; a entrada não é fechada
+    public Resultado executar(BufferedReader entrada) throws IOException {
+        long inicio = System.nanoTime();
+        Resultado resultado = new Resultado();
+        // Só as mensagens desta thread: as do salvamento automático (ou de outra recepção) não
+        // podem virar o resultado de uma linha
+        PrintStream anterior = hospital.redirecionarMensagens(mensagens);
+        hospital.abrirLote();
+        try {
+            int numero = 0;
+            String linha;
+            while ((linha = entrada.readLine()) != null) {
+                numero++;
+                String texto = linha.trim();
+                if (texto.isEmpty() || texto.startsWith("#")) continue;
+
+                String erro;
+                try {
+                    erro = executar(texto);
+                } catch (NumberFormatException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                    erro = "formato inválido (esperado: " + FORMATOS.get(nome(texto)).uso + ")";
+                } catch (IllegalArgumentException e) {
+                    erro = e.getMessage();
+                }
+                mensagens.flush();
+                resultado.comandos++;
+                if (erro == null) {
+                    if (capturadas.size() > 0) saida.print(capturadas.toString());
+                } else {
+                    resultado.erros++;
+                    saida.println("[ERRO] Linha " + numero + ": " + motivo(erro));
+                }
+                capturadas.reset();
+            }
+        } finally {
+            resultado.gravado = hospital.concluirLote();
+            mensagens.flush();
+            if (capturadas.size() > 0) saida.print(capturadas.toString());
+            capturadas.reset();
+            hospital.redirecionarMensagens(anterior);
+            resultado.duracaoNanos = System.nanoTime() - inicio;
+            saida.flush();
+        }
+        return resultado;
+    }
+
+    // Executa uma linha: null se deu certo, ou o motivo padrão da falha (quando o Hospital não disser outro)
+    private String executar(String texto) {
+        String comando = nome(texto);
+        Formato formato = FORMATOS.get(comando);
+        if (formato == null) {
+            throw new IllegalArgumentException("comando desconhecido: " + comando);
+        }
+        String[] c = campos(texto, formato);
+        switch (comando) {
+            case "cadastrar-paciente": {
+                String plano = c.length > 4 ? c[4] : "";
+                Paciente p;
+                if (plano.isEmpty()) {
+                    p = new Paciente(c[1], c[2], Integer.parseInt(c[3]));
+                } else {
+                    p = new PacienteEspecial(c[1], c[2], Integer.parseInt(c[3]), plano(plano));
+                }
+                return hospital.cadastrarPaciente(p) ? null : "paciente não cadastrado";
+            }
+            case "cadastrar-medico": {
+                Medico m = new Medico(c[1], c[2], Integer.parseInt(c[3]), c[4], c[5], Double.parseDouble(c[6]));
+                return hospital.cadastrarMedico(m) ? null : "médico não cadastrado";
+            }
+            case "agendar-consulta":
+                return hospital.agendarConsulta(c[1], c[2], LocalDateTime.parse(c[3], FORMATO_DATA_HORA), c[4])
+                        ? null : "consulta não agendada";
+            case "agendar-internacao":
+                return hospital.agendarInternacao(c[1], c[2], LocalDate.parse(c[3], FORMATO_DATA), Integer.parseInt(c[4]))
+                        ? null : "internação não agendada";
+            case "concluir-consulta":
+                return hospital.concluirERemoverConsulta(Long.parseLong(c[1]), c[2])
+                        ? null : "Nenhuma consulta agendada com o id " + c[1] + ".";
+            case "concluir-internacao":
+                return hospital.concluirERemoverInternacao(Long.parseLong(c[1]), LocalDate.parse(c[2], FORMATO_DATA))
+                        ? null : "Nenhuma internação ativa com o id " + c[1] + ".";
+            case "fila-internacao":
+                return hospital.entrarNaFilaInternacao(c[1], c[2], Integer.parseInt(c[3]))
+                        ? null : "paciente não incluído na fila";
+            case "sair-fila":
+                return hospital.sairDaFilaInternacao(Long.parseLong(c[1])) ? null : "pedido não retirado da fila";
+            default: // salvar
+                hospital.salvarDados();
+                return null;
+        }
+    }
+
+    private PlanoSaude plano(String nome) {
+        for (PlanoSaude plano : hospital.getPlanos()) {
+            if (plano.getNome().equalsIgnoreCase(nome)) return plano;
+        }
+        throw new IllegalArgumentException("plano de saúde não encontrado: " + nome);
+    }
+
+    private static String nome(String texto) {
+        int fim = texto.indexOf(';');
+        return (fim < 0 ? texto : texto.substring(0, fim)).trim().toLowerCase();
+    }
+
+    // Campos da linha; os opcionais podem faltar
+    private static String[] campos(String texto, Formato formato) {
+        String[] c = texto.split(";", -1);
+        if (c.length < formato.obrigatorios) {
+            throw new IllegalArgumentException("campos faltando (esperado: " + formato.uso + ")");
+        }
+        if (c.length > formato.campos) {
+            throw new IllegalArgumentException("campos demais (esperado: " + formato.uso + ")");
+        }
+        for (int i = 0; i < c.length; i++) c[i] = c[i].trim();
+        return c;
+    }
+
+    // As mensagens [ERRO] do Hospital explicam melhor a falha do que o motivo padrão
+    private String motivo(String padrao) {
+        StringBuilder sb = new StringBuilder();
+        for (String linha : (Iterable<String>) capturadas.toString().lines()::iterator) {
+            if (!linha.startsWith("[ERRO] ")) continue;
+            if (sb.length() > 0) sb.append(" / ");
+            sb.append(linha.substring("[ERRO] ".length()).trim());
+        }
+        return sb.length() > 0 ? sb.toString() : padrao;
+    }
+
+    public static class Resultado {
+        private int comandos;
+        private int erros;
+        private long duracaoNanos;
+        private boolean gravado; // false: o diário falhou e o lote pode não ter sido gravado
+
+        public int getComandos() { return comandos; }
+        public int getExecutados() { return comandos - erros; }
+        public int getErros() { return erros; }
+        public double getDuracaoSegundos() { return duracaoNanos / 1e9; }
+        public boolean isGravado() { return gravado; }
+
+        @Override
+        public String toString() {
+            double segundos = getDuracaoSegundos();
+            return String.format("%d comando(s): %d executado(s), %d com erro em %.2fs (%.0f comandos/s)",
+                    comandos, getExecutados(), erros, segundos, segundos > 0 ? comandos / segundos : 0.0)
+                    + (gravado ? "" : " - diário de operações indisponível, lote não confirmado");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package servicos;
+
+import modelos.Paciente;
+import modelos.PedidoInternacao;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Fila de espera por quarto, em ordem de prioridade: maior urgência, depois plano com
+// internação garantida, depois chegada (e id, para desempate). O TreeSet dá o primeiro e
+// permite tirar qualquer pedido do meio; os mapas acham o pedido pelo id ou pelo paciente.
+// Entrar, sair e mudar a urgência custam O(log n). Um paciente tem no máximo um pedido.
+// Não é thread-safe: o Hospital a protege com a trava das internações.
+class FilaInternacao {
+    private static final Comparator<PedidoInternacao> PRIORIDADE =
+            Comparator.comparingInt(PedidoInternacao::getUrgencia).reversed()
+                    .thenComparing(p -> !p.isInternacaoGarantida())
+                    .thenComparing(PedidoInternacao::getChegada)
+                    .thenComparingLong(PedidoInternacao::getId);
+
+    private final TreeSet<PedidoInternacao> ordem = new TreeSet<>(PRIORIDADE);
+    private final Map<Long, PedidoInternacao> porId = new HashMap<>();
+    private final Map<Paciente, PedidoInternacao> porPaciente = new HashMap<>();
+
+    // false se o paciente já está na fila
+    boolean adicionar(PedidoInternacao pedido) {
+        if (porPaciente.containsKey(pedido.getPaciente())) return false;
+        ordem.add(pedido);
+        porId.put(pedido.getId(), pedido);
+        porPaciente.put(pedido.getPaciente(), pedido);
+        return true;
+    }
+
+    PedidoInternacao pedido(long id) { return porId.get(id); }
+
+    PedidoInternacao pedidoDoPaciente(Paciente p) { return porPaciente.get(p); }
+
+    // Retira o pedido (null se não estiver na fila)
+    PedidoInternacao remover(long id) {
+        PedidoInternacao pedido = porId.remove(id);
+        if (pedido != null) {
+            ordem.remove(pedido);
+            porPaciente.remove(pedido.getPaciente());
+        }
+        return pedido;
+    }
+
+    // Troca a urgência do pedido, que vai para a nova posição (null se não estiver na fila)
+    PedidoInternacao reprioritizar(long id, int urgencia) {
+        PedidoInternacao antigo = porId.get(id);
+        if (antigo == null) return null;
+        PedidoInternacao novo = antigo.comUrgencia(urgencia);
+        ordem.remove(antigo);
+        ordem.add(novo);
+        porId.put(id, novo);
+        porPaciente.put(novo.getPaciente(), novo);
+        return novo;
+    }
+
+    // Retira o primeiro da fila (null se vazia)
+    PedidoInternacao retirarPrimeiro() {
+        PedidoInternacao primeiro = ordem.pollFirst();
+        if (primeiro != null) {
+            porId.remove(primeiro.getId());
+            porPaciente.remove(primeiro.getPaciente());
+        }
+        return primeiro;
+    }
+
+    boolean isVazia() { return ordem.isEmpty(); }
+
+    int tamanho() { return ordem.size(); }
+
+    // Cópia na ordem de atendimento
+    List<PedidoInternacao> pedidos() {
+        return new ArrayList<>(ordem);
+    }
+
+    void limpar() {
+        ordem.clear();
+        porId.clear();
+        porPaciente.clear();
+    }
+}
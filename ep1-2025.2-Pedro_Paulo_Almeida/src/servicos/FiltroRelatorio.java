@@ -0,0 +1,107 @@
+package servicos;
+
+import modelos.*;
+import java.time.LocalDate;
+
+// Filtros e paginação dos relatórios. Campos não informados (null) não filtram nada.
+// Uso: new FiltroRelatorio().medico("CRM1").status("CONCLUIDA").pagina(2, 50)
+public class FiltroRelatorio {
+    private String cpfPaciente;
+    private String crmMedico;
+    private String status;
+    private LocalDate inicio; // inclusive
+    private LocalDate fim;    // inclusive
+    private int deslocamento = 0;
+    private int limite = Integer.MAX_VALUE;
+
+    public FiltroRelatorio paciente(String cpf) {
+        this.cpfPaciente = cpf;
+        return this;
+    }
+
+    public FiltroRelatorio medico(String crm) {
+        this.crmMedico = crm;
+        return this;
+    }
+
+    // Status da consulta (AGENDADA, CONCLUIDA...) ou da internação (Ativa, Concluída...)
+    public FiltroRelatorio status(String status) {
+        this.status = status;
+        return this;
+    }
+
+    public FiltroRelatorio periodo(LocalDate inicio, LocalDate fim) {
+        this.inicio = inicio;
+        this.fim = fim;
+        return this;
+    }
+
+    // Página numerada a partir de 1
+    public FiltroRelatorio pagina(int numero, int tamanho) {
+        return intervalo((Math.max(numero, 1) - 1) * tamanho, tamanho);
+    }
+
+    public FiltroRelatorio intervalo(int deslocamento, int limite) {
+        if (deslocamento < 0 || limite < 0) {
+            throw new IllegalArgumentException("Deslocamento e limite não podem ser negativos");
+        }
+        this.deslocamento = deslocamento;
+        this.limite = limite;
+        return this;
+    }
+
+    public String getCpfPaciente() { return cpfPaciente; }
+    public String getCrmMedico() { return crmMedico; }
+    public String getStatus() { return status; }
+    public LocalDate getInicio() { return inicio; }
+    public LocalDate getFim() { return fim; }
+    public int getDeslocamento() { return deslocamento; }
+    public int getLimite() { return limite; }
+
+    // --- Testes aplicados a cada registro (só comparações, nada é formatado) ---
+
+    boolean aceita(Paciente p) {
+        return cpfPaciente == null || cpfPaciente.equals(p.getCpf());
+    }
+
+    boolean aceita(Medico m) {
+        return crmMedico == null || crmMedico.equals(m.getCrm());
+    }
+
+    boolean aceita(Consulta c) {
+        if (cpfPaciente != null && !cpfPaciente.equals(c.getPaciente().getCpf())) return false;
+        if (crmMedico != null && !crmMedico.equals(c.getMedico().getCrm())) return false;
+        if (status != null && !status.equalsIgnoreCase(c.getStatus().name())) return false;
+        LocalDate dia = c.getDataHora().toLocalDate();
+        return (inicio == null || !dia.isBefore(inicio)) && (fim == null || !dia.isAfter(fim));
+    }
+
+    // Mesmos testes sobre uma linha do histórico arquivado, sem recriar a consulta
+    boolean aceita(ArquivoConsultas arquivo, int linha) {
+        if (cpfPaciente != null && !cpfPaciente.equals(arquivo.getPaciente(linha).getCpf())) return false;
+        if (crmMedico != null && !crmMedico.equals(arquivo.getMedico(linha).getCrm())) return false;
+        if (status != null && !status.equalsIgnoreCase(arquivo.getStatus(linha).name())) return false;
+        int dia = arquivo.getEpochDia(linha);
+        return (inicio == null || dia >= inicio.toEpochDay()) && (fim == null || dia <= fim.toEpochDay());
+    }
+
+    // Internações entram se o período delas (entrada até saída, ou em aberto) cruza o filtro
+    boolean aceita(Internacao i) {
+        if (cpfPaciente != null && !cpfPaciente.equals(i.getPaciente().getCpf())) return false;
+        if (crmMedico != null && !crmMedico.equals(i.getMedicoResponsavel().getCrm())) return false;
+        if (status != null && !status.equalsIgnoreCase(i.getStatus().getDescricao())
+                && !status.equalsIgnoreCase(i.getStatus().name())) return false;
+        if (fim != null && i.getDataEntrada().isAfter(fim)) return false;
+        return inicio == null || i.getDataSaida() == null || !i.getDataSaida().isBefore(inicio);
+    }
+
+    boolean aceita(ArquivoInternacoes arquivo, int linha) {
+        if (cpfPaciente != null && !cpfPaciente.equals(arquivo.getPaciente(linha).getCpf())) return false;
+        if (crmMedico != null && !crmMedico.equals(arquivo.getMedicoResponsavel(linha).getCrm())) return false;
+        if (status != null && !status.equalsIgnoreCase(arquivo.getStatus(linha).getDescricao())
+                && !status.equalsIgnoreCase(arquivo.getStatus(linha).name())) return false;
+        if (fim != null && arquivo.getEpochEntrada(linha) > fim.toEpochDay()) return false;
+        int saida = arquivo.getEpochSaida(linha);
+        return inicio == null || saida == Integer.MIN_VALUE || saida >= inicio.toEpochDay();
+    }
+}
@@ -0,0 +1,214 @@
+package servicos;
+
+import modelos.*;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.text.DecimalFormatSymbols;
+import java.time.format.DateTimeFormatter;
+
+// Relatórios em fluxo: os registros são filtrados sob a trava de leitura do Hospital e as
+// linhas da página pedida vão direto para o Writer (bufferizado) durante a varredura. Os
+// registros fora da página só são contados; os do histórico nem chegam a ser recriados.
+public class GeradorRelatorios {
+    private static final DateTimeFormatter DATA_HORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final char SEPARADOR_DECIMAL = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+    private final Hospital hospital;
+
+    public GeradorRelatorios(Hospital hospital) {
+        this.hospital = hospital;
+    }
+
+    // Writer bufferizado sobre um OutputStream (ex.: System.out ou um arquivo)
+    public static Writer escritor(OutputStream saida) {
+        return new BufferedWriter(new OutputStreamWriter(saida), 1 << 16);
+    }
+
+    // Cada relatório retorna o total de registros que passaram pelo filtro (todas as páginas)
+    public int pacientes(Writer destino, FiltroRelatorio filtro) throws IOException {
+        BufferedWriter out = bufferizado(destino);
+        titulo(out, "RELATÓRIO DE PACIENTES");
+        Pagina<Paciente> pagina = new Pagina<>(filtro, out, GeradorRelatorios::escrever);
+        try {
+            hospital.percorrerPacientes(filtro, pagina);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        rodape(out, pagina, "Nenhum paciente encontrado.");
+        return pagina.total;
+    }
+
+    public int medicos(Writer destino, FiltroRelatorio filtro) throws IOException {
+        BufferedWriter out = bufferizado(destino);
+        titulo(out, "RELATÓRIO DE MÉDICOS");
+        Pagina<Medico> pagina = new Pagina<>(filtro, out, GeradorRelatorios::escrever);
+        try {
+            hospital.percorrerMedicos(filtro, pagina);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        rodape(out, pagina, "Nenhum médico encontrado.");
+        return pagina.total;
+    }
+
+    // Agendadas primeiro, depois o histórico de cada paciente
+    public int consultas(Writer destino, FiltroRelatorio filtro) throws IOException {
+        BufferedWriter out = bufferizado(destino);
+        titulo(out, "RELATÓRIO DE CONSULTAS");
+        Pagina<Consulta> pagina = new Pagina<>(filtro, out, GeradorRelatorios::escrever);
+        try {
+            hospital.percorrerConsultas(filtro, pagina);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        rodape(out, pagina, "Nenhuma consulta encontrada.");
+        return pagina.total;
+    }
+
+    // Ativas primeiro, depois o histórico de cada paciente
+    public int internacoes(Writer destino, FiltroRelatorio filtro) throws IOException {
+        BufferedWriter out = bufferizado(destino);
+        titulo(out, "RELATÓRIO DE INTERNAÇÕES");
+        Pagina<Internacao> pagina = new Pagina<>(filtro, out, GeradorRelatorios::escrever);
+        try {
+            hospital.percorrerInternacoes(filtro, pagina);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        rodape(out, pagina, "Nenhuma internação encontrada.");
+        return pagina.total;
+    }
+
+    // --- Formatação das linhas (mesmo texto de toString(), sem String.format) ---
+
+    private static void escrever(BufferedWriter out, Pessoa pessoa) throws IOException {
+        out.write(pessoa.exibirDetalhes());
+        out.newLine();
+    }
+
+    private static void escrever(BufferedWriter out, Consulta c) throws IOException {
+        out.write('#');
+        out.write(Long.toString(c.getId()));
+        out.write(" | Paciente: ");
+        out.write(c.getPaciente().getNome());
+        out.write(" | Médico: ");
+        out.write(c.getMedico().getNome());
+        out.write(" | Data: ");
+        DATA_HORA.formatTo(c.getDataHora(), out);
+        out.write(" | Local: ");
+        out.write(String.valueOf(c.getLocal()));
+        out.write(" | Status: ");
+        out.write(c.getStatus().name());
+        out.write(" | Diagnóstico: ");
+        out.write(c.getDiagnostico() == null ? "N/A" : c.getDiagnostico());
+        out.write(" | Valor: R$");
+        escreverValor(out, c.getValorCobrado());
+        out.newLine();
+    }
+
+    private static void escrever(BufferedWriter out, Internacao i) throws IOException {
+        out.write('#');
+        out.write(Long.toString(i.getId()));
+        out.write(" | Internação - ");
+        out.write(i.getStatus().getDescricao());
+        out.write(" | ");
+        out.write(i.getPaciente().getNome());
+        out.write(" - Entrada: ");
+        out.write(i.getDataEntrada().toString());
+        out.write(", Saída: ");
+        out.write(i.getDataSaida() == null ? "Em andamento" : i.getDataSaida().toString());
+        out.write(" | Quarto: ");
+        out.write(Integer.toString(i.getNumeroQuarto()));
+        if (i.getStatus() == StatusInternacao.CONCLUIDA) {
+            out.write(". Total: R$");
+            escreverValor(out, i.calcularCustoTotal());
+        } else {
+            out.write(". Custo Diário: R$");
+            escreverValor(out, i.getCustoDiario());
+        }
+        out.newLine();
+    }
+
+    // Valor com duas casas decimais e o separador do locale padrão (como "%.2f")
+    private static void escreverValor(Writer out, double valor) throws IOException {
+        long centavos = Math.round(valor * 100);
+        if (centavos < 0) {
+            out.write('-');
+            centavos = -centavos;
+        }
+        out.write(Long.toString(centavos / 100));
+        out.write(SEPARADOR_DECIMAL);
+        long resto = centavos % 100;
+        if (resto < 10) out.write('0');
+        out.write(Long.toString(resto));
+    }
+
+    private static void titulo(BufferedWriter out, String titulo) throws IOException {
+        out.newLine();
+        out.write("--- " + titulo + " ---");
+        out.newLine();
+    }
+
+    private static void rodape(BufferedWriter out, Pagina<?> pagina, String mensagemVazio) throws IOException {
+        if (pagina.total == 0) {
+            out.write(mensagemVazio);
+            out.newLine();
+        } else if (pagina.escritas == 0) {
+            out.write("Página sem registros (total: " + pagina.total + ").");
+            out.newLine();
+        } else if (pagina.escritas < pagina.total) {
+            int primeiro = pagina.deslocamento + 1;
+            out.write("Exibindo " + primeiro + " a " + (primeiro + pagina.escritas - 1)
+                    + " de " + pagina.total + " registro(s).");
+            out.newLine();
+        }
+        out.flush();
+    }
+
+    private static BufferedWriter bufferizado(Writer destino) {
+        return (destino instanceof BufferedWriter) ? (BufferedWriter) destino : new BufferedWriter(destino);
+    }
+
+    interface Linha<T> {
+        void escrever(BufferedWriter out, T item) throws IOException;
+    }
+
+    // Conta todos os registros aceitos e escreve na hora os que caem na página pedida. Quem
+    // percorre chama dentro() para cada registro aceito e, só se ele responder true, monta o
+    // registro e chama escrever(); assim as linhas fora da página não viram objetos.
+    static class Pagina<T> {
+        private final int deslocamento;
+        private final int limite;
+        private final BufferedWriter out;
+        private final Linha<T> linha;
+        private int escritas;
+        private int total;
+
+        Pagina(FiltroRelatorio filtro, BufferedWriter out, Linha<T> linha) {
+            this.deslocamento = filtro.getDeslocamento();
+            this.limite = filtro.getLimite();
+            this.out = out;
+            this.linha = linha;
+        }
+
+        boolean dentro() {
+            boolean naPagina = total >= deslocamento && escritas < limite;
+            total++;
+            return naPagina;
+        }
+
+        // Chamado sob a trava de leitura: o IOException sai embrulhado e o gerador o desembrulha
+        void escrever(T item) {
+            try {
+                linha.escrever(out, item);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            escritas++;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package servicos;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histograma de latências (em nanossegundos) no estilo do HdrHistogram: faixas log-lineares
+// com 32 subfaixas por potência de 2 (erro relativo de até ~3%), num vetor de tamanho fixo.
+// Registrar é só um incremento atômico, sem trava e sem alocação; o custo de percorrer o
+// vetor fica para quem lê (percentis).
+class Histograma {
+    private static final int BITS_SUBFAIXA = 5;
+    private static final int SUBFAIXAS = 1 << BITS_SUBFAIXA; // 32
+    private static final int FAIXAS = (64 - BITS_SUBFAIXA) * SUBFAIXAS + SUBFAIXAS;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(FAIXAS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    void registrar(long nanos) {
+        if (nanos < 0) nanos = 0;
+        contagens.incrementAndGet(faixa(nanos));
+        total.increment();
+        soma.add(nanos);
+        maximo.accumulate(nanos);
+    }
+
+    long getTotal() { return total.sum(); }
+    long getMaximo() { return maximo.get(); }
+
+    double getMedia() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) soma.sum() / n;
+    }
+
+    // Limite superior da faixa onde cai o percentil p (0 a 100)
+    long percentil(double p) {
+        long n = total.sum();
+        if (n == 0) return 0;
+        long alvo = Math.max(1, (long) Math.ceil(n * p / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            acumulado += contagens.get(i);
+            if (acumulado >= alvo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    // Valores abaixo de 64 têm faixa própria; acima, os 6 bits mais altos definem a faixa
+    static int faixa(long valor) {
+        if (valor < 2 * SUBFAIXAS) return (int) valor;
+        int expoente = (63 - Long.numberOfLeadingZeros(valor)) - BITS_SUBFAIXA;
+        return expoente * SUBFAIXAS + (int) (valor >>> expoente);
+    }
+
+    static long limiteSuperior(int faixa) {
+        if (faixa < 2 * SUBFAIXAS) return faixa;
+        int expoente = faixa / SUBFAIXAS - 1;
+        long mantissa = faixa % SUBFAIXAS + SUBFAIXAS;
+        if (mantissa + 1 == 2 * SUBFAIXAS && expoente >= 62 - BITS_SUBFAIXA) return Long.MAX_VALUE; // evita estouro
+        return ((mantissa + 1) << expoente) - 1;
+    }
+}
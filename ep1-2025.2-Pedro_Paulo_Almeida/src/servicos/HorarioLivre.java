@@ -0,0 +1,24 @@
+package servicos;
+
+import modelos.Medico;
+import java.time.LocalDateTime;
+
+// Resultado (imutável) da busca de horários: um início de consulta livre na agenda do médico
+public class HorarioLivre {
+    private final Medico medico;
+    private final LocalDateTime dataHora;
+
+    HorarioLivre(Medico medico, LocalDateTime dataHora) {
+        this.medico = medico;
+        this.dataHora = dataHora;
+    }
+
+    public Medico getMedico() { return medico; }
+    public LocalDateTime getDataHora() { return dataHora; }
+
+    @Override
+    public String toString() {
+        return dataHora.toLocalDate() + " " + dataHora.toLocalTime() + " - " + medico.getNome()
+                + " (CRM: " + medico.getCrm() + ", Custo Base: " + medico.getCustoConsulta() + ")";
+    }
+}
@@ -1,33 +1,196 @@
 package servicos; 
 
 import modelos.*; 
+import servicos.MetricasHospital.Operacao;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalDate; 
-import java.time.format.DateTimeParseException;
 
 
-public class Hospital implements Serializable {
+// Concorrência: o estado é dividido em três partições, cada uma com seu ReadWriteLock
+//   travaCadastro    -> pacientes, médicos
+//   travaConsultas   -> consultas ativas, agenda dos médicos, histórico de consultas
+//   travaInternacoes -> internações ativas, ocupação dos quartos, histórico de internações
+// Buscas por CPF/CRM não usam trava (ConcurrentHashMap). Quando mais de uma trava é
+// necessária, a ordem é sempre cadastro -> consultas -> internações.
+public class Hospital {
     
     private List<Paciente> pacientes;
     private List<Medico> medicos;
-    private List<Consulta> consultas;
-    private List<Internacao> internacoes;
+    // Ativas indexadas pelo id (ordem de inclusão): conclusão e remoção em O(1)
+    private Map<Long, Consulta> consultas;
+    private Map<Long, Internacao> internacoes;
     private List<PlanoSaude> planos;
 
+    // Próximos ids (monotônicos, nunca reaproveitados). Cada um é protegido pela trava da sua
+    // partição; ao reaplicar o diário os mesmos ids são gerados de novo, na mesma ordem.
+    private long proximoIdConsulta = 1;
+    private long proximoIdInternacao = 1;
+
+    // Índices de busca: mantidos em sincronia com as listas pelos métodos de cadastro.
+    // A entrada só é publicada depois do registro no diário, para que nenhuma operação que
+    // dependa dela seja registrada antes.
+    private Map<String, Paciente> pacientesPorCpf;
+    private Map<String, Medico> medicosPorCrm;
+    // Busca por nome (prefixo e aproximada); estes, sim, protegidos pela trava de cadastro
+    private IndiceNomes<Paciente> pacientesPorNome;
+    private IndiceNomes<Medico> medicosPorNome;
+
+    // Agenda por médico das consultas AGENDADAS (detecção de conflito e consultas por período)
+    private static final Duration DURACAO_CONSULTA_PADRAO = Duration.ofMinutes(30);
+    private AgendaMedicos agenda;
+    // Horário de atendimento para a busca de horários livres (padrão e por CRM; trava das consultas)
+    private JornadaTrabalho jornadaPadrao;
+    private Map<String, JornadaTrabalho> jornadasPorMedico;
+
+    // Inventário e ocupação dos quartos (impede duas internações no mesmo quarto)
+    private static final int TOTAL_QUARTOS_PADRAO = 100;
+    private OcupacaoQuartos ocupacao;
+    // Fila de espera por quarto (ver FilaInternacao), na partição das internações. O quarto
+    // liberado por uma alta vai para o primeiro da fila; ao reaplicar o diário a alta refaz a
+    // mesma atribuição, por isso ela não tem registro próprio.
+    private FilaInternacao filaInternacao;
+    private long proximoIdPedido = 1;
+    private boolean reproduzindoDiario; // não mede a espera de atendimentos refeitos
+
+    // Destino das mensagens [INFO]/[ERRO]/[AVISO]: o padrão (System.out ou setMensagens) vale para
+    // todas as threads; uma thread pode desviar só as suas (redirecionarMensagens, modo lote), sem
+    // recolher as do salvamento automático ou de outras recepções
+    private volatile PrintStream mensagensPadrao = System.out;
+    private final ThreadLocal<PrintStream> mensagensDaThread = new ThreadLocal<>();
+
+    // Modo lote (ver abrirLote): por thread, a maior sequência do diário ainda não esperada
+    private final ThreadLocal<long[]> lote = new ThreadLocal<>();
+
+    // Faturamento agregado por médico, especialidade, plano e dia (um por partição). Depois de uma
+    // carga só é montado na primeira consulta, para a inicialização não precisar ler o histórico.
+    private AgregadosFaturamento faturamentoConsultas;
+    private AgregadosFaturamento faturamentoInternacoes;
+    private volatile boolean faturamentoPronto = true;
+
+    // Históricos (concluídas/canceladas), um por partição: na memória até a carga, depois em
+    // arquivos no diretório de dados; os pacientes guardam só o último registro e o total
+    private ArquivoConsultas arquivoConsultas;
+    private ArquivoInternacoes arquivoInternacoes;
+
+    // Índice invertido dos diagnósticos (partição das consultas), gravado junto com o snapshot
+    private IndiceDiagnosticos diagnosticos;
+
+    // Índices por dia (ver IndiceDatas), com ativas e histórico: consultas pela data/hora,
+    // internações pela entrada e (as arquivadas) pela saída. Como o faturamento, depois de uma
+    // carga só são montados na primeira consulta por período.
+    private IndiceDatas<Consulta> consultasPorDia;
+    private IndiceDatas<Internacao> internacoesPorEntrada;
+    private IndiceDatas<Internacao> internacoesPorSaida;
+    private volatile boolean datasProntas = true;
+
     private static final String MEDICO_FILE = "medicos.csv";
     private static final String PACIENTE_FILE = "pacientes.csv";
     private static final String CONSULTA_FILE = "consultas.csv";
     private static final String INTERNACAO_FILE = "internacoes.csv";
+    private static final String SNAPSHOT_FILE = "hospital.snap";
+    private static final String DIAGNOSTICOS_FILE = "diagnosticos.idx";
+    private static final String HISTORICO_CONSULTAS_FILE = "historico-consultas.dat";
+    private static final String HISTORICO_TEXTOS_FILE = "historico-textos.dat";
+    private static final String HISTORICO_INTERNACOES_FILE = "historico-internacoes.dat";
+    private static final String HISTORICO_CONSULTAS_CSV = "consultas-historico-%04d.csv";
+    private static final String HISTORICO_INTERNACOES_CSV = "internacoes-historico-%04d.csv";
+    private static final String CABECALHO_MEDICOS = "TIPO;NOME;CPF;IDADE;CRM;ESPECIALIDADE;CUSTO_CONSULTA";
+    private static final String CABECALHO_PACIENTES = "TIPO;NOME;CPF;IDADE;PLANO_NOME(apenas_especial)";
+    private static final String CABECALHO_CONSULTAS = "ID;PACIENTE_CPF;MEDICO_CRM;DATA_HORA;LOCAL;STATUS;DIAGNOSTICO;VALOR_COBRADO";
+    private static final String CABECALHO_INTERNACOES = "ID;PACIENTE_CPF;MEDICO_CRM;DATA_ENTRADA;DATA_SAIDA;QUARTO;CUSTO_DIARIO;STATUS";
+    private static final int LINHAS_POR_PARTICAO = 1 << 16; // registros do histórico por arquivo CSV
+    private final Path diretorioDados; // onde ficam CSV, snapshot e diário
+
+    // Diário de operações: só é aberto por carregarDados(); sem ele nada é registrado
+    private static final int LIMITE_COMPACTACAO = 10_000; // registros até compactar em segundo plano
+    private DiarioOperacoes diario;
+    private ScheduledExecutorService compactador;
+    private AtomicBoolean compactacaoAgendada;
+    private long ultimoSegmentoIncluido; // último segmento do diário já contido no snapshot
+    private final AtomicInteger registrosDesdeCompactacao = new AtomicInteger();
+
+    // Salvamento automático (ver iniciarAutossalvamento). Instantes em System.nanoTime(); 0 = nenhum.
+    // primeiraPendente: primeira operação ainda fora do snapshot (zerada com as travas de leitura).
+    private volatile long ultimaGravacao;
+    private volatile long primeiraPendente;
+    private volatile long atrasoMaximo; // em nanossegundos; 0 = sem limite
+
+    private final ReentrantReadWriteLock travaCadastro = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock travaConsultas = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock travaInternacoes = new ReentrantReadWriteLock();
+    private final ReentrantLock travaSnapshot = new ReentrantLock(); // uma gravação (snapshot ou CSV) por vez
+
+    // Gravação incremental do CSV: cada alteração avança a versão do seu tipo (com a trava de
+    // escrita da partição) e a gravação só regrava os arquivos cuja versão mudou desde a última.
+    // O histórico só cresce, então basta saber quantos registros já estão nos arquivos de partição.
+    // -1 = nunca gravado: a primeira gravação (depois de uma carga, inclusive) regrava tudo.
+    private long versaoMedicos, versaoPacientes, versaoConsultas, versaoInternacoes;
+    private long medicosGravados = -1, pacientesGravados = -1, consultasGravadas = -1, internacoesGravadas = -1;
+    private int historicoConsultasGravado, historicoInternacoesGravado;
+
+    // Latência das operações e contadores (ver MetricasHospital); leituras de tamanho são feitas sob demanda
+    private final MetricasHospital metricas = new MetricasHospital(this);
 
     public Hospital() {
+        this(Paths.get("."));
+    }
+
+    public Hospital(Path diretorioDados) {
+        this.diretorioDados = diretorioDados;
         this.pacientes = new ArrayList<>();
         this.medicos = new ArrayList<>();
-        this.consultas = new ArrayList<>();
-        this.internacoes = new ArrayList<>();
+        this.consultas = new LinkedHashMap<>();
+        this.internacoes = new LinkedHashMap<>();
         this.planos = new ArrayList<>();
+        this.pacientesPorCpf = new ConcurrentHashMap<>();
+        this.medicosPorCrm = new ConcurrentHashMap<>();
+        this.pacientesPorNome = new IndiceNomes<>();
+        this.medicosPorNome = new IndiceNomes<>();
+        this.agenda = new AgendaMedicos(DURACAO_CONSULTA_PADRAO);
+        this.jornadaPadrao = JornadaTrabalho.padrao();
+        this.jornadasPorMedico = new HashMap<>();
+        this.filaInternacao = new FilaInternacao();
+        this.faturamentoConsultas = new AgregadosFaturamento();
+        this.faturamentoInternacoes = new AgregadosFaturamento();
+        this.arquivoConsultas = new ArquivoConsultas();
+        this.arquivoInternacoes = new ArquivoInternacoes();
+        this.ocupacao = new OcupacaoQuartos(TOTAL_QUARTOS_PADRAO, arquivoInternacoes);
+        this.diagnosticos = new IndiceDiagnosticos(arquivoConsultas);
+        this.consultasPorDia = new IndiceDatas<>();
+        this.internacoesPorEntrada = new IndiceDatas<>();
+        this.internacoesPorSaida = new IndiceDatas<>();
         
         // Planos fixos (padrão)
         this.planos.add(new PlanoSaude("Plano Bronze", 0.10, false));
@@ -35,16 +198,196 @@ public class Hospital implements Serializable {
     }
 
     // --- MÉTODOS DE CADASTRO E NEGÓCIO ---
-    public void cadastrarPaciente(Paciente p) { 
-        this.pacientes.add(p); 
+    public boolean cadastrarPaciente(Paciente p) {
+        long inicio = System.nanoTime();
+        return metricas.registrar(Operacao.CADASTRAR_PACIENTE, inicio, incluirPaciente(p));
+    }
+
+    public boolean cadastrarMedico(Medico m) {
+        long inicio = System.nanoTime();
+        return metricas.registrar(Operacao.CADASTRAR_MEDICO, inicio, incluirMedico(m));
+    }
+
+    // Usados também pelas cargas (CSV/snapshot), que não entram nas métricas de cadastro
+    // Rejeita CPF/CRM duplicado para manter o índice consistente com a lista
+    // Cada alteração é registrada no diário com a trava de escrita (mantém a ordem)
+    // e só espera o fsync depois de liberá-la, para que várias esperas caiam no mesmo lote.
+    boolean incluirPaciente(Paciente p) { 
+        long registro;
+        travaCadastro.writeLock().lock();
+        try {
+            if (pacientesPorCpf.containsKey(p.getCpf())) {
+                mensagens().println("[ERRO] Já existe um paciente com o CPF " + p.getCpf() + ".");
+                return false;
+            }
+            registro = registrarNoDiario("PACIENTE|" + p.toCSV());
+            this.pacientes.add(p); 
+            versaoPacientes++;
+            pacientesPorCpf.put(p.getCpf(), p);
+            pacientesPorNome.adicionar(p);
+        } finally {
+            travaCadastro.writeLock().unlock();
+        }
+        return aguardarDiario(registro);
+    }
+    boolean incluirMedico(Medico m) { 
+        long registro;
+        travaCadastro.writeLock().lock();
+        try {
+            if (medicosPorCrm.containsKey(m.getCrm())) {
+                mensagens().println("[ERRO] Já existe um médico com o CRM " + m.getCrm() + ".");
+                return false;
+            }
+            registro = registrarNoDiario("MEDICO|" + m.toCSV());
+            this.medicos.add(m); 
+            versaoMedicos++;
+            medicosPorCrm.put(m.getCrm(), m);
+            medicosPorNome.adicionar(m);
+        } finally {
+            travaCadastro.writeLock().unlock();
+        }
+        return aguardarDiario(registro);
+    }
+
+    // --- IMPORTAÇÃO EM LOTE ---
+    // Arquivos externos (outra clínica); ver ImportadorLote para os formatos e as etapas.
+    // Cada linha rejeitada aparece no relatório com o número da linha e o motivo.
+
+    public RelatorioImportacao importarPacientes(Path arquivo) throws IOException {
+        long inicio = System.nanoTime();
+        RelatorioImportacao relatorio = ImportadorLote.importarPacientes(this, arquivo);
+        agendarCompactacao(registrosDesdeCompactacao.get());
+        metricas.registrar(Operacao.IMPORTAR_LOTE, inicio);
+        return relatorio;
+    }
+
+    public RelatorioImportacao importarMedicos(Path arquivo) throws IOException {
+        long inicio = System.nanoTime();
+        RelatorioImportacao relatorio = ImportadorLote.importarMedicos(this, arquivo);
+        agendarCompactacao(registrosDesdeCompactacao.get());
+        metricas.registrar(Operacao.IMPORTAR_LOTE, inicio);
+        return relatorio;
+    }
+
+    public RelatorioImportacao importarConsultas(Path arquivo) throws IOException {
+        long inicio = System.nanoTime();
+        RelatorioImportacao relatorio = ImportadorLote.importarConsultas(this, arquivo);
+        agendarCompactacao(registrosDesdeCompactacao.get());
+        metricas.registrar(Operacao.IMPORTAR_LOTE, inicio);
+        return relatorio;
+    }
+
+    // Inclusão de um lote inteiro com uma única trava de escrita: cada item vai para o diário
+    // (mesmo registro do cadastro individual), o índice recebe o lote de uma vez e o fsync é
+    // aguardado uma só vez, no fim. Retorna, por item, null (incluído) ou o motivo da recusa.
+    String[] incluirPacientes(List<Paciente> lote) {
+        String[] recusas = new String[lote.size()];
+        Map<String, Paciente> novos = new HashMap<>();
+        long registro = 0;
+        travaCadastro.writeLock().lock();
+        try {
+            for (int i = 0; i < lote.size(); i++) {
+                Paciente p = lote.get(i);
+                if (pacientesPorCpf.containsKey(p.getCpf()) || novos.containsKey(p.getCpf())) {
+                    recusas[i] = "Já existe um paciente com o CPF " + p.getCpf();
+                    continue;
+                }
+                registro = registrarNoDiario("PACIENTE|" + p.toCSV(), false);
+                this.pacientes.add(p);
+                versaoPacientes++;
+                pacientesPorNome.adicionar(p);
+                novos.put(p.getCpf(), p);
+            }
+            pacientesPorCpf.putAll(novos);
+        } finally {
+            travaCadastro.writeLock().unlock();
+        }
+        if (!aguardarDiario(registro)) recusarNaoGravados(recusas);
+        return recusas;
+    }
+
+    String[] incluirMedicos(List<Medico> lote) {
+        String[] recusas = new String[lote.size()];
+        Map<String, Medico> novos = new HashMap<>();
+        long registro = 0;
+        travaCadastro.writeLock().lock();
+        try {
+            for (int i = 0; i < lote.size(); i++) {
+                Medico m = lote.get(i);
+                if (medicosPorCrm.containsKey(m.getCrm()) || novos.containsKey(m.getCrm())) {
+                    recusas[i] = "Já existe um médico com o CRM " + m.getCrm();
+                    continue;
+                }
+                registro = registrarNoDiario("MEDICO|" + m.toCSV(), false);
+                this.medicos.add(m);
+                versaoMedicos++;
+                medicosPorNome.adicionar(m);
+                novos.put(m.getCrm(), m);
+            }
+            medicosPorCrm.putAll(novos);
+        } finally {
+            travaCadastro.writeLock().unlock();
+        }
+        if (!aguardarDiario(registro)) recusarNaoGravados(recusas);
+        return recusas;
     }
-    public void cadastrarMedico(Medico m) { 
-        this.medicos.add(m); 
+
+    // Agendamento em lote: mesma regra de conflito de agendarConsulta, incluindo os
+    // horários já reservados pelos itens anteriores do próprio lote
+    String[] agendarConsultas(List<ImportadorLote.PedidoConsulta> lote) {
+        String[] recusas = new String[lote.size()];
+        long registro = 0;
+        travaConsultas.writeLock().lock();
+        try {
+            for (int i = 0; i < lote.size(); i++) {
+                ImportadorLote.PedidoConsulta pedido = lote.get(i);
+                Consulta existente = agenda.conflito(pedido.medico.getCrm(), pedido.dataHora);
+                if (existente != null) {
+                    recusas[i] = "O médico " + pedido.medico.getNome() + " já tem consulta (#" + existente.getId()
+                            + ") às " + existente.getDataHora().toLocalTime() + " de " + existente.getDataHora().toLocalDate();
+                    continue;
+                }
+                Consulta novaConsulta = new Consulta(proximoIdConsulta++, pedido.paciente, pedido.medico, pedido.dataHora, pedido.local);
+                this.consultas.put(novaConsulta.getId(), novaConsulta);
+                versaoConsultas++;
+                agenda.adicionar(novaConsulta);
+                contabilizar(novaConsulta, 1);
+                indexarAtiva(novaConsulta);
+                registro = registrarNoDiario("CONSULTA|" + pedido.paciente.getCpf() + ";" + pedido.medico.getCrm()
+                        + ";" + pedido.dataHora + ";" + pedido.local, false);
+            }
+        } finally {
+            travaConsultas.writeLock().unlock();
+        }
+        if (!aguardarDiario(registro)) recusarNaoGravados(recusas);
+        return recusas;
     }
 
+    // Verificação de conflito e inclusão acontecem sob a mesma trava de escrita:
+    // duas recepções disputando o mesmo horário nunca conseguem as duas
     public boolean agendarConsulta(Paciente p, Medico m, LocalDateTime dataHora, String local) {
-        Consulta novaConsulta = new Consulta(p, m, dataHora, local);
-        return this.consultas.add(novaConsulta);
+        long inicio = System.nanoTime();
+        long registro;
+        travaConsultas.writeLock().lock();
+        try {
+            // Regra de negócio: o médico não pode ter duas consultas no mesmo horário
+            Consulta existente = agenda.conflito(m.getCrm(), dataHora);
+            if (existente != null) {
+                mensagens().println("[ERRO] O médico " + m.getNome() + " já tem consulta às "
+                        + existente.getDataHora().toLocalTime() + " de " + existente.getDataHora().toLocalDate() + ".");
+                return metricas.registrar(Operacao.AGENDAR_CONSULTA, inicio, false);
+            }
+            Consulta novaConsulta = new Consulta(proximoIdConsulta++, p, m, dataHora, local);
+            this.consultas.put(novaConsulta.getId(), novaConsulta);
+            versaoConsultas++;
+            agenda.adicionar(novaConsulta);
+            contabilizar(novaConsulta, 1);
+            indexarAtiva(novaConsulta);
+            registro = registrarNoDiario("CONSULTA|" + p.getCpf() + ";" + m.getCrm() + ";" + dataHora + ";" + local);
+        } finally {
+            travaConsultas.writeLock().unlock();
+        }
+        return metricas.registrar(Operacao.AGENDAR_CONSULTA, inicio, aguardarDiario(registro));
     }
     
     //MÉTODO: Agendar Consulta por CPF e CRM
@@ -53,11 +396,11 @@ public class Hospital implements Serializable {
         Medico m = buscarMedicoPorCrm(crmMedico);
         
         if (p == null) {
-            System.out.println("[ERRO] Paciente com CPF " + cpfPaciente + " não encontrado.");
+            mensagens().println("[ERRO] Paciente com CPF " + cpfPaciente + " não encontrado.");
             return false;
         }
         if (m == null) {
-            System.out.println("[ERRO] Médico com CRM " + crmMedico + " não encontrado.");
+            mensagens().println("[ERRO] Médico com CRM " + crmMedico + " não encontrado.");
             return false;
         }
         
@@ -66,8 +409,73 @@ public class Hospital implements Serializable {
     }
     
     public boolean agendarInternacao(Paciente p, Medico m, LocalDate dataEntrada, int numeroQuarto) {
-        Internacao novaInternacao = new Internacao(p, m, dataEntrada, numeroQuarto);
-        return this.internacoes.add(novaInternacao);
+        long inicio = System.nanoTime();
+        long registro;
+        travaInternacoes.writeLock().lock();
+        try {
+            // Regra de negócio: não permitir duas internações no mesmo quarto simultaneamente
+            if (!ocupacao.existe(numeroQuarto)) {
+                mensagens().println("[ERRO] Quarto " + numeroQuarto + " não existe (quartos de 1 a " + ocupacao.getTotalQuartos() + ").");
+                return metricas.registrar(Operacao.AGENDAR_INTERNACAO, inicio, false);
+            }
+            Internacao ocupante = ocupacao.conflito(numeroQuarto, dataEntrada, null);
+            if (ocupante != null) {
+                mensagens().println("[ERRO] Quarto " + numeroQuarto + " já está ocupado por "
+                        + ocupante.getPaciente().getNome() + " (entrada em " + ocupante.getDataEntrada() + ").");
+                return metricas.registrar(Operacao.AGENDAR_INTERNACAO, inicio, false);
+            }
+            internar(p, m, dataEntrada, numeroQuarto);
+            // Quem estava na fila e foi internado direto sai dela
+            PedidoInternacao pedido = filaInternacao.pedidoDoPaciente(p);
+            if (pedido != null) atendido(filaInternacao.remover(pedido.getId()));
+            registro = registrarNoDiario("INTERNACAO|" + p.getCpf() + ";" + m.getCrm() + ";" + dataEntrada + ";" + numeroQuarto);
+        } finally {
+            travaInternacoes.writeLock().unlock();
+        }
+        return metricas.registrar(Operacao.AGENDAR_INTERNACAO, inicio, aguardarDiario(registro));
+    }
+
+    // Cria a internação ativa e ocupa o quarto (com a trava de escrita das internações)
+    private Internacao internar(Paciente p, Medico m, LocalDate dataEntrada, int numeroQuarto) {
+        Internacao novaInternacao = new Internacao(proximoIdInternacao++, p, m, dataEntrada, numeroQuarto);
+        this.internacoes.put(novaInternacao.getId(), novaInternacao);
+        versaoInternacoes++;
+        ocupacao.ocupar(novaInternacao);
+        contabilizar(novaInternacao, 1);
+        if (datasProntas) internacoesPorEntrada.adicionarAtiva(dataEntrada, novaInternacao.getId(), novaInternacao);
+        return novaInternacao;
+    }
+
+    // Interna o primeiro da fila no quarto que acabou de vagar, se ninguém o reservou a partir da data
+    private void atenderFila(int numeroQuarto, LocalDate data) {
+        if (filaInternacao.isVazia() || ocupacao.conflito(numeroQuarto, data, null) != null) return;
+        PedidoInternacao pedido = filaInternacao.retirarPrimeiro();
+        internar(pedido.getPaciente(), pedido.getMedicoResponsavel(), data, numeroQuarto);
+        mensagens().println("[INFO] Quarto " + numeroQuarto + " atribuído a " + pedido.getPaciente().getNome()
+                + " (fila de internação, urgência " + pedido.getUrgencia() + ").");
+        atendido(pedido);
+    }
+
+    // Atende a fila enquanto houver quarto livre a partir da data (sem reserva dali em diante)
+    private void atenderComQuartosLivres(LocalDate data) {
+        while (!filaInternacao.isVazia()) {
+            int quarto = ocupacao.menorQuartoLivre(data, null);
+            if (quarto < 0) return;
+            atenderFila(quarto, data);
+        }
+    }
+
+    // Internação ativa do paciente, ou null. Há no máximo uma ativa por quarto, então a busca
+    // linear custa O(quartos) (com a trava das internações)
+    private Internacao internacaoAtivaDe(Paciente p) {
+        for (Internacao i : internacoes.values()) {
+            if (i.getPaciente() == p) return i;
+        }
+        return null;
+    }
+
+    private void atendido(PedidoInternacao pedido) {
+        if (!reproduzindoDiario) metricas.registrarEspera(Duration.between(pedido.getChegada(), LocalDateTime.now()));
     }
 
     public boolean agendarInternacao(String cpfPaciente, String crmMedico, LocalDate dataEntrada, int numeroQuarto) {
@@ -75,311 +483,1753 @@ public class Hospital implements Serializable {
         Medico m = buscarMedicoPorCrm(crmMedico);
         
         if (p == null) {
-            System.out.println("[ERRO] Paciente com CPF " + cpfPaciente + " não encontrado.");
+            mensagens().println("[ERRO] Paciente com CPF " + cpfPaciente + " não encontrado.");
             return false;
         }
         if (m == null) {
-            System.out.println("[ERRO] Médico com CRM " + crmMedico + " não encontrado.");
+            mensagens().println("[ERRO] Médico com CRM " + crmMedico + " não encontrado.");
             return false;
         }
         
         return agendarInternacao(p, m, dataEntrada, numeroQuarto);
     }
 
+    // --- FILA DE INTERNAÇÃO ---
 
-    public boolean concluirERemoverConsulta(int indice, String diagnostico) {
-        if (indice >= 0 && indice < consultas.size()) {
-            Consulta c = consultas.get(indice);
-            
-            // 1. Conclui a consulta (atualiza status e diagnóstico no objeto)
-            c.concluir(diagnostico);
+    // Coloca o paciente na fila de espera por quarto (urgência de 1, eletiva, a 5, emergência)
+    public boolean entrarNaFilaInternacao(Paciente p, Medico m, int urgencia) {
+        return entrarNaFilaInternacao(p, m, urgencia, LocalDateTime.now());
+    }
+
+    public boolean entrarNaFilaInternacao(String cpfPaciente, String crmMedico, int urgencia) {
+        Paciente p = buscarPacientePorCpf(cpfPaciente);
+        Medico m = buscarMedicoPorCrm(crmMedico);
+        if (p == null) {
+            mensagens().println("[ERRO] Paciente com CPF " + cpfPaciente + " não encontrado.");
+            return false;
+        }
+        if (m == null) {
+            mensagens().println("[ERRO] Médico com CRM " + crmMedico + " não encontrado.");
+            return false;
+        }
+        return entrarNaFilaInternacao(p, m, urgencia);
+    }
+
+    // A chegada vai no diário, para a reaplicação refazer a mesma ordem
+    private boolean entrarNaFilaInternacao(Paciente p, Medico m, int urgencia, LocalDateTime chegada) {
+        if (!urgenciaValida(urgencia)) return false;
+        long registro;
+        travaInternacoes.writeLock().lock();
+        try {
+            if (filaInternacao.pedidoDoPaciente(p) != null) {
+                mensagens().println("[ERRO] O paciente " + p.getNome() + " já está na fila de internação.");
+                return false;
+            }
+            Internacao ativa = internacaoAtivaDe(p);
+            if (ativa != null) {
+                mensagens().println("[ERRO] O paciente " + p.getNome() + " já está internado no quarto "
+                        + ativa.getNumeroQuarto() + " (internação #" + ativa.getId() + ").");
+                return false;
+            }
+            filaInternacao.adicionar(new PedidoInternacao(proximoIdPedido++, p, m, urgencia, chegada));
+            // Com quarto livre, o pedido não espera a próxima alta: entra hoje, na ordem da fila
+            atenderComQuartosLivres(chegada.toLocalDate());
+            registro = registrarNoDiario("FILA_INTERNACAO|" + p.getCpf() + ";" + m.getCrm() + ";" + urgencia + ";" + chegada);
+        } finally {
+            travaInternacoes.writeLock().unlock();
+        }
+        return aguardarDiario(registro);
+    }
+
+    public boolean alterarUrgencia(long idPedido, int urgencia) {
+        if (!urgenciaValida(urgencia)) return false;
+        long registro;
+        travaInternacoes.writeLock().lock();
+        try {
+            if (filaInternacao.reprioritizar(idPedido, urgencia) == null) {
+                mensagens().println("[ERRO] Pedido " + idPedido + " não está na fila de internação.");
+                return false;
+            }
+            registro = registrarNoDiario("URGENCIA_PEDIDO|" + idPedido + "|" + urgencia);
+        } finally {
+            travaInternacoes.writeLock().unlock();
+        }
+        return aguardarDiario(registro);
+    }
+
+    // Desistência: o pedido sai da fila sem internação
+    public boolean sairDaFilaInternacao(long idPedido) {
+        long registro;
+        travaInternacoes.writeLock().lock();
+        try {
+            if (filaInternacao.remover(idPedido) == null) {
+                mensagens().println("[ERRO] Pedido " + idPedido + " não está na fila de internação.");
+                return false;
+            }
+            registro = registrarNoDiario("SAIR_FILA|" + idPedido);
+        } finally {
+            travaInternacoes.writeLock().unlock();
+        }
+        return aguardarDiario(registro);
+    }
+
+    // Pedidos na ordem em que serão atendidos
+    public List<PedidoInternacao> getFilaInternacao() {
+        travaInternacoes.readLock().lock();
+        try {
+            return filaInternacao.pedidos();
+        } finally {
+            travaInternacoes.readLock().unlock();
+        }
+    }
+
+    private boolean urgenciaValida(int urgencia) {
+        if (urgencia < PedidoInternacao.URGENCIA_MINIMA || urgencia > PedidoInternacao.URGENCIA_MAXIMA) {
+            mensagens().println("[ERRO] Urgência deve ser de " + PedidoInternacao.URGENCIA_MINIMA + " a "
+                    + PedidoInternacao.URGENCIA_MAXIMA + ".");
+            return false;
+        }
+        return true;
+    }
+
+
+    public boolean concluirERemoverConsulta(long id, String diagnostico) {
+        long inicio = System.nanoTime();
+        long registro;
+        travaConsultas.writeLock().lock();
+        try {
+            Consulta c = consultas.get(id);
+            if (c == null) {
+                return metricas.registrar(Operacao.CONCLUIR_CONSULTA, inicio, false);
+            }
             
-            // 2. Adiciona ao histórico do paciente
-            c.getPaciente().adicionarConsulta(c);
+            // 1. Conclui a consulta (numa cópia: a ativa não muda, ver Consulta.concluida)
+            Consulta concluida = c.concluida(diagnostico);
+            contabilizar(c, -1);
+            contabilizar(concluida, 1);
             
-            // 3. Remove da lista de consultas ativas 
-            consultas.remove(indice);
+            // 2. Move para o histórico (registro no arquivo, encadeado ao paciente)
+            int linha = arquivoConsultas.arquivar(concluida);
+            diagnosticos.adicionar(linha);
+            if (datasProntas) {
+                consultasPorDia.removerAtiva(c.getDataHora().toLocalDate(), id);
+                consultasPorDia.adicionarLinha(arquivoConsultas.getEpochDia(linha), linha);
+            }
             
-            return true;
+            // 3. Remove da lista de consultas ativas e libera o horário na agenda
+            consultas.remove(id);
+            versaoConsultas++;
+            agenda.remover(c);
+
+            registro = registrarNoDiario("CONCLUIR_CONSULTA_ID|" + id + "|" + diagnostico);
+        } finally {
+            travaConsultas.writeLock().unlock();
         }
-        return false;
+        return metricas.registrar(Operacao.CONCLUIR_CONSULTA, inicio, aguardarDiario(registro));
     }
 
-       public boolean concluirERemoverInternacao(int indice, LocalDate dataSaida) {
-        if (indice >= 0 && indice < internacoes.size()) {
-            Internacao i = internacoes.get(indice);
-            
-            // 1. Conclui a internação (atualiza status e data de saída no objeto)
-            i.finalizar(dataSaida);
+    public boolean concluirERemoverInternacao(long id, LocalDate dataSaida) {
+        long inicio = System.nanoTime();
+        long registro;
+        travaInternacoes.writeLock().lock();
+        try {
+            Internacao i = internacoes.get(id);
+            if (i == null) {
+                return metricas.registrar(Operacao.CONCLUIR_INTERNACAO, inicio, false);
+            }
             
-            // 2. Adiciona ao histórico do paciente
-            i.getPaciente().adicionarInternacao(i);
+            // 1. Conclui a internação (numa cópia: a ativa não muda, ver Internacao.finalizada)
+            Internacao finalizada = i.finalizada(dataSaida);
+            mensagens().println("[INFO] Internação finalizada em " + dataSaida);
+            contabilizar(i, -1);
+            contabilizar(finalizada, 1);
             
-            // 3. Remove da lista de internações ativas
-            internacoes.remove(indice);
+            // 2. Move para o histórico (registro no arquivo, encadeado ao paciente)
+            int linha = arquivoInternacoes.arquivar(finalizada);
+            if (datasProntas) {
+                internacoesPorEntrada.removerAtiva(i.getDataEntrada(), id);
+                indexarArquivada(linha);
+            }
             
-            return true;
+            // 3. Remove da lista de internações ativas e libera o quarto (o período fica no histórico)
+            internacoes.remove(id);
+            versaoInternacoes++;
+            ocupacao.liberar(i);
+
+            // 4. O quarto liberado vai para o primeiro da fila de espera
+            atenderFila(finalizada.getNumeroQuarto(), dataSaida);
+
+            registro = registrarNoDiario("CONCLUIR_INTERNACAO_ID|" + id + "|" + dataSaida);
+        } finally {
+            travaInternacoes.writeLock().unlock();
+        }
+        return metricas.registrar(Operacao.CONCLUIR_INTERNACAO, inicio, aguardarDiario(registro));
+    }
+
+    // --- FATURAMENTO ---
+    // Os agregados são atualizados a cada agendamento/conclusão (com a trava da partição)
+    // e refeitos do zero na primeira consulta depois de uma carga. As consultas custam O(1) ou O(grupos).
+
+    public ResumoFaturamento faturamentoTotal() {
+        garantirFaturamento();
+        travaConsultas.readLock().lock();
+        travaInternacoes.readLock().lock();
+        try {
+            return new ResumoFaturamento(faturamentoConsultas.getTotal(), faturamentoInternacoes.getTotal());
+        } finally {
+            travaInternacoes.readLock().unlock();
+            travaConsultas.readLock().unlock();
+        }
+    }
+
+    // Chave: CRM
+    public Map<String, ResumoFaturamento> faturamentoPorMedico() {
+        return faturamentoPor(AgregadosFaturamento.Dimensao.MEDICO);
+    }
+
+    public Map<String, ResumoFaturamento> faturamentoPorEspecialidade() {
+        return faturamentoPor(AgregadosFaturamento.Dimensao.ESPECIALIDADE);
+    }
+
+    // Pacientes comuns aparecem como "Sem plano"
+    public Map<String, ResumoFaturamento> faturamentoPorPlano() {
+        return faturamentoPor(AgregadosFaturamento.Dimensao.PLANO);
+    }
+
+    // Dias de [inicio, fim] (ambos inclusive) que tiveram movimento, em ordem
+    public SortedMap<LocalDate, ResumoFaturamento> faturamentoPorDia(LocalDate inicio, LocalDate fim) {
+        SortedMap<LocalDate, ResumoFaturamento> resultado = new TreeMap<>();
+        garantirFaturamento();
+        travaConsultas.readLock().lock();
+        travaInternacoes.readLock().lock();
+        try {
+            NavigableMap<LocalDate, AgregadosFaturamento.Acumulado> internacoesPorDia = faturamentoInternacoes.dias(inicio, fim);
+            for (Map.Entry<LocalDate, AgregadosFaturamento.Acumulado> dia : faturamentoConsultas.dias(inicio, fim).entrySet()) {
+                resultado.put(dia.getKey(), new ResumoFaturamento(dia.getValue(), internacoesPorDia.get(dia.getKey())));
+            }
+            for (Map.Entry<LocalDate, AgregadosFaturamento.Acumulado> dia : internacoesPorDia.entrySet()) {
+                if (!resultado.containsKey(dia.getKey())) {
+                    resultado.put(dia.getKey(), new ResumoFaturamento(null, dia.getValue()));
+                }
+            }
+        } finally {
+            travaInternacoes.readLock().unlock();
+            travaConsultas.readLock().unlock();
+        }
+        return resultado;
+    }
+
+    // Soma dos dias de [inicio, fim] (ex.: o mês inteiro)
+    public ResumoFaturamento faturamentoNoPeriodo(LocalDate inicio, LocalDate fim) {
+        AgregadosFaturamento.Acumulado consultas = new AgregadosFaturamento.Acumulado();
+        AgregadosFaturamento.Acumulado internacoes = new AgregadosFaturamento.Acumulado();
+        garantirFaturamento();
+        travaConsultas.readLock().lock();
+        travaInternacoes.readLock().lock();
+        try {
+            for (AgregadosFaturamento.Acumulado dia : faturamentoConsultas.dias(inicio, fim).values()) {
+                consultas.somar(dia);
+            }
+            for (AgregadosFaturamento.Acumulado dia : faturamentoInternacoes.dias(inicio, fim).values()) {
+                internacoes.somar(dia);
+            }
+        } finally {
+            travaInternacoes.readLock().unlock();
+            travaConsultas.readLock().unlock();
         }
-        return false;
+        return new ResumoFaturamento(consultas, internacoes);
+    }
+
+    private Map<String, ResumoFaturamento> faturamentoPor(AgregadosFaturamento.Dimensao dimensao) {
+        Map<String, ResumoFaturamento> resultado = new TreeMap<>();
+        garantirFaturamento();
+        travaConsultas.readLock().lock();
+        travaInternacoes.readLock().lock();
+        try {
+            Map<String, AgregadosFaturamento.Acumulado> internacoesPorGrupo = faturamentoInternacoes.porDimensao(dimensao);
+            for (Map.Entry<String, AgregadosFaturamento.Acumulado> grupo : faturamentoConsultas.porDimensao(dimensao).entrySet()) {
+                resultado.put(grupo.getKey(), new ResumoFaturamento(grupo.getValue(), internacoesPorGrupo.get(grupo.getKey())));
+            }
+            for (Map.Entry<String, AgregadosFaturamento.Acumulado> grupo : internacoesPorGrupo.entrySet()) {
+                if (!resultado.containsKey(grupo.getKey())) {
+                    resultado.put(grupo.getKey(), new ResumoFaturamento(null, grupo.getValue()));
+                }
+            }
+        } finally {
+            travaInternacoes.readLock().unlock();
+            travaConsultas.readLock().unlock();
+        }
+        return resultado;
+    }
+
+    // Consultas agendadas entram como previstas pelo valor cobrado; concluídas, como realizadas.
+    // Chamado com a trava de escrita das consultas; enquanto os agregados não foram montados, nada a fazer.
+    private void contabilizar(Consulta c, int sinal) {
+        if (!faturamentoPronto || c.getStatus() == StatusConsulta.CANCELADA) return;
+        faturamentoConsultas.registrar(c.getMedico(), c.getPaciente(), c.getDataHora().toLocalDate(),
+                c.getStatus() == StatusConsulta.CONCLUIDA, c.getValorCobrado(), sinal);
+    }
+
+    // Internações ativas contam pela data de entrada (sem valor); concluídas, pelo custo total
+    // no dia da alta. Chamado com a trava de escrita das internações.
+    private void contabilizar(Internacao i, int sinal) {
+        if (!faturamentoPronto) return;
+        if (i.getStatus() == StatusInternacao.ATIVA) {
+            faturamentoInternacoes.registrar(i.getMedicoResponsavel(), i.getPaciente(), i.getDataEntrada(), false, 0, sinal);
+        } else if (i.getStatus() == StatusInternacao.CONCLUIDA && i.getDataSaida() != null) {
+            faturamentoInternacoes.registrar(i.getMedicoResponsavel(), i.getPaciente(), i.getDataSaida(), true,
+                    i.calcularCustoTotal(), sinal);
+        }
+    }
+
+    // Monta os agregados a partir das ativas e dos históricos, se ainda não foram montados
+    private void garantirFaturamento() {
+        if (faturamentoPronto) return;
+        travaCadastro.readLock().lock();
+        travaConsultas.writeLock().lock();
+        travaInternacoes.writeLock().lock();
+        try {
+            if (faturamentoPronto) return; // outra thread montou enquanto esperávamos as travas
+            faturamentoPronto = true;
+            faturamentoConsultas.limpar();
+            faturamentoInternacoes.limpar();
+            for (Consulta c : consultas.values()) {
+                contabilizar(c, 1);
+            }
+            for (Internacao i : internacoes.values()) {
+                contabilizar(i, 1);
+            }
+            // Consultas arquivadas direto dos registros; internações (bem menos numerosas) recriadas
+            // para usar a regra de custo
+            for (int l = 0; l < arquivoConsultas.tamanho(); l++) {
+                if (arquivoConsultas.getStatus(l) == StatusConsulta.CANCELADA) continue;
+                faturamentoConsultas.registrar(arquivoConsultas.getMedico(l), arquivoConsultas.getPaciente(l),
+                        arquivoConsultas.getDia(l), arquivoConsultas.getStatus(l) == StatusConsulta.CONCLUIDA,
+                        arquivoConsultas.getValorCobrado(l), 1);
+            }
+            for (int l = 0; l < arquivoInternacoes.tamanho(); l++) {
+                contabilizar(arquivoInternacoes.internacao(l), 1);
+            }
+        } finally {
+            travaInternacoes.writeLock().unlock();
+            travaConsultas.writeLock().unlock();
+            travaCadastro.readLock().unlock();
+        }
+    }
+
+    // Chamado com a trava de escrita das consultas
+    private void indexarAtiva(Consulta c) {
+        if (datasProntas) consultasPorDia.adicionarAtiva(c.getDataHora().toLocalDate(), c.getId(), c);
+    }
+
+    // Chamado com a trava de escrita das internações
+    private void indexarArquivada(int linha) {
+        internacoesPorEntrada.adicionarLinha(arquivoInternacoes.getEpochEntrada(linha), linha);
+        int saida = arquivoInternacoes.getEpochSaida(linha);
+        if (saida != Integer.MIN_VALUE) internacoesPorSaida.adicionarLinha(saida, linha);
+    }
+
+    // Monta os índices por dia a partir das ativas e dos históricos, se ainda não foram montados
+    // (o histórico é lido só pelas colunas de data)
+    private void garantirDatas() {
+        if (datasProntas) return;
+        travaConsultas.writeLock().lock();
+        travaInternacoes.writeLock().lock();
+        try {
+            if (datasProntas) return; // outra thread montou enquanto esperávamos as travas
+            consultasPorDia.limpar();
+            internacoesPorEntrada.limpar();
+            internacoesPorSaida.limpar();
+            for (Consulta c : consultas.values()) {
+                consultasPorDia.adicionarAtiva(c.getDataHora().toLocalDate(), c.getId(), c);
+            }
+            for (int l = 0; l < arquivoConsultas.tamanho(); l++) {
+                consultasPorDia.adicionarLinha(arquivoConsultas.getEpochDia(l), l);
+            }
+            for (Internacao i : internacoes.values()) {
+                internacoesPorEntrada.adicionarAtiva(i.getDataEntrada(), i.getId(), i);
+            }
+            for (int l = 0; l < arquivoInternacoes.tamanho(); l++) {
+                indexarArquivada(l);
+            }
+            datasProntas = true;
+        } finally {
+            travaInternacoes.writeLock().unlock();
+            travaConsultas.writeLock().unlock();
+        }
+    }
+
+    // Índice de diagnósticos a partir do histórico (depois de carregar CSV, ou se o arquivo
+    // do índice não corresponder ao snapshot)
+    private void reconstruirDiagnosticos() {
+        travaConsultas.writeLock().lock();
+        try {
+            diagnosticos.limpar();
+            for (int l = 0; l < arquivoConsultas.tamanho(); l++) {
+                diagnosticos.adicionar(l);
+            }
+        } finally {
+            travaConsultas.writeLock().unlock();
+        }
+    }
+
+    // Lê o índice gravado com o snapshot; se faltar ou não bater (segmento, quantidade), reconstrói
+    private void carregarDiagnosticos() {
+        Path arquivo = diretorioDados.resolve(DIAGNOSTICOS_FILE);
+        travaConsultas.writeLock().lock();
+        try {
+            if (Files.exists(arquivo)) {
+                if (diagnosticos.carregar(arquivo, ultimoSegmentoIncluido)) return;
+                mensagens().println("[AVISO] Índice de diagnósticos desatualizado; reconstruindo.");
+            }
+        } catch (IOException e) {
+            String motivo = (e.getMessage() != null) ? e.getMessage() : "arquivo incompleto";
+            mensagens().println("[AVISO] Falha ao ler o índice de diagnósticos (" + motivo + "); reconstruindo.");
+        } finally {
+            travaConsultas.writeLock().unlock();
+        }
+        reconstruirDiagnosticos();
     }
 
     // --- MÉTODOS DE BUSCA ---
 
+    /**
+     * Consultas concluídas cujo diagnóstico contém os termos, em ordem de id. Espaço = E,
+     * "ou" (ou "|") = OU: "pneumonia ou bronquite aguda". Do filtro valem médico, período
+     * (pela data da consulta), paciente e o intervalo/página.
+     */
+    public List<Consulta> buscarPorDiagnostico(String termos, FiltroRelatorio filtro) {
+        List<Consulta> pagina = new ArrayList<>();
+        travaConsultas.readLock().lock();
+        try {
+            // O índice devolve linhas do arquivo; só as da página viram Consulta
+            int aceitas = 0;
+            for (int linha : diagnosticos.buscar(termos, filtro.getCrmMedico(), filtro.getInicio(), filtro.getFim())) {
+                if (!filtro.aceita(arquivoConsultas, linha)) continue;
+                if (aceitas++ < filtro.getDeslocamento()) continue;
+                if (pagina.size() == filtro.getLimite()) break;
+                pagina.add(arquivoConsultas.consulta(linha));
+            }
+        } finally {
+            travaConsultas.readLock().unlock();
+        }
+        return pagina;
+    }
+
     public Paciente buscarPacientePorCpf(String cpf) {
-        return pacientes.stream()
-                .filter(p -> p.getCpf().equals(cpf))
-                .findFirst()
-                .orElse(null);
+        metricas.contarBusca();
+        return pacientesPorCpf.get(cpf);
     }
 
     public Medico buscarMedicoPorCrm(String crm) {
-        return medicos.stream()
-                .filter(m -> m.getCrm().equals(crm))
-                .findFirst()
-                .orElse(null);
+        metricas.contarBusca();
+        return medicosPorCrm.get(crm);
+    }
+
+    // Busca por nome para o balcão (sem CPF/CRM em mãos), sem diferenciar acentos e maiúsculas:
+    // primeiro os nomes que começam com o texto digitado; se não completar o limite, os
+    // parecidos (erros de digitação), do mais ao menos próximo
+    public List<Paciente> buscarPacientesPorNome(String nome, int limite) {
+        metricas.contarBusca();
+        travaCadastro.readLock().lock();
+        try {
+            return buscarPorNome(pacientesPorNome, nome, limite);
+        } finally {
+            travaCadastro.readLock().unlock();
+        }
+    }
+
+    public List<Medico> buscarMedicosPorNome(String nome, int limite) {
+        metricas.contarBusca();
+        travaCadastro.readLock().lock();
+        try {
+            return buscarPorNome(medicosPorNome, nome, limite);
+        } finally {
+            travaCadastro.readLock().unlock();
+        }
+    }
+
+    private static <T extends Pessoa> List<T> buscarPorNome(IndiceNomes<T> indice, String nome, int limite) {
+        List<T> encontrados = indice.buscarPorPrefixo(nome, limite);
+        if (encontrados.size() < limite) {
+            for (T p : indice.buscarAproximado(nome, limite)) {
+                if (encontrados.size() == limite) break;
+                if (!encontrados.contains(p)) encontrados.add(p);
+            }
+        }
+        return encontrados;
+    }
+
+    // Mesmas buscas, para uso interno (não contam nas métricas)
+    Paciente pacienteDoCpf(String cpf) { return pacientesPorCpf.get(cpf); }
+    Medico medicoDoCrm(String crm) { return medicosPorCrm.get(crm); }
+
+
+    // --- AGENDA DOS MÉDICOS ---
+
+    public Duration getDuracaoConsulta() {
+        travaConsultas.readLock().lock();
+        try {
+            return agenda.getDuracaoConsulta();
+        } finally {
+            travaConsultas.readLock().unlock();
+        }
+    }
+
+    // Recusada se alguma consulta agendada passaria a sobrepor a seguinte do mesmo médico. Vai para
+    // o diário e o snapshot: a reaplicação dos agendamentos verifica conflitos com a duração vigente.
+    public boolean setDuracaoConsulta(Duration duracao) {
+        if (duracao.isZero() || duracao.isNegative()) {
+            mensagens().println("[ERRO] A duração da consulta deve ser positiva.");
+            return false;
+        }
+        long registro;
+        travaConsultas.writeLock().lock();
+        try {
+            Consulta sobreposta = agenda.sobreposicaoCom(duracao);
+            if (sobreposta != null) {
+                mensagens().println("[ERRO] Com " + duracao.toMinutes() + " minutos, a consulta de "
+                        + sobreposta.getDataHora().toLocalDate() + " às " + sobreposta.getDataHora().toLocalTime()
+                        + " do médico " + sobreposta.getMedico().getNome() + " sobreporia a seguinte.");
+                return false;
+            }
+            agenda.setDuracaoConsulta(duracao);
+            registro = registrarNoDiario("DURACAO_CONSULTA|" + duracao);
+        } finally {
+            travaConsultas.writeLock().unlock();
+        }
+        return aguardarDiario(registro);
+    }
+
+    public boolean medicoDisponivel(String crm, LocalDateTime dataHora) {
+        travaConsultas.readLock().lock();
+        try {
+            return agenda.estaLivre(crm, dataHora);
+        } finally {
+            travaConsultas.readLock().unlock();
+        }
+    }
+
+    // Consultas agendadas do médico que começam em [inicio, fim)
+    public List<Consulta> agendaDoMedico(String crm, LocalDateTime inicio, LocalDateTime fim) {
+        travaConsultas.readLock().lock();
+        try {
+            return agenda.consultasEntre(crm, inicio, fim);
+        } finally {
+            travaConsultas.readLock().unlock();
+        }
+    }
+
+    public void setJornadaPadrao(JornadaTrabalho jornada) {
+        travaConsultas.writeLock().lock();
+        try {
+            jornadaPadrao = jornada;
+        } finally {
+            travaConsultas.writeLock().unlock();
+        }
+    }
+
+    // Jornada própria do médico (null volta para a padrão)
+    public void setJornada(String crm, JornadaTrabalho jornada) {
+        travaConsultas.writeLock().lock();
+        try {
+            if (jornada == null) jornadasPorMedico.remove(crm);
+            else jornadasPorMedico.put(crm, jornada);
+        } finally {
+            travaConsultas.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Os primeiros horários livres a partir de aPartirDe entre todos os médicos da especialidade
+     * (sem diferenciar maiúsculas), em ordem de horário, segundo a jornada de cada um (ver
+     * BuscaHorarios). Com preferirMenorCusto, no mesmo horário vem o médico mais barato.
+     */
+    public List<HorarioLivre> primeirosHorariosLivres(String especialidade, LocalDateTime aPartirDe, int quantidade,
+                                                      boolean preferirMenorCusto) {
+        List<Medico> daEspecialidade = new ArrayList<>();
+        travaCadastro.readLock().lock();
+        try {
+            for (Medico m : medicos) {
+                if (m.getEspecialidade().equalsIgnoreCase(especialidade.trim())) daEspecialidade.add(m);
+            }
+            travaConsultas.readLock().lock();
+            try {
+                BuscaHorarios busca = new BuscaHorarios(agenda,
+                        m -> jornadasPorMedico.getOrDefault(m.getCrm(), jornadaPadrao));
+                return busca.primeiros(daEspecialidade, aPartirDe, quantidade, preferirMenorCusto);
+            } finally {
+                travaConsultas.readLock().unlock();
+            }
+        } finally {
+            travaCadastro.readLock().unlock();
+        }
+    }
+
+    // --- CONSULTAS POR PERÍODO (ativas e histórico, ver IndiceDatas) ---
+    // O custo depende dos dias com registros no intervalo e do resultado, não do total.
+
+    // Consultas de [inicio, fim] (datas inclusive; null = sem limite), por data/hora e id
+    public List<Consulta> consultasEntre(LocalDate inicio, LocalDate fim) {
+        garantirDatas();
+        List<Consulta> encontradas;
+        travaConsultas.readLock().lock();
+        try {
+            encontradas = consultasPorDia.ativas(inicio, fim);
+            for (int linha : consultasPorDia.linhas(inicio, fim)) {
+                encontradas.add(arquivoConsultas.consulta(linha));
+            }
+        } finally {
+            travaConsultas.readLock().unlock();
+        }
+        encontradas.sort(Comparator.comparing(Consulta::getDataHora).thenComparingLong(Consulta::getId));
+        return encontradas;
+    }
+
+    // Todas as consultas do dia (de todos os médicos), por horário
+    public List<Consulta> agendaDoDia(LocalDate dia) {
+        return consultasEntre(dia, dia);
+    }
+
+    // Quantidade de consultas por dia; dias sem consultas não aparecem
+    public SortedMap<LocalDate, Integer> contarConsultasPorDia(LocalDate inicio, LocalDate fim) {
+        garantirDatas();
+        travaConsultas.readLock().lock();
+        try {
+            return consultasPorDia.contarPorDia(inicio, fim);
+        } finally {
+            travaConsultas.readLock().unlock();
+        }
+    }
+
+    // Internações com entrada em [inicio, fim], por data de entrada e id
+    public List<Internacao> internacoesIniciadasEntre(LocalDate inicio, LocalDate fim) {
+        return internacoesNoIndice(internacoesPorEntrada, inicio, fim, Internacao::getDataEntrada);
+    }
+
+    // Internações com alta em [inicio, fim], por data de saída e id
+    public List<Internacao> altasEntre(LocalDate inicio, LocalDate fim) {
+        return internacoesNoIndice(internacoesPorSaida, inicio, fim, Internacao::getDataSaida);
+    }
+
+    // Quantidade de internações iniciadas por dia; dias sem entradas não aparecem
+    public SortedMap<LocalDate, Integer> contarInternacoesPorDia(LocalDate inicio, LocalDate fim) {
+        garantirDatas();
+        travaInternacoes.readLock().lock();
+        try {
+            return internacoesPorEntrada.contarPorDia(inicio, fim);
+        } finally {
+            travaInternacoes.readLock().unlock();
+        }
+    }
+
+    private List<Internacao> internacoesNoIndice(IndiceDatas<Internacao> indice, LocalDate inicio, LocalDate fim,
+                                                 Function<Internacao, LocalDate> data) {
+        garantirDatas();
+        List<Internacao> encontradas;
+        travaInternacoes.readLock().lock();
+        try {
+            encontradas = indice.ativas(inicio, fim);
+            for (int linha : indice.linhas(inicio, fim)) {
+                encontradas.add(arquivoInternacoes.internacao(linha));
+            }
+        } finally {
+            travaInternacoes.readLock().unlock();
+        }
+        encontradas.sort(Comparator.comparing(data).thenComparingLong(Internacao::getId));
+        return encontradas;
+    }
+
+    // --- OCUPAÇÃO DOS QUARTOS ---
+
+    public int getTotalQuartos() {
+        travaInternacoes.readLock().lock();
+        try {
+            return ocupacao.getTotalQuartos();
+        } finally {
+            travaInternacoes.readLock().unlock();
+        }
+    }
+
+    // Vai para o diário e o snapshot: a reaplicação das internações depende do inventário vigente
+    // (um quarto que ainda não existia recusaria a internação e deslocaria os ids seguintes)
+    public boolean setTotalQuartos(int totalQuartos) {
+        if (totalQuartos < 1) {
+            mensagens().println("[ERRO] O hospital precisa de pelo menos um quarto.");
+            return false;
+        }
+        long registro;
+        travaInternacoes.writeLock().lock();
+        try {
+            ocupacao.setTotalQuartos(totalQuartos);
+            registro = registrarNoDiario("TOTAL_QUARTOS|" + totalQuartos);
+        } finally {
+            travaInternacoes.writeLock().unlock();
+        }
+        return aguardarDiario(registro);
+    }
+
+    // Quarto livre durante [inicio, fim); fim null = internação sem previsão de saída
+    public boolean quartoLivre(int numeroQuarto, LocalDate inicio, LocalDate fim) {
+        travaInternacoes.readLock().lock();
+        try {
+            return ocupacao.existe(numeroQuarto) && ocupacao.conflito(numeroQuarto, inicio, fim) == null;
+        } finally {
+            travaInternacoes.readLock().unlock();
+        }
+    }
+
+    // Menor número de quarto livre em [inicio, fim), ou -1 se não houver
+    public int menorQuartoLivre(LocalDate inicio, LocalDate fim) {
+        travaInternacoes.readLock().lock();
+        try {
+            return ocupacao.menorQuartoLivre(inicio, fim);
+        } finally {
+            travaInternacoes.readLock().unlock();
+        }
     }
 
 
     // --- PERSISTÊNCIA (CSV) ---
+    // Exportação em CSV (a recuperação usa o snapshot binário + diário). Médicos, pacientes,
+    // consultas ativas e internações ativas ficam um arquivo por tipo; o histórico, em partições de
+    // LINHAS_POR_PARTICAO registros (consultas-historico-0000.csv, ...). Só é regravado o que mudou
+    // desde a última gravação: o tipo com versão nova e as partições do histórico que cresceram.
     public void salvarDadosCSV() {
+        long inicio = System.nanoTime();
+        travaSnapshot.lock();
+        try {
+            // O conteúdo do que mudou é montado na memória com as travas de leitura; os arquivos
+            // são gravados depois de liberá-las (como no snapshot, ver compactar)
+            ExportacaoCSV medicosCSV, pacientesCSV, consultasCSV, internacoesCSV;
+            travarTudoParaLeitura();
+            try {
+                medicosCSV = capturarAtivos(medicosGravados, versaoMedicos, medicos, Medico::toCSV);
+                pacientesCSV = capturarAtivos(pacientesGravados, versaoPacientes, pacientes, Paciente::toCSV);
+                consultasCSV = capturarAtivos(consultasGravadas, versaoConsultas, consultas.values(), Consulta::toCSV);
+                capturarHistorico(consultasCSV, historicoConsultasGravado, arquivoConsultas.tamanho(),
+                        l -> arquivoConsultas.consulta(l).toCSV());
+                internacoesCSV = capturarAtivos(internacoesGravadas, versaoInternacoes, internacoes.values(),
+                        Internacao::toCSV);
+                capturarHistorico(internacoesCSV, historicoInternacoesGravado, arquivoInternacoes.tamanho(),
+                        l -> arquivoInternacoes.internacao(l).toCSV());
+            } finally {
+                destravarTudoParaLeitura();
+            }
+            gravarCSV(medicosCSV, pacientesCSV, consultasCSV, internacoesCSV);
+        } finally {
+            travaSnapshot.unlock();
+        }
+        metricas.registrar(Operacao.SALVAR_CSV, inicio);
+    }
+
+    // Um tipo da exportação, capturado com as travas de leitura: as linhas das ativas (null se não
+    // mudaram desde a última gravação) e as das partições do histórico a regravar
+    private static final class ExportacaoCSV {
+        private final String ativos;
+        private final long versao;
+        private final List<String> particoes = new ArrayList<>();
+        private int primeiraParticao;
+        private int historico; // registros do histórico capturados
+
+        ExportacaoCSV(String ativos, long versao) {
+            this.ativos = ativos;
+            this.versao = versao;
+        }
+    }
+
+    private static <T> ExportacaoCSV capturarAtivos(long gravados, long versao, Iterable<T> registros,
+                                                     Function<T, String> csv) {
+        if (gravados == versao) return new ExportacaoCSV(null, versao);
+        StringBuilder linhas = new StringBuilder();
+        for (T r : registros) linhas.append(csv.apply(r)).append(System.lineSeparator());
+        return new ExportacaoCSV(linhas.toString(), versao);
+    }
+
+    // Monta as partições que contêm registros a partir de 'gravados' (a última, incompleta, e as novas)
+    private static void capturarHistorico(ExportacaoCSV exportacao, int gravados, int total, IntFunction<String> linha) {
+        exportacao.historico = total;
+        exportacao.primeiraParticao = gravados / LINHAS_POR_PARTICAO;
+        for (int particao = exportacao.primeiraParticao; gravados < total
+                && particao * LINHAS_POR_PARTICAO < total; particao++) {
+            int ate = Math.min((particao + 1) * LINHAS_POR_PARTICAO, total);
+            StringBuilder linhas = new StringBuilder();
+            for (int l = particao * LINHAS_POR_PARTICAO; l < ate; l++) {
+                linhas.append(linha.apply(l)).append(System.lineSeparator());
+            }
+            exportacao.particoes.add(linhas.toString());
+        }
+    }
+
+    // Com a travaSnapshot (os contadores de gravação só mudam aqui), sem as travas de leitura.
+    // O histórico vai antes das ativas: uma queda entre os dois arquivos pode repetir uma
+    // conclusão nos dois, mas nunca perdê-la.
+    private void gravarCSV(ExportacaoCSV medicosCSV, ExportacaoCSV pacientesCSV,
+                           ExportacaoCSV consultasCSV, ExportacaoCSV internacoesCSV) {
         // Salvamento de Médicos
-        try (PrintWriter writer = new PrintWriter(new FileWriter(MEDICO_FILE))) {
-            writer.println("TIPO;NOME;CPF;IDADE;CRM;ESPECIALIDADE;CUSTO_CONSULTA");
-            for (Medico m : medicos) {
-                writer.println(m.toCSV());
+        if (medicosCSV.ativos == null) {
+            mensagens().println("[INFO] Médicos sem alterações desde a última gravação.");
+        } else {
+            try {
+                gravarArquivo(MEDICO_FILE, CABECALHO_MEDICOS, medicosCSV.ativos);
+                medicosGravados = medicosCSV.versao;
+                mensagens().println("[INFO] Médicos salvos com sucesso.");
+            } catch (IOException e) {
+                mensagens().println("[ERRO] Falha ao salvar arquivo de médicos: " + e.getMessage());
             }
-            System.out.println("[INFO] Médicos salvos com sucesso.");
-        } catch (IOException e) {
-            System.out.println("[ERRO] Falha ao salvar arquivo de médicos: " + e.getMessage());
         }
 
         // Salvamento de Pacientes (incluindo Pacientes Especiais)
-        try (PrintWriter writer = new PrintWriter(new FileWriter(PACIENTE_FILE))) {
-            writer.println("TIPO;NOME;CPF;IDADE;PLANO_NOME(apenas_especial)");
-            for (Paciente p : pacientes) {
-                writer.println(p.toCSV());
+        if (pacientesCSV.ativos == null) {
+            mensagens().println("[INFO] Pacientes sem alterações desde a última gravação.");
+        } else {
+            try {
+                gravarArquivo(PACIENTE_FILE, CABECALHO_PACIENTES, pacientesCSV.ativos);
+                pacientesGravados = pacientesCSV.versao;
+                mensagens().println("[INFO] Pacientes salvos com sucesso.");
+            } catch (IOException e) {
+                mensagens().println("[ERRO] Falha ao salvar arquivo de pacientes: " + e.getMessage());
             }
-            System.out.println("[INFO] Pacientes salvos com sucesso.");
-        } catch (IOException e) {
-            System.out.println("[ERRO] Falha ao salvar arquivo de pacientes: " + e.getMessage());
         }
 
-        // Salvamento de Consultas 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(CONSULTA_FILE))) {
-            writer.println("PACIENTE_CPF;MEDICO_CRM;DATA_HORA;LOCAL;STATUS;DIAGNOSTICO;VALOR_COBRADO");
-            
-            // 1. Salva consultas ativas (AGENDADAS)
-            for (Consulta c : consultas) {
-                writer.println(c.toCSV());
-            }
-            
-            // 2. Salva consultas do histórico dos pacientes (CONCLUÍDAS/CANCELADAS)
-            for (Paciente p : pacientes) {
-                for (Consulta c : p.getHistoricoConsultas()) {
-                    writer.println(c.toCSV());
-                }
+        // Salvamento de Consultas: histórico (CONCLUÍDAS/CANCELADAS) e ativas (AGENDADAS)
+        try {
+            int particoes = gravarParticoes(HISTORICO_CONSULTAS_CSV, CABECALHO_CONSULTAS, consultasCSV);
+            historicoConsultasGravado = consultasCSV.historico;
+            boolean ativas = consultasCSV.ativos != null;
+            if (ativas) {
+                gravarArquivo(CONSULTA_FILE, CABECALHO_CONSULTAS, consultasCSV.ativos);
+                consultasGravadas = consultasCSV.versao;
             }
-            System.out.println("[INFO] Consultas salvas (ativas + histórico) com sucesso.");
+            mensagens().println("[INFO] Consultas salvas: " + (ativas ? "ativas" : "ativas sem alterações")
+                    + ", " + particoes + " partição(ões) do histórico regravada(s).");
         } catch (IOException e) {
-            System.out.println("[ERRO] Falha ao salvar arquivo de consultas: " + e.getMessage());
+            mensagens().println("[ERRO] Falha ao salvar arquivo de consultas: " + e.getMessage());
         }
 
-        // Salvamento de Internações 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(INTERNACAO_FILE))) {
-            writer.println("PACIENTE_CPF;MEDICO_CRM;DATA_ENTRADA;DATA_SAIDA;QUARTO;CUSTO_DIARIO;STATUS");
-            
-            // 1. Salva internações ativas
-            for (Internacao i : internacoes) {
-                writer.println(i.toCSV());
-            }
-            
-            // 2. Salva internações do histórico dos pacientes (Concluídas/Canceladas)
-            for (Paciente p : pacientes) {
-                for (Internacao i : p.getHistoricoInternacoes()) {
-                    writer.println(i.toCSV());
-                }
+        // Salvamento de Internações: histórico (Concluídas/Canceladas) e ativas
+        try {
+            int particoes = gravarParticoes(HISTORICO_INTERNACOES_CSV, CABECALHO_INTERNACOES, internacoesCSV);
+            historicoInternacoesGravado = internacoesCSV.historico;
+            boolean ativas = internacoesCSV.ativos != null;
+            if (ativas) {
+                gravarArquivo(INTERNACAO_FILE, CABECALHO_INTERNACOES, internacoesCSV.ativos);
+                internacoesGravadas = internacoesCSV.versao;
             }
-            System.out.println("[INFO] Internações salvas (ativas + histórico) com sucesso.");
+            mensagens().println("[INFO] Internações salvas: " + (ativas ? "ativas" : "ativas sem alterações")
+                    + ", " + particoes + " partição(ões) do histórico regravada(s).");
         } catch (IOException e) {
-            System.out.println("[ERRO] Falha ao salvar arquivo de internações: " + e.getMessage());
+            mensagens().println("[ERRO] Falha ao salvar arquivo de internações: " + e.getMessage());
+        }
+    }
+
+    // Grava as partições capturadas e apaga partições antigas além do fim. Retorna quantas foram regravadas.
+    private int gravarParticoes(String formato, String cabecalho, ExportacaoCSV exportacao) throws IOException {
+        for (int i = 0; i < exportacao.particoes.size(); i++) {
+            gravarArquivo(String.format(formato, exportacao.primeiraParticao + i), cabecalho, exportacao.particoes.get(i));
+        }
+        int proxima = (exportacao.historico + LINHAS_POR_PARTICAO - 1) / LINHAS_POR_PARTICAO;
+        while (Files.deleteIfExists(diretorioDados.resolve(String.format(formato, proxima)))) {
+            proxima++;
+        }
+        return exportacao.particoes.size();
+    }
+
+    // Grava num temporário e o renomeia por cima do arquivo: uma queda no meio da gravação deixa
+    // o arquivo anterior intacto
+    private void gravarArquivo(String nome, String cabecalho, String linhas) throws IOException {
+        Path destino = diretorioDados.resolve(nome);
+        Path temporario = diretorioDados.resolve(nome + ".tmp");
+        try (FileOutputStream saida = new FileOutputStream(temporario.toFile());
+             PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 1 << 16))) {
+            writer.println(cabecalho);
+            writer.write(linhas);
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("falha ao escrever " + temporario.getFileName());
+            }
+            saida.getChannel().force(true);
+        }
+        Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Partições do histórico gravadas por gravarCSV, em ordem, até a primeira que faltar
+    private List<Path> particoes(String formato) {
+        List<Path> existentes = new ArrayList<>();
+        for (int particao = 0; ; particao++) {
+            Path arquivo = diretorioDados.resolve(String.format(formato, particao));
+            if (!Files.exists(arquivo)) return existentes;
+            existentes.add(arquivo);
         }
     }
 
+    // Cada arquivo é mapeado em memória e convertido em blocos paralelos (ver CarregadorCSV).
+    // Médicos e pacientes são carregados antes, pois consultas e internações os referenciam.
     public void carregarDadosCSV() {
+        long inicio = System.nanoTime();
         // 1. Carregar Médicos
-        try (BufferedReader reader = new BufferedReader(new FileReader(MEDICO_FILE))) {
-            reader.readLine(); // Pular o cabeçalho
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Medico m = Medico.fromCSV(line);
-                if (m != null) {
-                    this.medicos.add(m);
-                }
+        try {
+            for (Medico m : CarregadorCSV.carregar(diretorioDados.resolve(MEDICO_FILE), Medico::fromCSV)) {
+                incluirMedico(m);
             }
-            System.out.println("[INFO] Médicos carregados: " + this.medicos.size());
-        } catch (FileNotFoundException e) {
-            System.out.println("[AVISO] Arquivo de médicos não encontrado. Iniciando com lista vazia.");
+            mensagens().println("[INFO] Médicos carregados: " + this.medicos.size());
+        } catch (NoSuchFileException e) {
+            mensagens().println("[AVISO] Arquivo de médicos não encontrado. Iniciando com lista vazia.");
         } catch (IOException e) {
-            System.out.println("[ERRO] Falha ao carregar arquivo de médicos: " + e.getMessage());
+            mensagens().println("[ERRO] Falha ao carregar arquivo de médicos: " + e.getMessage());
         }
         
         // 2. Carregar Pacientes
-        try (BufferedReader reader = new BufferedReader(new FileReader(PACIENTE_FILE))) {
-            reader.readLine(); // Pular o cabeçalho
-            String line;
-            while ((line = reader.readLine()) != null) {
-                // Passamos a lista de planos para o método estático para que ele encontre a referência
-                Paciente p = Paciente.fromCSV(line, this.planos); 
-                if (p != null) {
-                    this.pacientes.add(p);
-                }
+        try {
+            // Passamos a lista de planos para o método estático para que ele encontre a referência
+            for (Paciente p : CarregadorCSV.carregar(diretorioDados.resolve(PACIENTE_FILE), line -> Paciente.fromCSV(line, this.planos))) {
+                incluirPaciente(p);
             }
-            System.out.println("[INFO] Pacientes carregados: " + this.pacientes.size());
-        } catch (FileNotFoundException e) {
-            System.out.println("[AVISO] Arquivo de pacientes não encontrado. Iniciando com lista vazia.");
+            mensagens().println("[INFO] Pacientes carregados: " + this.pacientes.size());
+        } catch (NoSuchFileException e) {
+            mensagens().println("[AVISO] Arquivo de pacientes não encontrado. Iniciando com lista vazia.");
         } catch (IOException e) {
-            System.out.println("[ERRO] Falha ao carregar arquivo de pacientes: " + e.getMessage());
+            mensagens().println("[ERRO] Falha ao carregar arquivo de pacientes: " + e.getMessage());
         }
         
-        // 3. Carregar Consultas 
-        try (BufferedReader reader = new BufferedReader(new FileReader(CONSULTA_FILE))) {
-            reader.readLine();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                try {
-                    Consulta c = Consulta.fromCSV(line, this);
-                    if (c != null && c.getStatus() == StatusConsulta.AGENDADA) {
-                        this.consultas.add(c);
-                    } else if (c != null && c.getStatus() != StatusConsulta.AGENDADA) {
-                         // Se for concluída/cancelada, adiciona ao histórico do paciente
-                         c.getPaciente().adicionarConsulta(c);
-                    }
-                } catch (DateTimeParseException e) {
-                     System.out.println("[ERRO] Formato de data/hora inválido em Consulta: " + line);
-                }
+        // 3. Carregar Consultas (linhas com CPF/CRM inexistente voltam null e são ignoradas).
+        // O arquivo principal pode trazer o histórico junto (formato antigo); as partições vêm depois.
+        // Uma consulta que está nos dois (queda entre as gravações, ver gravarCSV) vale pelo histórico.
+        try {
+            List<Consulta> lidas = CarregadorCSV.carregar(diretorioDados.resolve(CONSULTA_FILE),
+                    line -> Consulta.fromCSV(line, this), "[ERRO] Formato de data/hora inválido em Consulta: ", mensagens());
+            List<Consulta> historico = new ArrayList<>();
+            for (Path particao : particoes(HISTORICO_CONSULTAS_CSV)) {
+                historico.addAll(CarregadorCSV.carregar(particao, line -> Consulta.fromCSV(line, this),
+                        "[ERRO] Formato de data/hora inválido em Consulta: ", mensagens()));
+            }
+            Set<Long> arquivadas = new HashSet<>();
+            for (Consulta c : historico) arquivadas.add(c.getId());
+            for (Consulta c : lidas) {
+                if (c.getId() == 0 || !arquivadas.contains(c.getId())) incorporarConsulta(c);
+            }
+            for (Consulta c : historico) {
+                incorporarConsulta(c);
             }
-            System.out.println("[INFO] Consultas ativas carregadas: " + this.consultas.size());
-        } catch (FileNotFoundException e) {
-            System.out.println("[AVISO] Arquivo de consultas não encontrado. Iniciando com lista vazia.");
+            mensagens().println("[INFO] Consultas ativas carregadas: " + this.consultas.size());
+        } catch (NoSuchFileException e) {
+            mensagens().println("[AVISO] Arquivo de consultas não encontrado. Iniciando com lista vazia.");
         } catch (IOException e) {
-            System.out.println("[ERRO] Falha ao carregar arquivo de consultas: " + e.getMessage());
+            mensagens().println("[ERRO] Falha ao carregar arquivo de consultas: " + e.getMessage());
         }
 
          // 4. Carregar Internações 
-        try (BufferedReader reader = new BufferedReader(new FileReader(INTERNACAO_FILE))) {
-            reader.readLine();
-            String line;
-            while ((line = reader.readLine()) != null) {
+        try {
+            List<Internacao> lidas = CarregadorCSV.carregar(diretorioDados.resolve(INTERNACAO_FILE),
+                    line -> Internacao.fromCSV(line, this), "[ERRO] Formato de data inválido em Internação: ", mensagens());
+            List<Internacao> historico = new ArrayList<>();
+            for (Path particao : particoes(HISTORICO_INTERNACOES_CSV)) {
+                historico.addAll(CarregadorCSV.carregar(particao, line -> Internacao.fromCSV(line, this),
+                        "[ERRO] Formato de data inválido em Internação: ", mensagens()));
+            }
+            Set<Long> arquivadas = new HashSet<>();
+            for (Internacao i : historico) arquivadas.add(i.getId());
+            for (Internacao i : lidas) {
+                if (i.getId() == 0 || !arquivadas.contains(i.getId())) incorporarInternacao(i);
+            }
+            for (Internacao i : historico) {
+                incorporarInternacao(i);
+            }
+            mensagens().println("[INFO] Internações ativas carregadas: " + this.internacoes.size());
+        } catch (NoSuchFileException e) {
+            mensagens().println("[AVISO] Arquivo de internações não encontrado. Iniciando com lista vazia.");
+        } catch (IOException e) {
+            mensagens().println("[ERRO] Falha ao carregar arquivo de internações: " + e.getMessage());
+        }
+
+        faturamentoPronto = false;
+        datasProntas = false;
+        reconstruirDiagnosticos();
+        metricas.registrar(Operacao.CARREGAR_CSV, inicio);
+    }
+
+    // Coloca um registro já persistido na lista de ativos ou no histórico do paciente.
+    // Registros sem id (formato antigo) recebem o próximo; os demais avançam o contador.
+    // Um ativo que colide com outro já carregado (mesmo id, mesmo médico no mesmo horário ou mesmo
+    // quarto) é recusado com uma mensagem, em vez de sobrescrever o anterior nos índices.
+    // Usado só nas cargas, que remontam faturamento e índices por dia depois (sob demanda).
+    void incorporarConsulta(Consulta c) {
+        travaConsultas.writeLock().lock();
+        try {
+            if (c.getId() != 0) {
+                proximoIdConsulta = Math.max(proximoIdConsulta, c.getId() + 1);
+            }
+            if (c.getStatus() == StatusConsulta.AGENDADA) {
+                String colisao = colisao(c);
+                if (colisao != null) {
+                    mensagens().println("[ERRO] Consulta " + (c.getId() != 0 ? "#" + c.getId() + " " : "")
+                            + "de " + c.getPaciente().getNome() + " não carregada: " + colisao + ".");
+                    return;
+                }
+            }
+            if (c.getId() == 0) {
+                c.atribuirId(proximoIdConsulta++);
+            }
+            if (c.getStatus() == StatusConsulta.AGENDADA) {
+                this.consultas.put(c.getId(), c);
+                versaoConsultas++;
+                agenda.adicionar(c);
+            } else {
+                // Se for concluída/cancelada, vai para o histórico
+                arquivoConsultas.arquivar(c);
+            }
+        } finally {
+            travaConsultas.writeLock().unlock();
+        }
+    }
+
+    // Motivo pelo qual uma consulta agendada não cabe entre as já carregadas, ou null
+    private String colisao(Consulta c) {
+        if (c.getId() != 0 && consultas.containsKey(c.getId())) {
+            return "já existe uma consulta agendada com o id " + c.getId();
+        }
+        Consulta existente = agenda.conflito(c.getMedico().getCrm(), c.getDataHora());
+        if (existente != null) {
+            return "o médico " + c.getMedico().getNome() + " já tem consulta (#" + existente.getId()
+                    + ") às " + existente.getDataHora().toLocalTime() + " de " + existente.getDataHora().toLocalDate();
+        }
+        return null;
+    }
+
+    void incorporarInternacao(Internacao i) {
+        travaInternacoes.writeLock().lock();
+        try {
+            if (i.getId() != 0) {
+                proximoIdInternacao = Math.max(proximoIdInternacao, i.getId() + 1);
+            }
+            if (i.getStatus() == StatusInternacao.ATIVA) {
+                String colisao = colisao(i);
+                if (colisao != null) {
+                    mensagens().println("[ERRO] Internação " + (i.getId() != 0 ? "#" + i.getId() + " " : "")
+                            + "de " + i.getPaciente().getNome() + " não carregada: " + colisao + ".");
+                    return;
+                }
+            }
+            if (i.getId() == 0) {
+                i.atribuirId(proximoIdInternacao++);
+            }
+            if (i.getStatus() == StatusInternacao.ATIVA) {
+                this.internacoes.put(i.getId(), i);
+                versaoInternacoes++;
+                ocupacao.ocupar(i);
+            } else {
+                // Se for concluída/cancelada, vai para o histórico
+                arquivoInternacoes.arquivar(i);
+            }
+        } finally {
+            travaInternacoes.writeLock().unlock();
+        }
+    }
+
+    // Motivo pelo qual uma internação ativa não cabe entre as já carregadas, ou null
+    private String colisao(Internacao i) {
+        if (i.getId() != 0 && internacoes.containsKey(i.getId())) {
+            return "já existe uma internação ativa com o id " + i.getId();
+        }
+        Internacao ocupante = ocupacao.ativa(i.getNumeroQuarto());
+        if (ocupante != null) {
+            return "o quarto " + i.getNumeroQuarto() + " já está ocupado por " + ocupante.getPaciente().getNome()
+                    + " (internação #" + ocupante.getId() + ", entrada em " + ocupante.getDataEntrada() + ")";
+        }
+        return null;
+    }
+
+    // --- SNAPSHOT E DIÁRIO DE OPERAÇÕES ---
+
+    // Carrega o snapshot binário (ou, na primeira execução, os CSV), reaplica o diário
+    // por cima e passa a registrar as alterações
+    public void carregarDados() {
+        long inicio = System.nanoTime();
+        try {
+            Path snapshot = diretorioDados.resolve(SNAPSHOT_FILE);
+            if (Files.exists(snapshot)) {
+                this.ultimoSegmentoIncluido = SnapshotBinario.carregar(this, snapshot);
+                faturamentoPronto = false;
+                datasProntas = false;
+                carregarDiagnosticos();
+                mensagens().println("[INFO] Snapshot carregado: " + medicos.size() + " médicos, "
+                        + pacientes.size() + " pacientes.");
+            } else {
+                carregarDadosCSV();
+                this.ultimoSegmentoIncluido = 0; // sem snapshot, todo o diário vale
+            }
+
+            reproduzindoDiario = true;
+            int aplicados;
+            try {
+                aplicados = DiarioOperacoes.reproduzir(diretorioDados, ultimoSegmentoIncluido, this::aplicarRegistro);
+            } finally {
+                reproduzindoDiario = false;
+            }
+            if (aplicados > 0) {
+                mensagens().println("[INFO] Operações recuperadas do diário: " + aplicados);
+            }
+            persistirHistorico();
+
+            this.diario = DiarioOperacoes.abrir(diretorioDados, ultimoSegmentoIncluido);
+            this.registrosDesdeCompactacao.set(aplicados);
+            this.compactacaoAgendada = new AtomicBoolean(false);
+            this.compactador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "compactacao-diario");
+                t.setDaemon(true);
+                return t;
+            });
+            this.ultimaGravacao = System.nanoTime(); // o disco tem o que acabou de ser carregado
+            if (aplicados > 0) this.primeiraPendente = ultimaGravacao;
+            metricas.registrar(Operacao.CARREGAR_DADOS, inicio);
+        } catch (IOException e) {
+            mensagens().println("[ERRO] Falha ao carregar os dados: " + e.getMessage());
+        }
+    }
+
+    // Grava o snapshot binário (e o índice de diagnósticos); com o diário aberto, também
+    // descarta os segmentos incluídos
+    public void salvarDados() {
+        compactar(true, true);
+    }
+
+    /**
+     * Salva o snapshot em segundo plano a cada 'intervalo', se houver operações não gravadas.
+     * Com atrasoMaximo (null = sem limite), a operação que encontrar alterações pendentes há mais
+     * tempo que isso antecipa a gravação. Exige o diário aberto (carregarDados()).
+     * O estado é capturado na memória com as travas de leitura e gravado no disco sem elas
+     * (ver compactar); o índice de diagnósticos só é gravado por salvarDados().
+     * Retorna false (sem agendar nada) se o diário não estiver aberto.
+     */
+    public boolean iniciarAutossalvamento(Duration intervalo, Duration atrasoMaximo) {
+        if (diario == null) {
+            mensagens().println("[AVISO] Salvamento automático requer os dados carregados com carregarDados().");
+            return false;
+        }
+        this.atrasoMaximo = (atrasoMaximo == null) ? 0 : atrasoMaximo.toNanos();
+        long periodo = intervalo.toMillis();
+        compactador.scheduleWithFixedDelay(() -> {
+            if (registrosDesdeCompactacao.get() > 0 && compactacaoAgendada.compareAndSet(false, true)) {
+                gravarEmSegundoPlano();
+            }
+        }, periodo, periodo, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    // Tempo desde o último snapshot gravado com sucesso (ou desde a carga); null se nenhum
+    public Duration getIdadeUltimaGravacao() {
+        long ultima = ultimaGravacao;
+        return (ultima == 0) ? null : Duration.ofNanos(System.nanoTime() - ultima);
+    }
+
+    int contarOperacoesNaoGravadas() { return registrosDesdeCompactacao.get(); }
+
+    // Fecha o diário (garantindo que tudo foi para o disco) e para a compactação em segundo plano.
+    // Os arquivos do histórico também são fechados: depois disso, nada mais deve ser arquivado.
+    public void encerrar() {
+        metricas.pararDespejo();
+        if (compactador != null) {
+            // Uma gravação em andamento termina antes de os arquivos do histórico fecharem
+            compactador.shutdown();
+            try {
+                compactador.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            arquivoConsultas.fechar();
+            arquivoInternacoes.fechar();
+        } catch (IOException e) {
+            mensagens().println("[ERRO] Falha ao fechar os arquivos do histórico: " + e.getMessage());
+        }
+        if (diario == null) return;
+        try {
+            diario.close();
+        } catch (IOException e) {
+            mensagens().println("[ERRO] Falha ao fechar o diário de operações: " + e.getMessage());
+        }
+        diario = null;
+    }
+
+    // Chamado com a trava de escrita da partição; retorna a sequência a aguardar (0 sem diário)
+    private long registrarNoDiario(String registro) {
+        return registrarNoDiario(registro, true);
+    }
+
+    // A importação em lote passa verificarCompactacao = false e chama agendarCompactacao() só no
+    // fim: compactar a cada LIMITE_COMPACTACAO linhas regravaria o snapshot inteiro várias vezes
+    private long registrarNoDiario(String registro, boolean verificarCompactacao) {
+        if (diario == null) return 0;
+        long sequencia = diario.acrescentar(registro);
+        int pendentes = registrosDesdeCompactacao.incrementAndGet();
+        if (primeiraPendente == 0) primeiraPendente = System.nanoTime();
+        if (verificarCompactacao) agendarCompactacao(pendentes);
+        return sequencia;
+    }
+
+    // Por volume (LIMITE_COMPACTACAO) ou, com o salvamento automático, por atraso (atrasoMaximo)
+    private void agendarCompactacao(int pendentes) {
+        if (diario == null) return;
+        long atraso = atrasoMaximo;
+        long pendenteDesde = primeiraPendente;
+        boolean atrasado = atraso > 0 && pendenteDesde != 0 && System.nanoTime() - pendenteDesde >= atraso;
+        if ((pendentes >= LIMITE_COMPACTACAO || atrasado) && compactacaoAgendada.compareAndSet(false, true)) {
+            compactador.execute(this::gravarEmSegundoPlano);
+        }
+    }
+
+    // Na thread do compactador, com compactacaoAgendada já marcada por quem pediu a gravação
+    private void gravarEmSegundoPlano() {
+        try {
+            compactar(false, false);
+        } catch (RuntimeException e) {
+            // Não derruba a thread (nem cancela o salvamento periódico)
+            mensagens().println("[ERRO] Falha no salvamento em segundo plano: " + e);
+        } finally {
+            compactacaoAgendada.set(false);
+        }
+    }
+
+    // false se o diário parou por falha de gravação antes de o registro chegar ao disco: a operação
+    // vale na memória, mas não sobrevive a um reinício e não é confirmada a quem a pediu
+    private boolean aguardarDiario(long sequencia) {
+        DiarioOperacoes d = diario;
+        if (sequencia > 0 && d != null) {
+            long[] pendente = lote.get();
+            if (pendente != null) {
+                pendente[0] = Math.max(pendente[0], sequencia); // a espera fica para concluirLote()
+            } else {
                 try {
-                    Internacao i = Internacao.fromCSV(line, this);
-                    if (i != null && i.getStatus().equalsIgnoreCase("Ativa")) {
-                        this.internacoes.add(i);
-                    } else if (i != null && !i.getStatus().equalsIgnoreCase("Ativa")) {
-                         // Se for concluída/cancelada, adiciona ao histórico do paciente
-                         i.getPaciente().adicionarInternacao(i);
-                    }
-                } catch (DateTimeParseException e) {
-                     System.out.println("[ERRO] Formato de data inválido em Internação: " + line);
+                    d.aguardar(sequencia);
+                } catch (IOException e) {
+                    mensagens().println("[ERRO] Operação não gravada: " + e.getMessage());
+                    return false;
                 }
             }
-            System.out.println("[INFO] Internações ativas carregadas: " + this.internacoes.size());
-        } catch (FileNotFoundException e) {
-            System.out.println("[AVISO] Arquivo de internações não encontrado. Iniciando com lista vazia.");
+        }
+        return true;
+    }
+
+    // Itens de um lote incluídos na memória cujo registro não chegou ao disco
+    private static void recusarNaoGravados(String[] recusas) {
+        for (int i = 0; i < recusas.length; i++) {
+            if (recusas[i] == null) recusas[i] = "Não gravado no diário de operações";
+        }
+    }
+
+    /**
+     * A partir daqui, as operações desta thread não esperam o fsync do diário uma a uma: a
+     * gravação continua em lotes e concluirLote() espera só pela última. Para execuções em lote
+     * (ver ExecutorLote), em que nenhuma operação é confirmada a ninguém antes do fim.
+     */
+    public void abrirLote() {
+        if (lote.get() == null) lote.set(new long[1]);
+    }
+
+    // Sai do modo lote e espera até que todas as operações da thread estejam no diário em disco;
+    // false se o diário falhou antes disso (as operações do lote podem não ter sido gravadas)
+    public boolean concluirLote() {
+        long[] pendente = lote.get();
+        if (pendente == null) return true;
+        lote.remove();
+        DiarioOperacoes d = diario;
+        if (pendente[0] > 0 && d != null) {
+            try {
+                d.aguardar(pendente[0]);
+            } catch (IOException e) {
+                mensagens().println("[ERRO] Operações do lote não gravadas: " + e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Destino das mensagens da thread atual
+    public PrintStream getMensagens() { return mensagens(); }
+
+    // Destino padrão, para todas as threads que não foram redirecionadas
+    public void setMensagens(PrintStream destino) {
+        this.mensagensPadrao = destino;
+    }
+
+    // Desvia só as mensagens da thread atual (null volta ao padrão); retorna o desvio anterior
+    public PrintStream redirecionarMensagens(PrintStream destino) {
+        PrintStream anterior = mensagensDaThread.get();
+        if (destino == null) {
+            mensagensDaThread.remove();
+        } else {
+            mensagensDaThread.set(destino);
+        }
+        return anterior;
+    }
+
+    // Também usado por MetricasHospital para os seus avisos
+    PrintStream mensagens() {
+        PrintStream daThread = mensagensDaThread.get();
+        return (daThread != null) ? daThread : mensagensPadrao;
+    }
+
+    // Rotaciona o diário e captura o snapshot com as travas de leitura das três partições (as
+    // escritas esperam só a cópia das referências, ver SnapshotBinario.Captura). Depois, já sem
+    // as travas, grava-o num temporário, renomeia atomicamente (ponto de confirmação) e só então
+    // apaga os segmentos incluídos nele. comIndice: grava também o índice de diagnósticos (com as
+    // travas); sem ele, o índice antigo deixa de corresponder e é reconstruído na próxima carga.
+    private void compactar(boolean verboso, boolean comIndice) {
+        long inicio = System.nanoTime();
+        int incluidos = 0;
+        long pendenteDesde = 0;
+        travaSnapshot.lock();
+        try {
+            // Antes das travas de leitura: num hospital que não veio do disco, o histórico ainda
+            // está na memória e passa para os arquivos (com as travas de escrita)
+            persistirHistorico();
+            Path indiceTemporario = diretorioDados.resolve(DIAGNOSTICOS_FILE + ".tmp");
+            long segmento;
+            long capturado;
+            SnapshotBinario.Captura estado;
+            travarTudoParaLeitura();
+            try {
+                segmento = (diario != null) ? diario.rotacionar() : ultimoSegmentoIncluido;
+                // Os registros do histórico vão para o disco antes do snapshot que os confirma
+                arquivoConsultas.forcar();
+                arquivoInternacoes.forcar();
+                estado = SnapshotBinario.capturar(this, segmento);
+                // Sem escritas em andamento, tudo o que estava pendente entrou no estado capturado
+                capturado = System.nanoTime();
+                incluidos = registrosDesdeCompactacao.getAndSet(0);
+                pendenteDesde = primeiraPendente;
+                primeiraPendente = 0;
+                if (comIndice) diagnosticos.salvar(indiceTemporario, segmento);
+            } finally {
+                destravarTudoParaLeitura();
+            }
+
+            Path snapshot = diretorioDados.resolve(SNAPSHOT_FILE);
+            Path temporario = diretorioDados.resolve(SNAPSHOT_FILE + ".tmp");
+            SnapshotBinario.gravar(estado, temporario);
+            Files.move(temporario, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            incluidos = 0;
+            ultimoSegmentoIncluido = segmento;
+            ultimaGravacao = capturado;
+            DiarioOperacoes.excluirAte(diretorioDados, segmento);
+
+            // O índice leva o segmento do snapshot: se a troca abaixo falhar, o antigo deixa
+            // de corresponder e é reconstruído na próxima carga
+            if (comIndice) {
+                Path indice = diretorioDados.resolve(DIAGNOSTICOS_FILE);
+                Files.move(indiceTemporario, indice, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (verboso) mensagens().println("[INFO] Snapshot salvo com sucesso.");
         } catch (IOException e) {
-            System.out.println("[ERRO] Falha ao carregar arquivo de internações: " + e.getMessage());
+            mensagens().println("[ERRO] Falha ao salvar o snapshot: " + e.getMessage());
+        } finally {
+            if (incluidos > 0) {
+                // Não confirmado: as operações capturadas continuam pendentes (seguem no diário)
+                registrosDesdeCompactacao.addAndGet(incluidos);
+                long atual = primeiraPendente;
+                if (pendenteDesde != 0 && (atual == 0 || pendenteDesde - atual < 0)) primeiraPendente = pendenteDesde;
+            }
+            travaSnapshot.unlock();
+        }
+        metricas.registrar(Operacao.SALVAR_SNAPSHOT, inicio);
+    }
+
+    // Passa os históricos da memória para os arquivos do diretório de dados (uma vez: na carga ou
+    // no primeiro snapshot). Daí em diante cada registro arquivado é escrito direto no arquivo.
+    private void persistirHistorico() throws IOException {
+        travaConsultas.writeLock().lock();
+        travaInternacoes.writeLock().lock();
+        try {
+            if (!arquivoConsultas.isEmDisco()) {
+                arquivoConsultas.gravarEm(diretorioDados.resolve(HISTORICO_CONSULTAS_FILE),
+                        diretorioDados.resolve(HISTORICO_TEXTOS_FILE));
+            }
+            if (!arquivoInternacoes.isEmDisco()) {
+                arquivoInternacoes.gravarEm(diretorioDados.resolve(HISTORICO_INTERNACOES_FILE));
+            }
+        } finally {
+            travaInternacoes.writeLock().unlock();
+            travaConsultas.writeLock().unlock();
+        }
+    }
+
+    // Chamado pelo SnapshotBinario ao terminar a carga: reabre os arquivos do histórico
+    // no tamanho confirmado e restaura o índice de cada paciente, sem ler os registros
+    void abrirHistorico(ByteBuffer estado, Paciente[] todosPacientes, Medico[] todosMedicos) throws IOException {
+        travaConsultas.writeLock().lock();
+        travaInternacoes.writeLock().lock();
+        try {
+            arquivoConsultas.carregarEstado(estado, todosPacientes, todosMedicos,
+                    diretorioDados.resolve(HISTORICO_CONSULTAS_FILE), diretorioDados.resolve(HISTORICO_TEXTOS_FILE));
+            arquivoInternacoes.carregarEstado(estado, todosPacientes, todosMedicos,
+                    diretorioDados.resolve(HISTORICO_INTERNACOES_FILE));
+        } finally {
+            travaInternacoes.writeLock().unlock();
+            travaConsultas.writeLock().unlock();
+        }
+    }
+
+    // --- MÉTRICAS ---
+
+    public MetricasHospital getMetricas() {
+        return metricas;
+    }
+
+    // Indicadores lidos pelas métricas (JMX/resumo): cada um trava só a partição que lê
+    int contarPacientes() { return pacientesPorCpf.size(); }
+    int contarMedicos() { return medicosPorCrm.size(); }
+
+    int contarConsultasAtivas() {
+        travaConsultas.readLock().lock();
+        try {
+            return consultas.size();
+        } finally {
+            travaConsultas.readLock().unlock();
+        }
+    }
+
+    int contarFilaInternacao() {
+        travaInternacoes.readLock().lock();
+        try {
+            return filaInternacao.tamanho();
+        } finally {
+            travaInternacoes.readLock().unlock();
+        }
+    }
+
+    int contarInternacoesAtivas() {
+        travaInternacoes.readLock().lock();
+        try {
+            return internacoes.size();
+        } finally {
+            travaInternacoes.readLock().unlock();
+        }
+    }
+
+    long contarHistoricoConsultas() {
+        travaConsultas.readLock().lock();
+        try {
+            return arquivoConsultas.tamanho();
+        } finally {
+            travaConsultas.readLock().unlock();
+        }
+    }
+
+    long contarHistoricoInternacoes() {
+        travaInternacoes.readLock().lock();
+        try {
+            return arquivoInternacoes.tamanho();
+        } finally {
+            travaInternacoes.readLock().unlock();
+        }
+    }
+
+    private void travarTudoParaLeitura() {
+        travaCadastro.readLock().lock();
+        travaConsultas.readLock().lock();
+        travaInternacoes.readLock().lock();
+    }
+
+    private void destravarTudoParaLeitura() {
+        travaInternacoes.readLock().unlock();
+        travaConsultas.readLock().unlock();
+        travaCadastro.readLock().unlock();
+    }
+
+    // Reaplica um registro do diário (o diário ainda está fechado, então nada é registrado de novo)
+    private void aplicarRegistro(String registro) {
+        String[] partes = registro.split("\\|", 2);
+        if (partes.length < 2) return;
+        try {
+            switch (partes[0]) {
+                case "PACIENTE": {
+                    Paciente p = Paciente.fromCSV(partes[1], this.planos);
+                    if (p != null) cadastrarPaciente(p);
+                    break;
+                }
+                case "MEDICO": {
+                    Medico m = Medico.fromCSV(partes[1]);
+                    if (m != null) cadastrarMedico(m);
+                    break;
+                }
+                case "CONSULTA": {
+                    String[] c = partes[1].split(";", 4);
+                    agendarConsulta(c[0], c[1], LocalDateTime.parse(c[2]), c[3]);
+                    break;
+                }
+                case "INTERNACAO": {
+                    String[] i = partes[1].split(";");
+                    agendarInternacao(i[0], i[1], LocalDate.parse(i[2]), Integer.parseInt(i[3]));
+                    break;
+                }
+                case "FILA_INTERNACAO": {
+                    String[] f = partes[1].split(";");
+                    Paciente p = pacientesPorCpf.get(f[0]);
+                    Medico m = medicosPorCrm.get(f[1]);
+                    if (p != null && m != null) entrarNaFilaInternacao(p, m, Integer.parseInt(f[2]), LocalDateTime.parse(f[3]));
+                    break;
+                }
+                case "URGENCIA_PEDIDO": {
+                    String[] f = partes[1].split("\\|", 2);
+                    alterarUrgencia(Long.parseLong(f[0]), Integer.parseInt(f[1]));
+                    break;
+                }
+                case "DURACAO_CONSULTA": {
+                    setDuracaoConsulta(Duration.parse(partes[1]));
+                    break;
+                }
+                case "TOTAL_QUARTOS": {
+                    setTotalQuartos(Integer.parseInt(partes[1]));
+                    break;
+                }
+                case "SAIR_FILA": {
+                    sairDaFilaInternacao(Long.parseLong(partes[1]));
+                    break;
+                }
+                case "CONCLUIR_CONSULTA_ID": {
+                    String[] c = partes[1].split("\\|", 2);
+                    concluirERemoverConsulta(Long.parseLong(c[0]), c[1]);
+                    break;
+                }
+                case "CONCLUIR_INTERNACAO_ID": {
+                    String[] i = partes[1].split("\\|", 2);
+                    concluirERemoverInternacao(Long.parseLong(i[0]), LocalDate.parse(i[1]));
+                    break;
+                }
+                default:
+                    mensagens().println("[AVISO] Registro desconhecido no diário: " + registro);
+            }
+        } catch (RuntimeException e) {
+            mensagens().println("[ERRO] Registro inválido no diário: " + registro);
         }
     }
 
     // --- MÉTODOS DE RELATÓRIO ---
+    // Os getters devolvem cópias feitas sob a trava de leitura, seguras para iterar
+    // enquanto outras recepções alteram o hospital.
     public List<PlanoSaude> getPlanos() { return planos; }
-    public List<Paciente> getPacientes() { return pacientes; }
-    public List<Medico> getMedicos() { return medicos; }
-    public List<Consulta> getConsultas() { return consultas; }
-    public List<Internacao> getInternacoes() { return internacoes; }
 
+    public List<Paciente> getPacientes() {
+        travaCadastro.readLock().lock();
+        try {
+            return new ArrayList<>(pacientes);
+        } finally {
+            travaCadastro.readLock().unlock();
+        }
+    }
+
+    public List<Medico> getMedicos() {
+        travaCadastro.readLock().lock();
+        try {
+            return new ArrayList<>(medicos);
+        } finally {
+            travaCadastro.readLock().unlock();
+        }
+    }
+
+    public List<Consulta> getConsultas() {
+        travaConsultas.readLock().lock();
+        try {
+            return new ArrayList<>(consultas.values());
+        } finally {
+            travaConsultas.readLock().unlock();
+        }
+    }
+
+    public List<Internacao> getInternacoes() {
+        travaInternacoes.readLock().lock();
+        try {
+            return new ArrayList<>(internacoes.values());
+        } finally {
+            travaInternacoes.readLock().unlock();
+        }
+    }
+
+    // Relatórios completos no console; filtros, paginação e outros destinos via GeradorRelatorios
     public void relatorioPacientes() {
-        System.out.println("\n--- RELATÓRIO DE PACIENTES ---");
-        if (pacientes.isEmpty()) { 
-             System.out.println("Nenhum paciente cadastrado."); 
-        } else {
+        try {
+            new GeradorRelatorios(this).pacientes(GeradorRelatorios.escritor(System.out), new FiltroRelatorio());
+        } catch (IOException e) {
+            mensagens().println("[ERRO] Falha ao gerar o relatório: " + e.getMessage());
+        }
+    }
+
+    public void relatorioMedicos() {
+        try {
+            new GeradorRelatorios(this).medicos(GeradorRelatorios.escritor(System.out), new FiltroRelatorio());
+        } catch (IOException e) {
+            mensagens().println("[ERRO] Falha ao gerar o relatório: " + e.getMessage());
+        }
+    }
+
+    public void relatorioConsultas() {
+        try {
+            new GeradorRelatorios(this).consultas(GeradorRelatorios.escritor(System.out), new FiltroRelatorio());
+        } catch (IOException e) {
+            mensagens().println("[ERRO] Falha ao gerar o relatório: " + e.getMessage());
+        }
+    }
+
+    public void relatorioInternacoes() {
+        try {
+            new GeradorRelatorios(this).internacoes(GeradorRelatorios.escritor(System.out), new FiltroRelatorio());
+        } catch (IOException e) {
+            mensagens().println("[ERRO] Falha ao gerar o relatório: " + e.getMessage());
+        }
+    }
+
+    // Percorrem os registros sob a trava de leitura e escrevem na hora as linhas da página
+    // (GeradorRelatorios.Pagina); o destino deve ser bufferizado para não segurar a trava em E/S.
+    void percorrerPacientes(FiltroRelatorio filtro, GeradorRelatorios.Pagina<Paciente> pagina) {
+        if (filtro.getCpfPaciente() != null) {
+            Paciente p = buscarPacientePorCpf(filtro.getCpfPaciente());
+            if (p != null && pagina.dentro()) pagina.escrever(p);
+            return;
+        }
+        travaCadastro.readLock().lock();
+        try {
             for (Paciente p : pacientes) {
-                System.out.println(p.exibirDetalhes()); 
+                if (pagina.dentro()) pagina.escrever(p);
             }
+        } finally {
+            travaCadastro.readLock().unlock();
         }
     }
-    
-    public void relatorioMedicos() {
-        System.out.println("\n--- RELATÓRIO DE MÉDICOS ---");
-        if (medicos.isEmpty()) { 
-             System.out.println("Nenhum médico cadastrado."); 
-        } else {
+
+    void percorrerMedicos(FiltroRelatorio filtro, GeradorRelatorios.Pagina<Medico> pagina) {
+        if (filtro.getCrmMedico() != null) {
+            Medico m = buscarMedicoPorCrm(filtro.getCrmMedico());
+            if (m != null && pagina.dentro()) pagina.escrever(m);
+            return;
+        }
+        travaCadastro.readLock().lock();
+        try {
             for (Medico m : medicos) {
-                System.out.println(m.exibirDetalhes());
+                if (pagina.dentro()) pagina.escrever(m);
             }
+        } finally {
+            travaCadastro.readLock().unlock();
         }
     }
-    
-    public void relatorioConsultas() {
-        System.out.println("\n--- RELATÓRIO DE CONSULTAS ATIVAS/CONCLUÍDAS ---");
 
-        // Exibe ativas
-        System.out.println("\n-- Consultas AGENDADAS (Lista principal) --");
-         if (consultas.isEmpty()) { 
-             System.out.println("Nenhuma consulta AGENDADA."); 
-        } else {
-            // Adiciona o índice na exibição para facilitar a conclusão
-            for (int i = 0; i < consultas.size(); i++) {
-                Consulta c = consultas.get(i);
-                System.out.printf("[%d] %s%n", i, c.toString());
+    void percorrerConsultas(FiltroRelatorio filtro, GeradorRelatorios.Pagina<Consulta> pagina) {
+        boolean comPeriodo = filtro.getInicio() != null || filtro.getFim() != null;
+        if (comPeriodo) garantirDatas(); // antes das travas de leitura (monta com as de escrita)
+        travaCadastro.readLock().lock();
+        travaConsultas.readLock().lock();
+        try {
+            for (Consulta c : consultas.values()) {
+                if (filtro.aceita(c) && pagina.dentro()) pagina.escrever(c);
             }
-        }
-        
-        // Exibe histórico (Concluídas/Canceladas)
-        System.out.println("\n-- Histórico de Consultas (Nos Pacientes) --");
-         boolean temHistorico = false;
-        for(Paciente p : pacientes) {
-            if (!p.getHistoricoConsultas().isEmpty()) {
-                System.out.println("Histórico de " + p.getNome() + ":");
-                for (Consulta c : p.getHistoricoConsultas()) {
-                    System.out.println("  " + c.toString());
+            // Com filtro de paciente basta o histórico dele; sem, varre os registros do arquivo
+            // e só recria as consultas aceitas que caem na página
+            if (filtro.getCpfPaciente() != null) {
+                Paciente p = buscarPacientePorCpf(filtro.getCpfPaciente());
+                if (p != null) {
+                    for (Consulta c : p.getHistoricoConsultas()) {
+                        if (filtro.aceita(c) && pagina.dentro()) pagina.escrever(c);
+                    }
+                }
+            } else if (comPeriodo && datasProntas) {
+                // Só as linhas dos dias do período, na mesma ordem da varredura completa
+                int[] linhas = consultasPorDia.linhas(filtro.getInicio(), filtro.getFim());
+                Arrays.sort(linhas);
+                for (int l : linhas) {
+                    if (filtro.aceita(arquivoConsultas, l) && pagina.dentro()) {
+                        pagina.escrever(arquivoConsultas.consulta(l));
+                    }
+                }
+            } else {
+                for (int l = 0; l < arquivoConsultas.tamanho(); l++) {
+                    if (filtro.aceita(arquivoConsultas, l) && pagina.dentro()) {
+                        pagina.escrever(arquivoConsultas.consulta(l));
+                    }
                 }
-                temHistorico = true;
             }
-        }
-        if (!temHistorico) {
-            System.out.println("Nenhum registro de consulta concluída/cancelada.");
+        } finally {
+            travaConsultas.readLock().unlock();
+            travaCadastro.readLock().unlock();
         }
     }
-    
-    public void relatorioInternacoes() {
-        System.out.println("\n--- RELATÓRIO DE INTERNAÇÕES ATIVAS/CONCLUÍDAS ---");
 
-        // Exibe ativas
-        System.out.println("\n-- Internações ATIVAS (Lista principal) --");
-         if (internacoes.isEmpty()) { 
-             System.out.println("Nenhuma internação ATIVA."); 
-        } else {
-            // Adiciona o índice na exibição para facilitar a conclusão
-            for (int i = 0; i < internacoes.size(); i++) {
-                Internacao internacao = internacoes.get(i);
-                System.out.printf("[%d] %s%n", i, internacao.toString());
+    void percorrerInternacoes(FiltroRelatorio filtro, GeradorRelatorios.Pagina<Internacao> pagina) {
+        travaCadastro.readLock().lock();
+        travaInternacoes.readLock().lock();
+        try {
+            for (Internacao i : internacoes.values()) {
+                if (filtro.aceita(i) && pagina.dentro()) pagina.escrever(i);
             }
-        }
-        
-        // Exibe histórico (Concluídas/Canceladas)
-        System.out.println("\n-- Histórico de Internações (Nos Pacientes) --");
-         boolean temHistorico = false;
-        for(Paciente p : pacientes) {
-            if (!p.getHistoricoInternacoes().isEmpty()) {
-                System.out.println("Histórico de " + p.getNome() + ":");
-                for (Internacao i : p.getHistoricoInternacoes()) {
-                    System.out.println("  " + i.toString());
+            if (filtro.getCpfPaciente() != null) {
+                Paciente p = buscarPacientePorCpf(filtro.getCpfPaciente());
+                if (p != null) {
+                    for (Internacao i : p.getHistoricoInternacoes()) {
+                        if (filtro.aceita(i) && pagina.dentro()) pagina.escrever(i);
+                    }
+                }
+            } else {
+                for (int l = 0; l < arquivoInternacoes.tamanho(); l++) {
+                    if (filtro.aceita(arquivoInternacoes, l) && pagina.dentro()) {
+                        pagina.escrever(arquivoInternacoes.internacao(l));
+                    }
                 }
-                 temHistorico = true;
             }
+        } finally {
+            travaInternacoes.readLock().unlock();
+            travaCadastro.readLock().unlock();
         }
-        if (!temHistorico) {
-            System.out.println("Nenhum registro de internação concluída/cancelada.");
+    }
+
+    // Faturamento em janelas (MotorFaturamento): executa 'leitura' com as travas de leitura de
+    // consultas e internações, recebendo as internações ativas. Enquanto isso os históricos
+    // dos pacientes não mudam, então a leitura pode ser dividida entre várias threads.
+    <T> T lerParaFaturamento(Function<Collection<Internacao>, T> leitura) {
+        travaConsultas.readLock().lock();
+        travaInternacoes.readLock().lock();
+        try {
+            return leitura.apply(internacoes.values());
+        } finally {
+            travaInternacoes.readLock().unlock();
+            travaConsultas.readLock().unlock();
+        }
+    }
+
+    // Para o SnapshotBinario gravar o estado dos históricos e o MotorFaturamento ler as linhas de
+    // cada paciente (chamado com as travas de leitura)
+    ArquivoConsultas getArquivoConsultas() { return arquivoConsultas; }
+    ArquivoInternacoes getArquivoInternacoes() { return arquivoInternacoes; }
+
+    // Para o snapshot (chamados com as travas de consultas e internações)
+    long getProximoIdConsulta() { return proximoIdConsulta; }
+    long getProximoIdInternacao() { return proximoIdInternacao; }
+    long getProximoIdPedido() { return proximoIdPedido; }
+
+    // Carga do snapshot: os ids das concluídas ficam nos arquivos do histórico, que não passam por
+    // incorporar*; sem os contadores gravados, um id já arquivado seria reaproveitado
+    void restaurarProximosIds(long consulta, long internacao) {
+        travaConsultas.writeLock().lock();
+        try {
+            proximoIdConsulta = Math.max(proximoIdConsulta, consulta);
+        } finally {
+            travaConsultas.writeLock().unlock();
+        }
+        travaInternacoes.writeLock().lock();
+        try {
+            proximoIdInternacao = Math.max(proximoIdInternacao, internacao);
+        } finally {
+            travaInternacoes.writeLock().unlock();
+        }
+    }
+
+    // Carga do snapshot: a fila gravada e o contador de pedidos (nada vai para o diário)
+    void restaurarFila(long proximoId, List<PedidoInternacao> pedidos) {
+        travaInternacoes.writeLock().lock();
+        try {
+            filaInternacao.limpar();
+            for (PedidoInternacao pedido : pedidos) filaInternacao.adicionar(pedido);
+            proximoIdPedido = proximoId;
+        } finally {
+            travaInternacoes.writeLock().unlock();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,296 @@
+package servicos;
+
+import modelos.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Importação em lote de arquivos externos, em quatro etapas:
+//   1. leitura e conversão em paralelo (CarregadorCSV.carregarLinhas)
+//   2. validação de cada linha, na mesma passada paralela (CPF/CRM, plano, idade, valores)
+//   3. remoção de duplicados: dentro do arquivo e contra o que já está cadastrado
+//   4. inclusão em lotes de TAMANHO_LOTE: uma trava, uma atualização de índice e uma
+//      espera pelo diário por lote (ver Hospital.incluirPacientes e afins)
+// Nenhuma linha é descartada em silêncio: toda rejeição vai para o RelatorioImportacao.
+// CPF e CRM são gravados e comparados na forma canônica (ver cpf() e crm()), em todos os arquivos.
+//
+// Formatos (com cabeçalho, separados por ';'):
+//   pacientes: PACIENTE_C;NOME;CPF;IDADE  ou  PACIENTE_E;NOME;CPF;IDADE;PLANO
+//   médicos:   MEDICO;NOME;CPF;IDADE;CRM;ESPECIALIDADE;CUSTO_CONSULTA
+//   consultas: PACIENTE_CPF;MEDICO_CRM;DATA_HORA(dd/MM/yyyy HH:mm);LOCAL
+class ImportadorLote {
+    static final int TAMANHO_LOTE = 5_000;
+
+    // 11 dígitos, com ou sem a máscara 000.000.000-00 (os dígitos verificadores não são conferidos).
+    // A chave gravada e usada na deduplicação é só dos dígitos.
+    private static final Pattern CPF = Pattern.compile("\\d{11}|\\d{3}\\.\\d{3}\\.\\d{3}-\\d{2}");
+    // Ex.: 123456, CRM12345, 123456/SP, CRM-12345-RJ. A chave é CRM12345 ou CRM12345/RJ: a UF faz
+    // parte do registro (o mesmo número em outra UF é outro médico).
+    private static final Pattern CRM = Pattern.compile("(?i)(?:CRM[-/ ]?)?(\\d{4,7})(?:[-/]([A-Z]{2}))?");
+    private static final int IDADE_MAXIMA = 130;
+    private static final int IDADE_MINIMA_MEDICO = 18;
+    private static final DateTimeFormatter FORMATO_DATA_HORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private ImportadorLote() {}
+
+    // Pedido de agendamento já resolvido (paciente e médico existem), pronto para a etapa 4
+    static class PedidoConsulta {
+        final Paciente paciente;
+        final Medico medico;
+        final LocalDateTime dataHora;
+        final String local;
+
+        PedidoConsulta(Paciente paciente, Medico medico, LocalDateTime dataHora, String local) {
+            this.paciente = paciente;
+            this.medico = medico;
+            this.dataHora = dataHora;
+            this.local = local;
+        }
+    }
+
+    // Consulta como lida do arquivo, antes de resolver CPF/CRM
+    private static class LinhaConsulta {
+        final String cpf;
+        final String crm;
+        final LocalDateTime dataHora;
+        final String local;
+
+        LinhaConsulta(String cpf, String crm, LocalDateTime dataHora, String local) {
+            this.cpf = cpf;
+            this.crm = crm;
+            this.dataHora = dataHora;
+            this.local = local;
+        }
+    }
+
+    static RelatorioImportacao importarPacientes(Hospital hospital, Path arquivo) throws IOException {
+        long inicio = System.nanoTime();
+        RelatorioImportacao relatorio = new RelatorioImportacao(arquivo.getFileName().toString());
+        List<PlanoSaude> planos = hospital.getPlanos();
+
+        List<CarregadorCSV.Linha<Paciente>> linhas = ler(arquivo, linha -> converterPaciente(linha, planos), relatorio);
+
+        Map<String, Integer> vistos = new HashMap<>();
+        List<CarregadorCSV.Linha<Paciente>> validas = new ArrayList<>();
+        for (CarregadorCSV.Linha<Paciente> l : linhas) {
+            String cpf = l.item.getCpf();
+            Integer anterior = vistos.putIfAbsent(cpf, l.numero);
+            if (anterior != null) {
+                relatorio.rejeitar(l.numero, "CPF " + cpf + " repetido no arquivo (linha " + anterior + ")", l.conteudo);
+            } else if (hospital.pacienteDoCpf(cpf) != null) {
+                relatorio.rejeitar(l.numero, "Já existe um paciente com o CPF " + cpf, l.conteudo);
+            } else {
+                validas.add(l);
+            }
+        }
+
+        incluirEmLotes(validas, hospital::incluirPacientes, relatorio);
+        relatorio.concluir(System.nanoTime() - inicio);
+        return relatorio;
+    }
+
+    static RelatorioImportacao importarMedicos(Hospital hospital, Path arquivo) throws IOException {
+        long inicio = System.nanoTime();
+        RelatorioImportacao relatorio = new RelatorioImportacao(arquivo.getFileName().toString());
+
+        List<CarregadorCSV.Linha<Medico>> linhas = ler(arquivo, ImportadorLote::converterMedico, relatorio);
+
+        Map<String, Integer> vistos = new HashMap<>();
+        List<CarregadorCSV.Linha<Medico>> validas = new ArrayList<>();
+        for (CarregadorCSV.Linha<Medico> l : linhas) {
+            String crm = l.item.getCrm();
+            Integer anterior = vistos.putIfAbsent(crm, l.numero);
+            if (anterior != null) {
+                relatorio.rejeitar(l.numero, "CRM " + crm + " repetido no arquivo (linha " + anterior + ")", l.conteudo);
+            } else if (hospital.medicoDoCrm(crm) != null) {
+                relatorio.rejeitar(l.numero, "Já existe um médico com o CRM " + crm, l.conteudo);
+            } else {
+                validas.add(l);
+            }
+        }
+
+        incluirEmLotes(validas, hospital::incluirMedicos, relatorio);
+        relatorio.concluir(System.nanoTime() - inicio);
+        return relatorio;
+    }
+
+    // Pacientes e médicos precisam já estar cadastrados (importe-os antes). Conflitos de
+    // horário, com a agenda ou com linhas anteriores do próprio arquivo, são rejeitados na etapa 4.
+    static RelatorioImportacao importarConsultas(Hospital hospital, Path arquivo) throws IOException {
+        long inicio = System.nanoTime();
+        RelatorioImportacao relatorio = new RelatorioImportacao(arquivo.getFileName().toString());
+
+        List<CarregadorCSV.Linha<LinhaConsulta>> linhas = ler(arquivo, ImportadorLote::converterConsulta, relatorio);
+
+        List<CarregadorCSV.Linha<PedidoConsulta>> validas = new ArrayList<>();
+        for (CarregadorCSV.Linha<LinhaConsulta> l : linhas) {
+            Paciente p = hospital.pacienteDoCpf(l.item.cpf);
+            Medico m = hospital.medicoDoCrm(l.item.crm);
+            if (p == null) {
+                relatorio.rejeitar(l.numero, "Paciente com CPF " + l.item.cpf + " não encontrado", l.conteudo);
+            } else if (m == null) {
+                relatorio.rejeitar(l.numero, "Médico com CRM " + l.item.crm + " não encontrado", l.conteudo);
+            } else {
+                validas.add(new CarregadorCSV.Linha<>(l.numero, l.conteudo,
+                        new PedidoConsulta(p, m, l.item.dataHora, l.item.local), null));
+            }
+        }
+
+        incluirEmLotes(validas, hospital::agendarConsultas, relatorio);
+        relatorio.concluir(System.nanoTime() - inicio);
+        return relatorio;
+    }
+
+    // Etapas 1 e 2: devolve só as linhas válidas; as demais já ficam no relatório
+    private static <T> List<CarregadorCSV.Linha<T>> ler(Path arquivo, Function<String, T> conversor,
+                                                      RelatorioImportacao relatorio) throws IOException {
+        List<CarregadorCSV.Linha<T>> validas = new ArrayList<>();
+        for (CarregadorCSV.Linha<T> l : CarregadorCSV.carregarLinhas(arquivo, conversor)) {
+            relatorio.contarLida();
+            if (l.motivo != null) {
+                relatorio.rejeitar(l.numero, l.motivo, l.conteudo);
+            } else {
+                validas.add(l);
+            }
+        }
+        return validas;
+    }
+
+    // Etapa 4: o Hospital devolve, para cada item do lote, null (incluído) ou o motivo da recusa
+    private static <T> void incluirEmLotes(List<CarregadorCSV.Linha<T>> linhas, Function<List<T>, String[]> inclusao,
+                                           RelatorioImportacao relatorio) {
+        for (int de = 0; de < linhas.size(); de += TAMANHO_LOTE) {
+            List<CarregadorCSV.Linha<T>> fatia = linhas.subList(de, Math.min(de + TAMANHO_LOTE, linhas.size()));
+            List<T> lote = new ArrayList<>(fatia.size());
+            for (CarregadorCSV.Linha<T> l : fatia) lote.add(l.item);
+
+            String[] recusas = inclusao.apply(lote);
+            for (int i = 0; i < recusas.length; i++) {
+                if (recusas[i] == null) {
+                    relatorio.contarImportada();
+                } else {
+                    relatorio.rejeitar(fatia.get(i).numero, recusas[i], fatia.get(i).conteudo);
+                }
+            }
+        }
+    }
+
+    // --- Conversão e validação (executadas em paralelo; lançam IllegalArgumentException com o motivo) ---
+
+    private static Paciente converterPaciente(String linha, List<PlanoSaude> planos) {
+        String[] c = linha.split(";", -1);
+        String tipo = c[0].trim();
+        if (tipo.equals("PACIENTE_C")) {
+            exigirCampos(c, 4);
+        } else if (tipo.equals("PACIENTE_E")) {
+            exigirCampos(c, 5);
+        } else {
+            throw new IllegalArgumentException("Tipo de paciente desconhecido: '" + tipo + "' (use PACIENTE_C ou PACIENTE_E)");
+        }
+        String nome = nome(c[1]);
+        String cpf = cpf(c[2]);
+        int idade = idade(c[3], 0);
+        if (tipo.equals("PACIENTE_C")) {
+            return new Paciente(nome, cpf, idade);
+        }
+
+        String nomePlano = c[4].trim();
+        for (PlanoSaude plano : planos) {
+            if (plano.getNome().equalsIgnoreCase(nomePlano)) {
+                return new PacienteEspecial(nome, cpf, idade, plano);
+            }
+        }
+        throw new IllegalArgumentException("Plano de saúde desconhecido: '" + nomePlano + "'");
+    }
+
+    private static Medico converterMedico(String linha) {
+        String[] c = linha.split(";", -1);
+        exigirCampos(c, 7);
+        if (!c[0].trim().equals("MEDICO")) {
+            throw new IllegalArgumentException("Tipo desconhecido: '" + c[0].trim() + "' (use MEDICO)");
+        }
+        String nome = nome(c[1]);
+        String cpf = cpf(c[2]);
+        int idade = idade(c[3], IDADE_MINIMA_MEDICO);
+        String crm = crm(c[4]);
+        String especialidade = c[5].trim();
+        if (especialidade.isEmpty()) {
+            throw new IllegalArgumentException("Especialidade vazia");
+        }
+        double custo;
+        try {
+            custo = Double.parseDouble(c[6].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Custo da consulta inválido: '" + c[6].trim() + "'");
+        }
+        if (!(custo >= 0) || Double.isInfinite(custo)) {
+            throw new IllegalArgumentException("Custo da consulta fora do intervalo: " + custo);
+        }
+        return new Medico(nome, cpf, idade, crm, especialidade, custo);
+    }
+
+    private static LinhaConsulta converterConsulta(String linha) {
+        String[] c = linha.split(";", -1);
+        exigirCampos(c, 4);
+        LocalDateTime dataHora;
+        try {
+            dataHora = LocalDateTime.parse(c[2].trim(), FORMATO_DATA_HORA);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Data/hora inválida: '" + c[2].trim() + "' (use dd/MM/yyyy HH:mm)");
+        }
+        String local = c[3].trim();
+        if (local.isEmpty()) {
+            throw new IllegalArgumentException("Local vazio");
+        }
+        return new LinhaConsulta(cpf(c[0]), crm(c[1]), dataHora, local);
+    }
+
+    private static void exigirCampos(String[] campos, int esperados) {
+        if (campos.length != esperados) {
+            throw new IllegalArgumentException("Esperados " + esperados + " campos, encontrados " + campos.length);
+        }
+    }
+
+    private static String nome(String campo) {
+        String nome = campo.trim();
+        if (nome.isEmpty()) throw new IllegalArgumentException("Nome vazio");
+        return nome;
+    }
+
+    // CPF na forma canônica (só dígitos), para duas grafias não cadastrarem a mesma pessoa duas vezes
+    private static String cpf(String campo) {
+        String cpf = campo.trim();
+        if (!CPF.matcher(cpf).matches()) throw new IllegalArgumentException("CPF inválido: '" + cpf + "'");
+        return cpf.replace(".", "").replace("-", "");
+    }
+
+    // CRM na forma canônica: CRM + número, e /UF quando informada
+    private static String crm(String campo) {
+        String crm = campo.trim();
+        Matcher m = CRM.matcher(crm);
+        if (!m.matches()) throw new IllegalArgumentException("CRM inválido: '" + crm + "'");
+        return "CRM" + m.group(1) + (m.group(2) == null ? "" : "/" + m.group(2).toUpperCase());
+    }
+
+    private static int idade(String campo, int minima) {
+        int idade;
+        try {
+            idade = Integer.parseInt(campo.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Idade inválida: '" + campo.trim() + "'");
+        }
+        if (idade < minima || idade > IDADE_MAXIMA) {
+            throw new IllegalArgumentException("Idade fora do intervalo (" + minima + " a " + IDADE_MAXIMA + "): " + idade);
+        }
+        return idade;
+    }
+}
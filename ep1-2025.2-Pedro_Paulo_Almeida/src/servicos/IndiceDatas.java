@@ -0,0 +1,91 @@
+package servicos;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Índice por dia de uma partição: dia (da época) -> registros ativos daquele dia (pelo id) e
+// linhas do histórico arquivado. Só os dias com registros ficam no TreeMap, então um intervalo
+// custa O(log dias + dias com registros no intervalo + resultado), sem percorrer o resto.
+// Intervalos são fechados; null = sem limite. Não é thread-safe: o Hospital protege cada
+// índice com a trava da sua partição.
+class IndiceDatas<T> {
+    private static final int[] SEM_LINHAS = new int[0];
+
+    private final TreeMap<Integer, Dia<T>> dias = new TreeMap<>();
+
+    private static final class Dia<T> {
+        private final Map<Long, T> ativas = new HashMap<>(4);
+        private int[] linhas = SEM_LINHAS;
+        private int quantidade;
+
+        int total() { return ativas.size() + quantidade; }
+    }
+
+    void adicionarAtiva(LocalDate dia, long id, T registro) {
+        dias.computeIfAbsent((int) dia.toEpochDay(), d -> new Dia<>()).ativas.put(id, registro);
+    }
+
+    void removerAtiva(LocalDate dia, long id) {
+        int chave = (int) dia.toEpochDay();
+        Dia<T> d = dias.get(chave);
+        if (d == null) return;
+        d.ativas.remove(id);
+        if (d.total() == 0) dias.remove(chave);
+    }
+
+    void adicionarLinha(int dia, int linha) {
+        Dia<T> d = dias.computeIfAbsent(dia, k -> new Dia<>());
+        if (d.quantidade == d.linhas.length) d.linhas = Arrays.copyOf(d.linhas, Math.max(4, d.quantidade * 2));
+        d.linhas[d.quantidade++] = linha;
+    }
+
+    void limpar() {
+        dias.clear();
+    }
+
+    // Ativas do intervalo, na ordem dos dias (dentro do dia, sem ordem definida)
+    List<T> ativas(LocalDate inicio, LocalDate fim) {
+        List<T> resultado = new ArrayList<>();
+        for (Dia<T> d : intervalo(inicio, fim).values()) {
+            resultado.addAll(d.ativas.values());
+        }
+        return resultado;
+    }
+
+    // Linhas do histórico do intervalo, na ordem dos dias e, dentro do dia, de arquivamento
+    int[] linhas(LocalDate inicio, LocalDate fim) {
+        NavigableMap<Integer, Dia<T>> selecionados = intervalo(inicio, fim);
+        int total = 0;
+        for (Dia<T> d : selecionados.values()) total += d.quantidade;
+        int[] resultado = new int[total];
+        int pos = 0;
+        for (Dia<T> d : selecionados.values()) {
+            System.arraycopy(d.linhas, 0, resultado, pos, d.quantidade);
+            pos += d.quantidade;
+        }
+        return resultado;
+    }
+
+    // Registros (ativos e arquivados) por dia; dias sem registros não aparecem
+    SortedMap<LocalDate, Integer> contarPorDia(LocalDate inicio, LocalDate fim) {
+        SortedMap<LocalDate, Integer> contagem = new TreeMap<>();
+        for (Map.Entry<Integer, Dia<T>> e : intervalo(inicio, fim).entrySet()) {
+            contagem.put(LocalDate.ofEpochDay(e.getKey()), e.getValue().total());
+        }
+        return contagem;
+    }
+
+    private NavigableMap<Integer, Dia<T>> intervalo(LocalDate inicio, LocalDate fim) {
+        int de = (inicio == null) ? Integer.MIN_VALUE : (int) inicio.toEpochDay();
+        int ate = (fim == null) ? Integer.MAX_VALUE : (int) fim.toEpochDay();
+        if (de > ate) return new TreeMap<>();
+        return dias.subMap(de, true, ate, true);
+    }
+}
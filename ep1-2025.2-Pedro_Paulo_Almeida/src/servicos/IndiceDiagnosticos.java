@@ -0,0 +1,263 @@
+package servicos;
+
+import modelos.ArquivoConsultas;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Índice invertido dos diagnósticos das consultas concluídas: palavra -> postagens ordenadas
+// pelo id da consulta, cada uma com o dia, o médico e a linha no ArquivoConsultas, para filtrar
+// período e CRM sem abrir a consulta. Cresce a cada conclusão e é gravado junto com o snapshot
+// (ver salvar/carregar). Não é thread-safe: o Hospital o protege com a trava das consultas.
+class IndiceDiagnosticos {
+    private static final int MAGIC = 0x44494147; // "DIAG"
+    private static final int VERSAO = 2; // 2: com a linha no arquivo (o histórico em disco mantém as linhas)
+
+    // Palavras que não ajudam a distinguir diagnósticos
+    private static final Set<String> IRRELEVANTES = Set.of("a", "o", "as", "os", "de", "da", "do", "das", "dos",
+            "e", "em", "na", "no", "nas", "nos", "com", "sem", "por", "para", "um", "uma");
+
+    private final ArquivoConsultas arquivo;
+    private final Map<String, Postagens> porPalavra = new HashMap<>();
+    private final Map<String, Integer> idsMedicos = new HashMap<>();
+    private final List<String> crms = new ArrayList<>();
+    private int indexadas; // consultas com diagnóstico (conferido ao carregar do disco)
+
+    // Postagens de uma palavra em vetores paralelos, ordenados por id
+    private static class Postagens {
+        long[] ids = new long[4];
+        int[] dias = new int[4];
+        int[] medicos = new int[4];
+        int[] linhas = new int[4];
+        int tamanho;
+
+        // As conclusões chegam quase sempre em ordem de id; fora de ordem, desloca o final
+        void adicionar(long id, int dia, int medico, int linha) {
+            if (tamanho == ids.length) {
+                int capacidade = tamanho * 2;
+                ids = Arrays.copyOf(ids, capacidade);
+                dias = Arrays.copyOf(dias, capacidade);
+                medicos = Arrays.copyOf(medicos, capacidade);
+                linhas = Arrays.copyOf(linhas, capacidade);
+            }
+            int pos = tamanho;
+            while (pos > 0 && ids[pos - 1] > id) pos--;
+            if (pos > 0 && ids[pos - 1] == id) return; // mesma palavra repetida no diagnóstico
+            int mover = tamanho - pos;
+            System.arraycopy(ids, pos, ids, pos + 1, mover);
+            System.arraycopy(dias, pos, dias, pos + 1, mover);
+            System.arraycopy(medicos, pos, medicos, pos + 1, mover);
+            System.arraycopy(linhas, pos, linhas, pos + 1, mover);
+            ids[pos] = id;
+            dias[pos] = dia;
+            medicos[pos] = medico;
+            linhas[pos] = linha;
+            tamanho++;
+        }
+
+        // Primeira posição >= 'de' cujo id é >= id (busca galopante: as interseções avançam aos saltos)
+        int avancar(int de, long id) {
+            if (de >= tamanho || ids[de] >= id) return de;
+            int baixo = de; // ids[baixo] < id
+            int passo = 1;
+            int alto = de + 1;
+            while (alto < tamanho && ids[alto] < id) {
+                baixo = alto;
+                passo <<= 1;
+                alto = de + passo;
+            }
+            int pos = Arrays.binarySearch(ids, baixo + 1, Math.min(alto + 1, tamanho), id);
+            return pos >= 0 ? pos : -pos - 1;
+        }
+    }
+
+    IndiceDiagnosticos(ArquivoConsultas arquivo) {
+        this.arquivo = arquivo;
+    }
+
+    // Indexa a consulta da linha do arquivo (sem diagnóstico não entra)
+    void adicionar(int linha) {
+        String diagnostico = arquivo.getDiagnostico(linha);
+        if (diagnostico == null || diagnostico.isBlank()) return;
+        indexadas++;
+        long id = arquivo.getId(linha);
+        int dia = arquivo.getEpochDia(linha);
+        int medico = idMedico(arquivo.getMedico(linha).getCrm());
+        for (String palavra : palavras(diagnostico)) {
+            porPalavra.computeIfAbsent(palavra, p -> new Postagens()).adicionar(id, dia, medico, linha);
+        }
+    }
+
+    void limpar() {
+        porPalavra.clear();
+        idsMedicos.clear();
+        crms.clear();
+        indexadas = 0;
+    }
+
+    int getIndexadas() { return indexadas; }
+
+    /**
+     * Linhas (no ArquivoConsultas) das consultas cujo diagnóstico satisfaz a expressão, em ordem de id. Palavras separadas por
+     * espaço precisam aparecer todas (E); grupos separados por "ou" (ou "|") são alternativas:
+     * "pneumonia ou bronquite aguda" = pneumonia OU (bronquite E aguda).
+     * crm, inicio e fim (inclusive) são opcionais (null = sem filtro).
+     */
+    List<Integer> buscar(String expressao, String crm, LocalDate inicio, LocalDate fim) {
+        int medico = -1;
+        if (crm != null) {
+            Integer id = idsMedicos.get(crm);
+            if (id == null) return new ArrayList<>();
+            medico = id;
+        }
+        int diaInicial = inicio == null ? Integer.MIN_VALUE : (int) inicio.toEpochDay();
+        int diaFinal = fim == null ? Integer.MAX_VALUE : (int) fim.toEpochDay();
+
+        TreeMap<Long, Integer> resultado = new TreeMap<>();
+        // '|' vira " ou " antes da normalização (que trocaria o símbolo por espaço)
+        for (String grupo : IndiceNomes.normalizar(expressao.replace("|", " ou ")).split("(^| )ou( |$)")) {
+            List<Postagens> listas = new ArrayList<>();
+            boolean vazio = false;
+            for (String palavra : palavras(grupo)) {
+                Postagens p = porPalavra.get(palavra);
+                if (p == null) {
+                    vazio = true; // uma palavra sem ocorrências zera o grupo
+                    break;
+                }
+                listas.add(p);
+            }
+            if (vazio || listas.isEmpty()) continue;
+            intersectar(listas, medico, diaInicial, diaFinal, resultado);
+        }
+        return new ArrayList<>(resultado.values());
+    }
+
+    // Percorre a menor lista e procura cada id nas demais; filtros aplicados nas postagens
+    private static void intersectar(List<Postagens> listas, int medico, int diaInicial, int diaFinal,
+                                    Map<Long, Integer> resultado) {
+        listas.sort(Comparator.comparingInt(p -> p.tamanho));
+        Postagens menor = listas.get(0);
+        int[] posicoes = new int[listas.size()];
+
+        proxima:
+        for (int i = 0; i < menor.tamanho; i++) {
+            if (medico >= 0 && menor.medicos[i] != medico) continue;
+            int dia = menor.dias[i];
+            if (dia < diaInicial || dia > diaFinal) continue;
+            long id = menor.ids[i];
+            for (int l = 1; l < listas.size(); l++) {
+                Postagens outra = listas.get(l);
+                posicoes[l] = outra.avancar(posicoes[l], id);
+                if (posicoes[l] >= outra.tamanho) return; // as demais acabaram
+                if (outra.ids[posicoes[l]] != id) continue proxima;
+            }
+            resultado.put(id, menor.linhas[i]);
+        }
+    }
+
+    private int idMedico(String crm) {
+        Integer id = idsMedicos.get(crm);
+        if (id == null) {
+            id = crms.size();
+            crms.add(crm);
+            idsMedicos.put(crm, id);
+        }
+        return id;
+    }
+
+    private static List<String> palavras(String texto) {
+        List<String> relevantes = new ArrayList<>();
+        for (String palavra : IndiceNomes.palavras(texto)) {
+            if (palavra.length() > 1 && !IRRELEVANTES.contains(palavra)) relevantes.add(palavra);
+        }
+        return relevantes;
+    }
+
+    // --- Persistência ---
+    // MAGIC, VERSAO, segmento do diário do snapshot correspondente, tamanho do arquivo, consultas
+    // indexadas, tabela de CRMs e, por palavra: palavra, quantidade e (id, dia, médico, linha) de
+    // cada postagem.
+
+    void salvar(Path caminho, long segmentoDiario) throws IOException {
+        try (OutputStream arquivoSaida = Files.newOutputStream(caminho);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(arquivoSaida, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSAO);
+            out.writeLong(segmentoDiario);
+            out.writeInt(arquivo.tamanho());
+            out.writeInt(indexadas);
+            out.writeInt(crms.size());
+            for (String crm : crms) out.writeUTF(crm);
+            out.writeInt(porPalavra.size());
+            for (Map.Entry<String, Postagens> e : porPalavra.entrySet()) {
+                Postagens p = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeInt(p.tamanho);
+                for (int i = 0; i < p.tamanho; i++) {
+                    out.writeLong(p.ids[i]);
+                    out.writeInt(p.dias[i]);
+                    out.writeInt(p.medicos[i]);
+                    out.writeInt(p.linhas[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Carrega o índice gravado com o snapshot do segmento informado. Retorna false (e deixa o
+     * índice vazio) se o arquivo não corresponder a esse snapshot (outro segmento ou outro
+     * tamanho do ArquivoConsultas) ou se alguma linha cair fora do arquivo. Aí o Hospital o reconstrói.
+     */
+    boolean carregar(Path caminho, long segmentoDiario) throws IOException {
+        limpar();
+        try (InputStream arquivoEntrada = Files.newInputStream(caminho);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(arquivoEntrada, 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSAO || in.readLong() != segmentoDiario) return false;
+            if (in.readInt() != arquivo.tamanho()) return false;
+            int total = in.readInt();
+
+            int quantidadeCrms = in.readInt();
+            for (int i = 0; i < quantidadeCrms; i++) idMedico(in.readUTF());
+
+            int palavras = in.readInt();
+            for (int w = 0; w < palavras; w++) {
+                String palavra = in.readUTF();
+                int tamanho = in.readInt();
+                Postagens p = new Postagens();
+                p.ids = new long[Math.max(tamanho, 4)];
+                p.dias = new int[p.ids.length];
+                p.medicos = new int[p.ids.length];
+                p.linhas = new int[p.ids.length];
+                for (int i = 0; i < tamanho; i++) {
+                    p.ids[i] = in.readLong();
+                    p.dias[i] = in.readInt();
+                    p.medicos[i] = in.readInt();
+                    p.linhas[i] = in.readInt();
+                    if (p.linhas[i] < 0 || p.linhas[i] >= arquivo.tamanho()) {
+                        limpar();
+                        return false;
+                    }
+                }
+                p.tamanho = tamanho;
+                porPalavra.put(palavra, p);
+            }
+            indexadas = total;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package servicos;
+
+import modelos.Pessoa;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Índice de busca por nome (sem acento e sem diferenciar maiúsculas). Cada nome é quebrado em
+// palavras; o índice guarda palavra -> pessoas num TreeMap (busca por prefixo = faixa do mapa)
+// e, para tolerar erros de digitação, trigrama -> palavras, conferido depois por Levenshtein.
+// Como nomes se repetem muito, o número de palavras distintas é bem menor que o de pessoas,
+// e é sobre ele que as buscas trabalham. Não é thread-safe: o Hospital o protege com a trava
+// de cadastro.
+class IndiceNomes<T extends Pessoa> {
+    private final TreeMap<String, List<T>> porPalavra = new TreeMap<>();
+    private final Map<String, Set<String>> porTrigrama = new HashMap<>();
+
+    void adicionar(T pessoa) {
+        for (String palavra : palavras(pessoa.getNome())) {
+            List<T> pessoas = porPalavra.get(palavra);
+            if (pessoas == null) {
+                pessoas = new ArrayList<>(1);
+                porPalavra.put(palavra, pessoas);
+                for (String trigrama : trigramas(palavra)) {
+                    porTrigrama.computeIfAbsent(trigrama, t -> new HashSet<>()).add(palavra);
+                }
+            }
+            if (pessoas.isEmpty() || pessoas.get(pessoas.size() - 1) != pessoa) { // ex.: "Maria Maria"
+                pessoas.add(pessoa);
+            }
+        }
+    }
+
+    // Cada palavra da consulta tem de ser início de uma palavra do nome ("mar sou" acha
+    // "Maria Souza"). Percorre a faixa da palavra mais seletiva, em ordem alfabética,
+    // e para ao juntar 'limite' pessoas.
+    List<T> buscarPorPrefixo(String consulta, int limite) {
+        String[] termos = palavras(consulta);
+        if (termos.length == 0 || limite <= 0) return new ArrayList<>();
+
+        NavigableMap<String, List<T>> faixa = null;
+        long menor = Long.MAX_VALUE;
+        for (String termo : termos) {
+            NavigableMap<String, List<T>> f = faixaDoPrefixo(termo);
+            long total = 0;
+            for (List<T> pessoas : f.values()) {
+                total += pessoas.size();
+                if (total >= menor) break; // já não é a mais seletiva
+            }
+            if (total < menor) {
+                menor = total;
+                faixa = f;
+            }
+        }
+
+        List<T> encontrados = new ArrayList<>();
+        Set<T> vistos = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (List<T> pessoas : faixa.values()) {
+            for (T p : pessoas) {
+                if (termos.length > 1 && !contemPrefixos(palavras(p.getNome()), termos)) continue;
+                if (vistos.add(p)) {
+                    encontrados.add(p);
+                    if (encontrados.size() == limite) return encontrados;
+                }
+            }
+        }
+        return encontrados;
+    }
+
+    // Tolera erros de digitação: cada palavra da consulta pode diferir de uma palavra do nome
+    // em até 1 edição (palavras de 3 a 5 letras) ou 2 (mais longas); a última é comparada
+    // como prefixo, para aceitar nomes digitados pela metade. Ordena pela soma das distâncias.
+    List<T> buscarAproximado(String consulta, int limite) {
+        String[] termos = palavras(consulta);
+        if (termos.length == 0 || limite <= 0) return new ArrayList<>();
+
+        // Para cada termo, as palavras do índice próximas o bastante, com a distância
+        List<Map<String, Integer>> proximas = new ArrayList<>();
+        int guia = 0;
+        long menor = Long.MAX_VALUE;
+        for (int t = 0; t < termos.length; t++) {
+            Map<String, Integer> palavras = palavrasProximas(termos[t], t == termos.length - 1);
+            if (palavras.isEmpty()) return new ArrayList<>();
+            proximas.add(palavras);
+            long total = 0;
+            for (String palavra : palavras.keySet()) total += porPalavra.get(palavra).size();
+            if (total < menor) {
+                menor = total;
+                guia = t;
+            }
+        }
+
+        Map<T, Integer> distancias = new IdentityHashMap<>();
+        for (String palavra : proximas.get(guia).keySet()) {
+            for (T p : porPalavra.get(palavra)) {
+                if (distancias.containsKey(p)) continue;
+                int soma = distanciaTotal(palavras(p.getNome()), proximas);
+                if (soma >= 0) distancias.put(p, soma);
+            }
+        }
+
+        List<T> encontrados = new ArrayList<>(distancias.keySet());
+        encontrados.sort(Comparator.<T>comparingInt(distancias::get).thenComparing(p -> normalizar(p.getNome())));
+        return encontrados.size() > limite ? new ArrayList<>(encontrados.subList(0, limite)) : encontrados;
+    }
+
+    private NavigableMap<String, List<T>> faixaDoPrefixo(String prefixo) {
+        return porPalavra.subMap(prefixo, true, prefixo + Character.MAX_VALUE, false);
+    }
+
+    private static boolean contemPrefixos(String[] palavrasNome, String[] termos) {
+        for (String termo : termos) {
+            boolean achou = false;
+            for (String palavra : palavrasNome) {
+                if (palavra.startsWith(termo)) {
+                    achou = true;
+                    break;
+                }
+            }
+            if (!achou) return false;
+        }
+        return true;
+    }
+
+    // Candidatas = palavras que compartilham trigramas suficientes com o termo (cada edição
+    // desfaz no máximo 3 trigramas; a troca de vizinhas, 4); a distância de edição decide
+    private Map<String, Integer> palavrasProximas(String termo, boolean comoPrefixo) {
+        int tolerancia = tolerancia(termo);
+        Map<String, Integer> proximas = new HashMap<>();
+        if (tolerancia == 0) {
+            for (String palavra : (comoPrefixo ? faixaDoPrefixo(termo) : porPalavra.subMap(termo, true, termo, true)).keySet()) {
+                proximas.put(palavra, 0);
+            }
+            return proximas;
+        }
+
+        List<String> trigramasTermo = trigramas(termo);
+        int minimo = Math.max(1, trigramasTermo.size() - 4 * tolerancia);
+        Map<String, Integer> compartilhados = new HashMap<>();
+        for (String trigrama : trigramasTermo) {
+            Set<String> palavras = porTrigrama.get(trigrama);
+            if (palavras == null) continue;
+            for (String palavra : palavras) compartilhados.merge(palavra, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> candidata : compartilhados.entrySet()) {
+            if (candidata.getValue() < minimo) continue;
+            int d = distancia(termo, candidata.getKey(), comoPrefixo, tolerancia);
+            if (d <= tolerancia) proximas.put(candidata.getKey(), d);
+        }
+        return proximas;
+    }
+
+    // Soma, para cada termo, a menor distância até alguma palavra do nome (-1 se algum não casar)
+    private static int distanciaTotal(String[] palavrasNome, List<Map<String, Integer>> proximas) {
+        int soma = 0;
+        for (Map<String, Integer> doTermo : proximas) {
+            int melhor = Integer.MAX_VALUE;
+            for (String palavra : palavrasNome) {
+                Integer d = doTermo.get(palavra);
+                if (d != null && d < melhor) melhor = d;
+            }
+            if (melhor == Integer.MAX_VALUE) return -1;
+            soma += melhor;
+        }
+        return soma;
+    }
+
+    private static int tolerancia(String termo) {
+        if (termo.length() < 3) return 0;
+        return termo.length() <= 5 ? 1 : 2;
+    }
+
+    // Distância de edição entre 'termo' e 'palavra' (ou o prefixo de 'palavra' mais próximo, se
+    // comoPrefixo), contando a troca de duas letras vizinhas como uma edição só ("marai" -> "maria").
+    // Desiste quando duas linhas seguidas passam do limite, o que descarta rápido as candidatas ruins.
+    static int distancia(String termo, String palavra, boolean comoPrefixo, int limite) {
+        int n = termo.length();
+        int m = palavra.length();
+        if (!comoPrefixo && Math.abs(n - m) > limite) return limite + 1;
+
+        // Colunas = posições em 'termo', linhas = letras de 'palavra'
+        int[] antepenultima = new int[n + 1];
+        int[] anterior = new int[n + 1];
+        int[] atual = new int[n + 1];
+        for (int i = 0; i <= n; i++) anterior[i] = i;
+        int melhorPrefixo = anterior[n];
+        int menorDaAnterior = 0;
+
+        for (int j = 1; j <= m; j++) {
+            atual[0] = j;
+            int menorDaLinha = atual[0];
+            char c = palavra.charAt(j - 1);
+            for (int i = 1; i <= n; i++) {
+                char t = termo.charAt(i - 1);
+                int custo = t == c ? 0 : 1;
+                int d = Math.min(Math.min(atual[i - 1] + 1, anterior[i] + 1), anterior[i - 1] + custo);
+                if (i > 1 && j > 1 && t == palavra.charAt(j - 2) && termo.charAt(i - 2) == c) {
+                    d = Math.min(d, antepenultima[i - 2] + 1);
+                }
+                atual[i] = d;
+                if (d < menorDaLinha) menorDaLinha = d;
+            }
+            if (atual[n] < melhorPrefixo) melhorPrefixo = atual[n];
+            if (menorDaLinha > limite && menorDaAnterior > limite) {
+                return comoPrefixo ? Math.min(melhorPrefixo, limite + 1) : limite + 1;
+            }
+            menorDaAnterior = menorDaLinha;
+            int[] troca = antepenultima;
+            antepenultima = anterior;
+            anterior = atual;
+            atual = troca;
+        }
+        return comoPrefixo ? melhorPrefixo : anterior[n];
+    }
+
+    // Trigramas com marcação só no início ("$$m", "$ma", "mar", ...), para que a palavra
+    // digitada pela metade compartilhe trigramas com a inteira
+    private static List<String> trigramas(String palavra) {
+        String marcada = "$$" + palavra;
+        List<String> trigramas = new ArrayList<>(marcada.length() - 2);
+        for (int i = 0; i + 3 <= marcada.length(); i++) {
+            trigramas.add(marcada.substring(i, i + 3));
+        }
+        return trigramas;
+    }
+
+    static String[] palavras(String texto) {
+        String normalizado = normalizar(texto);
+        return normalizado.isEmpty() ? new String[0] : normalizado.split(" ");
+    }
+
+    // "  José  da SILVA " -> "jose da silva"
+    static String normalizar(String texto) {
+        if (texto == null) return "";
+        String semAcento = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(semAcento.length());
+        boolean espaco = true; // evita espaço no início e espaços repetidos
+        for (int i = 0; i < semAcento.length(); i++) {
+            char c = semAcento.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+                espaco = false;
+            } else if (!espaco) {
+                sb.append(' ');
+                espaco = true;
+            }
+        }
+        int fim = sb.length();
+        if (fim > 0 && sb.charAt(fim - 1) == ' ') sb.setLength(fim - 1);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,69 @@
+package servicos;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Modelo de horário de atendimento: turnos [inicio, fim) por dia da semana. Os horários de
+// consulta começam no início de cada turno e avançam de uma duração de consulta, sem
+// ultrapassar o fim. Uso: new JornadaTrabalho().turno(DayOfWeek.MONDAY, "08:00", "12:00")
+public class JornadaTrabalho {
+    private final Map<DayOfWeek, List<LocalTime[]>> turnos = new EnumMap<>(DayOfWeek.class);
+
+    // Segunda a sexta, 08:00-12:00 e 13:00-17:00
+    public static JornadaTrabalho padrao() {
+        JornadaTrabalho jornada = new JornadaTrabalho();
+        for (DayOfWeek dia : DayOfWeek.values()) {
+            if (dia == DayOfWeek.SATURDAY || dia == DayOfWeek.SUNDAY) continue;
+            jornada.turno(dia, "08:00", "12:00").turno(dia, "13:00", "17:00");
+        }
+        return jornada;
+    }
+
+    public JornadaTrabalho turno(DayOfWeek dia, String inicio, String fim) {
+        return turno(dia, LocalTime.parse(inicio), LocalTime.parse(fim));
+    }
+
+    public JornadaTrabalho turno(DayOfWeek dia, LocalTime inicio, LocalTime fim) {
+        if (!inicio.isBefore(fim)) {
+            throw new IllegalArgumentException("Turno inválido: " + inicio + "-" + fim);
+        }
+        List<LocalTime[]> doDia = turnos.computeIfAbsent(dia, d -> new ArrayList<>());
+        doDia.add(new LocalTime[] { inicio, fim });
+        doDia.sort(Comparator.comparing((LocalTime[] t) -> t[0]));
+        return this;
+    }
+
+    public boolean isVazia() { return turnos.isEmpty(); }
+
+    /**
+     * Primeiro início de consulta >= aPartirDe que cabe inteiro num turno, ou null se não houver
+     * nenhum antes de limite. Dias sem turno são pulados sem olhar horário nenhum.
+     */
+    LocalDateTime proximoInicio(LocalDateTime aPartirDe, Duration duracao, LocalDateTime limite) {
+        long passo = duracao.toMinutes();
+        if (passo <= 0 || turnos.isEmpty()) return null;
+        for (LocalDate dia = aPartirDe.toLocalDate(); !dia.atStartOfDay().isAfter(limite); dia = dia.plusDays(1)) {
+            List<LocalTime[]> doDia = turnos.get(dia.getDayOfWeek());
+            if (doDia == null) continue;
+            for (LocalTime[] turno : doDia) {
+                LocalDateTime inicio = dia.atTime(turno[0]);
+                LocalDateTime fim = dia.atTime(turno[1]);
+                long atraso = Duration.between(inicio, aPartirDe).toMinutes();
+                if (atraso > 0) {
+                    // arredonda para cima até o próximo horário da grade do turno
+                    inicio = inicio.plusMinutes((atraso + passo - 1) / passo * passo);
+                }
+                if (!inicio.plusMinutes(passo).isAfter(fim) && inicio.isBefore(limite)) return inicio;
+            }
+        }
+        return null;
+    }
+}
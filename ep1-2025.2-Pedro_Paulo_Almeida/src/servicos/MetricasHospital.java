@@ -0,0 +1,175 @@
+package servicos;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Métricas das operações do Hospital: um histograma de latência e um contador de falhas por
+// operação, mais indicadores (tamanhos) calculados só quando alguém lê. Registrar custa duas
+// leituras de System.nanoTime() e alguns incrementos atômicos; buscas por CPF/CRM só contam.
+public class MetricasHospital implements MetricasHospitalMBean {
+    public enum Operacao {
+        CADASTRAR_PACIENTE, CADASTRAR_MEDICO,
+        AGENDAR_CONSULTA, AGENDAR_INTERNACAO,
+        CONCLUIR_CONSULTA, CONCLUIR_INTERNACAO,
+        CARREGAR_DADOS, CARREGAR_CSV, SALVAR_SNAPSHOT, SALVAR_CSV, IMPORTAR_LOTE
+    }
+
+    private static final String NOME_JMX = "servicos:type=Hospital";
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    private final Hospital hospital;
+    private final Map<Operacao, Histograma> latencias = new EnumMap<>(Operacao.class);
+    private final Map<Operacao, LongAdder> falhas = new EnumMap<>(Operacao.class);
+    private final LongAdder buscas = new LongAdder();
+    private final Histograma esperaFila = new Histograma(); // da entrada na fila de internação até o quarto
+    private ScheduledExecutorService despejo;
+
+    MetricasHospital(Hospital hospital) {
+        this.hospital = hospital;
+        for (Operacao op : Operacao.values()) {
+            latencias.put(op, new Histograma());
+            falhas.put(op, new LongAdder());
+        }
+    }
+
+    // Registra a duração desde 'inicio' (System.nanoTime()) e devolve o próprio resultado,
+    // para poder ser usado direto no return do método medido
+    boolean registrar(Operacao op, long inicio, boolean sucesso) {
+        latencias.get(op).registrar(System.nanoTime() - inicio);
+        if (!sucesso) falhas.get(op).increment();
+        return sucesso;
+    }
+
+    void registrar(Operacao op, long inicio) {
+        latencias.get(op).registrar(System.nanoTime() - inicio);
+    }
+
+    void contarBusca() {
+        buscas.increment();
+    }
+
+    void registrarEspera(Duration espera) {
+        esperaFila.registrar(espera.toNanos());
+    }
+
+    // --- Publicação: JMX e despejo periódico em texto ---
+
+    public void registrarJMX() {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nome = new ObjectName(NOME_JMX);
+            if (servidor.isRegistered(nome)) {
+                servidor.unregisterMBean(nome); // vale o hospital mais recente
+            }
+            servidor.registerMBean(this, nome);
+        } catch (JMException e) {
+            hospital.mensagens().println("[AVISO] Não foi possível registrar as métricas no JMX: " + e.getMessage());
+        }
+    }
+
+    // Escreve resumo() no destino a cada intervalo, numa thread daemon
+    public synchronized void iniciarDespejo(long intervaloSegundos, PrintStream destino) {
+        pararDespejo();
+        despejo = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metricas-hospital");
+            t.setDaemon(true);
+            return t;
+        });
+        despejo.scheduleAtFixedRate(() -> {
+            destino.println(resumo());
+            destino.flush();
+        }, intervaloSegundos, intervaloSegundos, TimeUnit.SECONDS);
+    }
+
+    public synchronized void pararDespejo() {
+        if (despejo != null) {
+            despejo.shutdownNow();
+            despejo = null;
+        }
+    }
+
+    // --- Leitura ---
+
+    @Override public int getPacientes() { return hospital.contarPacientes(); }
+    @Override public int getMedicos() { return hospital.contarMedicos(); }
+    @Override public int getConsultasAtivas() { return hospital.contarConsultasAtivas(); }
+    @Override public int getInternacoesAtivas() { return hospital.contarInternacoesAtivas(); }
+    @Override public long getHistoricoConsultas() { return hospital.contarHistoricoConsultas(); }
+    @Override public long getHistoricoInternacoes() { return hospital.contarHistoricoInternacoes(); }
+    @Override public long getBuscas() { return buscas.sum(); }
+    @Override public int getOperacoesNaoGravadas() { return hospital.contarOperacoesNaoGravadas(); }
+    @Override public int getPedidosNaFilaInternacao() { return hospital.contarFilaInternacao(); }
+    @Override public long getPedidosAtendidos() { return esperaFila.getTotal(); }
+    @Override public double getEsperaMediaMinutos() { return esperaFila.getMedia() / 60e9; }
+
+    @Override
+    public double esperaPercentilMinutos(double percentil) {
+        return esperaFila.percentil(percentil) / 60e9;
+    }
+
+    @Override
+    public long getSegundosDesdeUltimaGravacao() {
+        Duration idade = hospital.getIdadeUltimaGravacao();
+        return (idade == null) ? -1 : idade.getSeconds();
+    }
+
+    @Override
+    public String[] getOperacoes() {
+        Operacao[] ops = Operacao.values();
+        String[] nomes = new String[ops.length];
+        for (int i = 0; i < ops.length; i++) nomes[i] = ops[i].name();
+        return nomes;
+    }
+
+    @Override public long contagem(String operacao) { return latencias.get(operacao(operacao)).getTotal(); }
+    @Override public long falhas(String operacao) { return falhas.get(operacao(operacao)).sum(); }
+
+    @Override
+    public double percentilMs(String operacao, double percentil) {
+        return latencias.get(operacao(operacao)).percentil(percentil) / 1e6;
+    }
+
+    @Override public double mediaMs(String operacao) { return latencias.get(operacao(operacao)).getMedia() / 1e6; }
+    @Override public double maximoMs(String operacao) { return latencias.get(operacao(operacao)).getMaximo() / 1e6; }
+
+    @Override
+    public String resumo() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("--- MÉTRICAS DO HOSPITAL (").append(LocalDateTime.now().format(FORMATO_HORA)).append(") ---\n");
+        sb.append(String.format("Pacientes: %d | Médicos: %d | Consultas ativas: %d | Internações ativas: %d%n",
+                getPacientes(), getMedicos(), getConsultasAtivas(), getInternacoesAtivas()));
+        sb.append(String.format("Histórico: %d consultas, %d internações | Buscas por CPF/CRM: %d%n",
+                getHistoricoConsultas(), getHistoricoInternacoes(), getBuscas()));
+        long idade = getSegundosDesdeUltimaGravacao();
+        sb.append(String.format("Último snapshot: %s | Operações não gravadas: %d%n",
+                idade < 0 ? "nenhum" : "há " + idade + "s", getOperacoesNaoGravadas()));
+        sb.append(String.format("Fila de internação: %d pedidos | %d atendidos, espera média %.1f min, p99 %.1f min%n",
+                getPedidosNaFilaInternacao(), getPedidosAtendidos(), getEsperaMediaMinutos(), esperaPercentilMinutos(99)));
+        sb.append(String.format("%-20s %9s %7s %10s %10s %10s %10s %10s%n",
+                "operação", "total", "falhas", "média ms", "p50 ms", "p99 ms", "p99.9 ms", "máx ms"));
+        for (Operacao op : Operacao.values()) {
+            Histograma h = latencias.get(op);
+            if (h.getTotal() == 0) continue;
+            sb.append(String.format("%-20s %9d %7d %10.3f %10.3f %10.3f %10.3f %10.3f%n", op, h.getTotal(),
+                    falhas.get(op).sum(), h.getMedia() / 1e6, h.percentil(50) / 1e6, h.percentil(99) / 1e6,
+                    h.percentil(99.9) / 1e6, h.getMaximo() / 1e6));
+        }
+        return sb.toString();
+    }
+
+    private static Operacao operacao(String nome) {
+        return Operacao.valueOf(nome.trim().toUpperCase());
+    }
+}
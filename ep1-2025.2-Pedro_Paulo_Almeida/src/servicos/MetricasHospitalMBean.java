@@ -0,0 +1,28 @@
+package servicos;
+
+// Interface JMX (MBean padrão) das métricas do Hospital, registrada como "servicos:type=Hospital".
+// Tempos em milissegundos; o nome da operação é o de MetricasHospital.Operacao (ex.: AGENDAR_CONSULTA).
+public interface MetricasHospitalMBean {
+    int getPacientes();
+    int getMedicos();
+    int getConsultasAtivas();
+    int getInternacoesAtivas();
+    long getHistoricoConsultas();
+    long getHistoricoInternacoes();
+    long getBuscas();
+    long getSegundosDesdeUltimaGravacao(); // -1 = nenhum snapshot gravado ou carregado
+    int getOperacoesNaoGravadas();
+    int getPedidosNaFilaInternacao();
+    long getPedidosAtendidos(); // pedidos que saíram da fila com quarto
+    double getEsperaMediaMinutos();
+    double esperaPercentilMinutos(double percentil);
+
+    String[] getOperacoes();
+    long contagem(String operacao);
+    long falhas(String operacao);
+    double percentilMs(String operacao, double percentil);
+    double mediaMs(String operacao);
+    double maximoMs(String operacao);
+
+    String resumo();
+}
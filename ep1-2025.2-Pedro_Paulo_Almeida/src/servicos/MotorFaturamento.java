@@ -0,0 +1,332 @@
+package servicos;
+
+import modelos.*;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.DecimalFormatSymbols;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Emissão das faturas de um período (fechamento do mês) para todos os pacientes:
+//   - consultas CONCLUÍDAS com data no período, pelo valor cobrado (já com plano e idade);
+//   - internações (ativas ou com alta) pelas diárias dentro do período, até a data de corte,
+//     respeitando os dias gratuitos do plano com internação garantida.
+// A data de corte é explícita e "hoje" vem de um Clock, então a mesma emissão sempre gera o
+// mesmo arquivo. Os pacientes são processados em janelas: cada janela é calculada em paralelo
+// (fork-join, blocos de PACIENTES_POR_TAREFA) com as travas de leitura do Hospital e escrita
+// no destino, em ordem, antes da próxima; a memória usada não depende do total de pacientes.
+public class MotorFaturamento {
+    private static final int PACIENTES_POR_JANELA = 32_768;
+    private static final int PACIENTES_POR_TAREFA = 512;
+    private static final DateTimeFormatter DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter DATA_HORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final char SEPARADOR_DECIMAL = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+    private final Hospital hospital;
+    private final Clock relogio;
+    private final ForkJoinPool pool;
+
+    public MotorFaturamento(Hospital hospital) {
+        this(hospital, Clock.systemDefaultZone());
+    }
+
+    public MotorFaturamento(Hospital hospital, Clock relogio) {
+        this(hospital, relogio, ForkJoinPool.commonPool());
+    }
+
+    public MotorFaturamento(Hospital hospital, Clock relogio, ForkJoinPool pool) {
+        this.hospital = hospital;
+        this.relogio = relogio;
+        this.pool = pool;
+    }
+
+    // Fechamento do mês: do dia 1 ao último dia (ou até hoje, se o mês ainda está em curso)
+    public Resultado fecharMes(YearMonth mes, Writer destino) throws IOException {
+        return emitir(mes.atDay(1), mes.atEndOfMonth(), destino);
+    }
+
+    /**
+     * Emite as faturas do período [inicio, corte] no destino (uma por paciente com cobrança).
+     * Um corte depois de hoje (pelo relógio) é limitado a hoje: diárias futuras não são cobradas.
+     */
+    public Resultado emitir(LocalDate inicio, LocalDate corte, Writer destino) throws IOException {
+        long inicioNanos = System.nanoTime();
+        LocalDate hoje = LocalDate.now(relogio);
+        LocalDate fim = corte.isAfter(hoje) ? hoje : corte;
+        if (fim.isBefore(inicio)) {
+            throw new IllegalArgumentException("Período vazio: " + inicio + " a " + fim);
+        }
+        Periodo periodo = new Periodo(inicio, fim);
+
+        Resultado resultado = new Resultado(inicio, fim);
+        destino.write("FATURAMENTO DE ");
+        destino.write(DATA.format(inicio));
+        destino.write(" A ");
+        destino.write(DATA.format(fim));
+        destino.write(" (emitido em ");
+        destino.write(DATA.format(hoje));
+        destino.write(")\n\n");
+
+        List<Paciente> pacientes = hospital.getPacientes();
+        for (int de = 0; de < pacientes.size(); de += PACIENTES_POR_JANELA) {
+            List<Paciente> janela = pacientes.subList(de, Math.min(de + PACIENTES_POR_JANELA, pacientes.size()));
+            Bloco[] blocos = new Bloco[(janela.size() + PACIENTES_POR_TAREFA - 1) / PACIENTES_POR_TAREFA];
+
+            // As internações ativas são lidas de novo a cada janela: uma alta entre janelas
+            // move a internação para o histórico, e ela não pode ser cobrada duas vezes
+            hospital.lerParaFaturamento(ativas -> {
+                pool.invoke(new Tarefa(new Contexto(hospital, porPaciente(ativas), periodo), janela, blocos, 0, blocos.length));
+                return null;
+            });
+
+            for (Bloco bloco : blocos) {
+                destino.append(bloco.texto);
+                resultado.somar(bloco);
+            }
+        }
+
+        destino.write("TOTAL: ");
+        destino.write(Integer.toString(resultado.faturas));
+        destino.write(" fatura(s) | Consultas: R$");
+        escreverValor(destino, resultado.centavosConsultas);
+        destino.write(" | Internações: R$");
+        escreverValor(destino, resultado.centavosInternacoes);
+        destino.write(" | Total: R$");
+        escreverValor(destino, resultado.centavosConsultas + resultado.centavosInternacoes);
+        destino.write('\n');
+        destino.flush();
+
+        resultado.duracaoNanos = System.nanoTime() - inicioNanos;
+        return resultado;
+    }
+
+    private static Map<Paciente, List<Internacao>> porPaciente(Collection<Internacao> ativas) {
+        Map<Paciente, List<Internacao>> mapa = new HashMap<>();
+        for (Internacao i : ativas) {
+            mapa.computeIfAbsent(i.getPaciente(), p -> new ArrayList<>(1)).add(i);
+        }
+        return mapa;
+    }
+
+    private static class Periodo {
+        final LocalDate inicio;
+        final LocalDate fim;
+        final LocalDate vespera; // corte anterior: custo do período = custoAte(fim) - custoAte(vespera)
+
+        Periodo(LocalDate inicio, LocalDate fim) {
+            this.inicio = inicio;
+            this.fim = fim;
+            this.vespera = inicio.minusDays(1);
+        }
+
+        boolean contem(LocalDate dia) {
+            return !dia.isBefore(inicio) && !dia.isAfter(fim);
+        }
+    }
+
+    // Faturas de um bloco de pacientes (texto pronto e totais)
+    private static class Bloco {
+        final StringBuilder texto = new StringBuilder();
+        int faturas;
+        long centavosConsultas;
+        long centavosInternacoes;
+    }
+
+    // O que as tarefas de uma janela compartilham. Os históricos são lidos pelas linhas de cada
+    // paciente direto dos arquivos, sem passar pelo cache (a emissão lê todos uma única vez).
+    private static class Contexto {
+        final ArquivoConsultas historicoConsultas;
+        final ArquivoInternacoes historicoInternacoes;
+        final Map<Paciente, List<Internacao>> ativas;
+        final Periodo periodo;
+
+        Contexto(Hospital hospital, Map<Paciente, List<Internacao>> ativas, Periodo periodo) {
+            this.historicoConsultas = hospital.getArquivoConsultas();
+            this.historicoInternacoes = hospital.getArquivoInternacoes();
+            this.ativas = ativas;
+            this.periodo = periodo;
+        }
+    }
+
+    // Divide os blocos da janela ao meio até sobrar um; cada folha fatura PACIENTES_POR_TAREFA pacientes
+    private static class Tarefa extends RecursiveAction {
+        private static final long serialVersionUID = 1L; // ForkJoinTask é Serializable; a tarefa nunca é serializada
+
+        private final Contexto contexto;
+        private final List<Paciente> janela;
+        private final Bloco[] blocos;
+        private final int primeiro;
+        private final int fim;
+
+        Tarefa(Contexto contexto, List<Paciente> janela, Bloco[] blocos, int primeiro, int fim) {
+            this.contexto = contexto;
+            this.janela = janela;
+            this.blocos = blocos;
+            this.primeiro = primeiro;
+            this.fim = fim;
+        }
+
+        @Override
+        protected void compute() {
+            if (fim - primeiro > 1) {
+                int meio = (primeiro + fim) >>> 1;
+                invokeAll(new Tarefa(contexto, janela, blocos, primeiro, meio),
+                          new Tarefa(contexto, janela, blocos, meio, fim));
+                return;
+            }
+            Bloco bloco = new Bloco();
+            int de = primeiro * PACIENTES_POR_TAREFA;
+            int ate = Math.min(de + PACIENTES_POR_TAREFA, janela.size());
+            for (int i = de; i < ate; i++) {
+                faturar(janela.get(i), contexto, bloco);
+            }
+            blocos[primeiro] = bloco;
+        }
+    }
+
+    private static void faturar(Paciente p, Contexto contexto, Bloco bloco) {
+        ArquivoConsultas historicoConsultas = contexto.historicoConsultas;
+        ArquivoInternacoes historicoInternacoes = contexto.historicoInternacoes;
+        Periodo periodo = contexto.periodo;
+        StringBuilder sb = bloco.texto;
+        int inicioFatura = sb.length();
+        long consultas = 0;
+        long internacoes = 0;
+        boolean cabecalho = false;
+
+        for (int l : historicoConsultas.linhas(p)) {
+            if (historicoConsultas.getStatus(l) != StatusConsulta.CONCLUIDA || !periodo.contem(historicoConsultas.getDia(l))) continue;
+            if (!cabecalho) cabecalho = cabecalho(sb, p, periodo);
+            long centavos = Math.round(historicoConsultas.getValorCobrado(l) * 100);
+            Medico m = historicoConsultas.getMedico(l);
+            sb.append("  Consulta #").append(historicoConsultas.getId(l)).append(" em ");
+            DATA_HORA.formatTo(historicoConsultas.getDataHora(l), sb);
+            sb.append(" - ").append(m.getNome()).append(" (").append(m.getEspecialidade())
+              .append("): R$");
+            escreverValor(sb, centavos);
+            sb.append('\n');
+            consultas += centavos;
+        }
+
+        for (int l : historicoInternacoes.linhas(p)) {
+            // Só recria as concluídas que cruzam o período (sem data de saída, deixa a regra decidir)
+            int saida = historicoInternacoes.getEpochSaida(l);
+            if (historicoInternacoes.getStatus(l) != StatusInternacao.CONCLUIDA
+                    || historicoInternacoes.getEpochEntrada(l) > periodo.fim.toEpochDay()
+                    || (saida != Integer.MIN_VALUE && saida < periodo.inicio.toEpochDay())) continue;
+            internacoes += faturar(historicoInternacoes.internacao(l), p, periodo, sb, cabecalho);
+            if (sb.length() > inicioFatura) cabecalho = true;
+        }
+        List<Internacao> ativas = contexto.ativas.get(p);
+        if (ativas != null) {
+            for (Internacao i : ativas) {
+                internacoes += faturar(i, p, periodo, sb, cabecalho);
+                if (sb.length() > inicioFatura) cabecalho = true;
+            }
+        }
+
+        if (!cabecalho) return;
+        sb.append("  Total: R$");
+        escreverValor(sb, consultas + internacoes);
+        sb.append("\n\n");
+        bloco.faturas++;
+        bloco.centavosConsultas += consultas;
+        bloco.centavosInternacoes += internacoes;
+    }
+
+    // Diárias da internação que caem no período (0 se nenhuma)
+    private static long faturar(Internacao i, Paciente p, Periodo periodo, StringBuilder sb, boolean cabecalho) {
+        long dias = i.contarDiasAte(periodo.fim) - i.contarDiasAte(periodo.vespera);
+        if (dias <= 0) return 0;
+        long centavos = Math.round(i.calcularCustoAte(periodo.fim) * 100)
+                - Math.round(i.calcularCustoAte(periodo.vespera) * 100);
+
+        if (!cabecalho) cabecalho(sb, p, periodo);
+        sb.append("  Internação #").append(i.getId()).append(" - quarto ").append(i.getNumeroQuarto())
+          .append(", entrada ");
+        DATA.formatTo(i.getDataEntrada(), sb);
+        sb.append(i.getDataSaida() == null ? ", em andamento" : ", alta ");
+        if (i.getDataSaida() != null) DATA.formatTo(i.getDataSaida(), sb);
+        sb.append(": ").append(dias).append(" diária(s) no período");
+        long gratuitas = dias - Math.round(centavos / (i.getCustoDiario() * 100));
+        if (gratuitas > 0) sb.append(", ").append(gratuitas).append(" gratuita(s) pelo plano");
+        sb.append(": R$");
+        escreverValor(sb, centavos);
+        sb.append('\n');
+        return centavos;
+    }
+
+    private static boolean cabecalho(StringBuilder sb, Paciente p, Periodo periodo) {
+        sb.append("FATURA | ").append(p.getNome()).append(" | CPF ").append(p.getCpf());
+        if (p instanceof PacienteEspecial) {
+            sb.append(" | ").append(((PacienteEspecial) p).getPlano().getNome());
+        }
+        sb.append(" | ");
+        DATA.formatTo(periodo.inicio, sb);
+        sb.append(" a ");
+        DATA.formatTo(periodo.fim, sb);
+        sb.append('\n');
+        return true;
+    }
+
+    // Centavos com duas casas e o separador decimal do locale (como "%.2f")
+    private static void escreverValor(Appendable out, long centavos) {
+        try {
+            if (centavos < 0) {
+                out.append('-');
+                centavos = -centavos;
+            }
+            out.append(Long.toString(centavos / 100)).append(SEPARADOR_DECIMAL);
+            long resto = centavos % 100;
+            if (resto < 10) out.append('0');
+            out.append(Long.toString(resto));
+        } catch (IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    // Totais da emissão
+    public static class Resultado {
+        private final LocalDate inicio;
+        private final LocalDate fim;
+        private int faturas;
+        private long centavosConsultas;
+        private long centavosInternacoes;
+        private long duracaoNanos;
+
+        Resultado(LocalDate inicio, LocalDate fim) {
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        void somar(Bloco bloco) {
+            faturas += bloco.faturas;
+            centavosConsultas += bloco.centavosConsultas;
+            centavosInternacoes += bloco.centavosInternacoes;
+        }
+
+        public LocalDate getInicio() { return inicio; }
+        public LocalDate getFim() { return fim; }
+        public int getFaturas() { return faturas; }
+        public double getValorConsultas() { return centavosConsultas / 100.0; }
+        public double getValorInternacoes() { return centavosInternacoes / 100.0; }
+        public double getTotal() { return (centavosConsultas + centavosInternacoes) / 100.0; }
+        public double getDuracaoSegundos() { return duracaoNanos / 1e9; }
+
+        @Override
+        public String toString() {
+            return String.format("%d fatura(s) de %s a %s | Consultas: R$%.2f | Internações: R$%.2f | Total: R$%.2f (%.2fs)",
+                    faturas, DATA.format(inicio), DATA.format(fim), getValorConsultas(), getValorInternacoes(),
+                    getTotal(), getDuracaoSegundos());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package servicos;
+
+import modelos.ArquivoInternacoes;
+import modelos.Internacao;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Controle de ocupação dos quartos (numerados de 1 a totalQuartos).
+// - ocupadosAgora: bitmap dos quartos com internação ativa (consulta O(1))
+// - ativas: por quarto, as internações ativas pela data de entrada; ocupam [entrada, ∞)
+// - passadas: por quarto, as linhas do histórico (ArquivoInternacoes) ordenadas pela entrada,
+//   em vetores de int; o período [entrada, saída) sai das colunas do arquivo, sem trazer a
+//   Internacao para o heap. São indexadas sob demanda a partir do tamanho do arquivo, então
+//   carga por CSV, por snapshot ou reaplicação do diário dão a mesma resposta.
+// Como os períodos de um quarto não se sobrepõem, basta olhar a anterior e a seguinte: O(log n).
+class OcupacaoQuartos {
+    private int totalQuartos;
+    private final ArquivoInternacoes arquivo;
+    private final BitSet ocupadosAgora = new BitSet();
+    private final Map<Integer, TreeMap<LocalDate, Internacao>> ativas = new HashMap<>();
+    private final Map<Integer, Passadas> passadas = new HashMap<>();
+    private int linhasIndexadas; // linhas do arquivo já em 'passadas'
+
+    OcupacaoQuartos(int totalQuartos, ArquivoInternacoes arquivo) {
+        this.totalQuartos = totalQuartos;
+        this.arquivo = arquivo;
+    }
+
+    int getTotalQuartos() { return totalQuartos; }
+    void setTotalQuartos(int totalQuartos) { this.totalQuartos = totalQuartos; }
+
+    boolean existe(int quarto) {
+        return quarto >= 1 && quarto <= totalQuartos;
+    }
+
+    boolean ocupadoAgora(int quarto) {
+        return ocupadosAgora.get(quarto);
+    }
+
+    // Internação ativa no quarto (a de entrada mais antiga), ou null
+    Internacao ativa(int quarto) {
+        TreeMap<LocalDate, Internacao> doQuarto = ativas.get(quarto);
+        return (doQuarto == null) ? null : doQuarto.firstEntry().getValue();
+    }
+
+    // Internação que ocupa o quarto em algum dia de [inicio, fim); fim null = sem previsão de saída.
+    // As do histórico são recriadas do arquivo só quando são o conflito.
+    Internacao conflito(int quarto, LocalDate inicio, LocalDate fim) {
+        TreeMap<LocalDate, Internacao> doQuarto = ativas.get(quarto);
+        if (doQuarto != null) {
+            // Ativa não tem saída: conflita se entrou até 'inicio' ou antes de 'fim'
+            Map.Entry<LocalDate, Internacao> primeira = doQuarto.firstEntry();
+            if (primeira != null && (fim == null || primeira.getKey().isBefore(fim))) {
+                return primeira.getValue();
+            }
+        }
+        indexarHistorico();
+        Passadas historico = passadas.get(quarto);
+        if (historico == null) return null;
+
+        long dia = inicio.toEpochDay();
+        int anterior = historico.ultimaAte(dia);
+        if (anterior >= 0) {
+            int linha = historico.linhas[anterior];
+            if (fimOcupacao(linha) > dia) return arquivo.internacao(linha);
+        }
+        int seguinte = anterior + 1;
+        if (seguinte < historico.tamanho && (fim == null || historico.entradas[seguinte] < fim.toEpochDay())) {
+            return arquivo.internacao(historico.linhas[seguinte]);
+        }
+        return null;
+    }
+
+    // Menor quarto livre em [inicio, fim), ou -1 se todos estiverem ocupados.
+    // Sem data de saída, quartos com internação ativa nunca servem e são pulados pelo bitmap.
+    int menorQuartoLivre(LocalDate inicio, LocalDate fim) {
+        for (int quarto = 1; quarto <= totalQuartos; quarto++) {
+            if (fim == null) {
+                quarto = ocupadosAgora.nextClearBit(quarto);
+                if (quarto > totalQuartos) break;
+            }
+            if (conflito(quarto, inicio, fim) == null) {
+                return quarto;
+            }
+        }
+        return -1;
+    }
+
+    // Internação ativa (as concluídas chegam pelo histórico)
+    void ocupar(Internacao ativa) {
+        ativas.computeIfAbsent(ativa.getNumeroQuarto(), k -> new TreeMap<>()).put(ativa.getDataEntrada(), ativa);
+        ocupadosAgora.set(ativa.getNumeroQuarto());
+    }
+
+    // Chamado depois de a cópia finalizada ir para o arquivo, de onde o período volta a ser lido
+    void liberar(Internacao ativa) {
+        TreeMap<LocalDate, Internacao> doQuarto = ativas.get(ativa.getNumeroQuarto());
+        if (doQuarto == null) return;
+        doQuarto.remove(ativa.getDataEntrada(), ativa);
+        if (doQuarto.isEmpty()) {
+            ativas.remove(ativa.getNumeroQuarto());
+            ocupadosAgora.clear(ativa.getNumeroQuarto());
+        }
+    }
+
+    // Acrescenta as linhas arquivadas desde a última consulta. Pode ser chamado com a trava de
+    // leitura (por várias threads), daí o synchronized: só arquivar, com a de escrita, cria linhas.
+    private synchronized void indexarHistorico() {
+        int total = arquivo.tamanho();
+        for (int linha = linhasIndexadas; linha < total; linha++) {
+            // Cancelada sem data de saída: não ocupou o quarto
+            if (arquivo.getDataSaida(linha) == null) continue;
+            passadas.computeIfAbsent(arquivo.getNumeroQuarto(linha), k -> new Passadas())
+                    .inserir(arquivo.getEpochEntrada(linha), linha);
+        }
+        linhasIndexadas = total;
+    }
+
+    // Dia seguinte ao último ocupado; alta no mesmo dia da entrada ainda ocupa aquele dia
+    private long fimOcupacao(int linha) {
+        int entrada = arquivo.getEpochEntrada(linha);
+        return Math.max(arquivo.getEpochSaida(linha), entrada + 1L);
+    }
+
+    // Linhas do histórico de um quarto, ordenadas pela entrada (8 bytes por internação)
+    private static final class Passadas {
+        int[] entradas = new int[4];
+        int[] linhas = new int[4];
+        int tamanho;
+
+        // As altas chegam quase sempre em ordem de entrada: o deslocamento costuma ser nulo
+        void inserir(int entrada, int linha) {
+            if (tamanho == entradas.length) {
+                entradas = Arrays.copyOf(entradas, tamanho * 2);
+                linhas = Arrays.copyOf(linhas, tamanho * 2);
+            }
+            int pos = ultimaAte(entrada) + 1;
+            System.arraycopy(entradas, pos, entradas, pos + 1, tamanho - pos);
+            System.arraycopy(linhas, pos, linhas, pos + 1, tamanho - pos);
+            entradas[pos] = entrada;
+            linhas[pos] = linha;
+            tamanho++;
+        }
+
+        // Posição da última entrada <= dia, ou -1
+        int ultimaAte(long dia) {
+            int baixo = 0, alto = tamanho - 1;
+            while (baixo <= alto) {
+                int meio = (baixo + alto) >>> 1;
+                if (entradas[meio] <= dia) baixo = meio + 1; else alto = meio - 1;
+            }
+            return alto;
+        }
+    }
+}
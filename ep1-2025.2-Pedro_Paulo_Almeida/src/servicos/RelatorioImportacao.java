@@ -0,0 +1,78 @@
+package servicos;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Resultado de uma importação em lote: quantas linhas foram lidas e importadas e, para cada
+// linha rejeitada, o número da linha no arquivo, o motivo e o conteúdo original.
+public class RelatorioImportacao {
+    private final String arquivo;
+    private int lidas;
+    private int importadas;
+    private final List<Rejeicao> rejeicoes = new ArrayList<>();
+    private long duracaoNanos;
+
+    RelatorioImportacao(String arquivo) {
+        this.arquivo = arquivo;
+    }
+
+    void contarLida() { lidas++; }
+    void contarImportada() { importadas++; }
+    void rejeitar(int linha, String motivo, String conteudo) { rejeicoes.add(new Rejeicao(linha, motivo, conteudo)); }
+    void concluir(long duracaoNanos) {
+        this.duracaoNanos = duracaoNanos;
+        rejeicoes.sort((a, b) -> Integer.compare(a.linha, b.linha)); // as etapas rejeitam fora de ordem
+    }
+
+    public String getArquivo() { return arquivo; }
+    public int getLidas() { return lidas; }
+    public int getImportadas() { return importadas; }
+    public int getRejeitadas() { return rejeicoes.size(); }
+    public List<Rejeicao> getRejeicoes() { return Collections.unmodifiableList(rejeicoes); }
+    public double getDuracaoSegundos() { return duracaoNanos / 1e9; }
+
+    // Grava as rejeições em CSV (LINHA;MOTIVO;CONTEUDO), no mesmo separador dos arquivos de dados
+    public void gravarRejeicoes(Writer destino) throws IOException {
+        destino.write("LINHA;MOTIVO;CONTEUDO\n");
+        for (Rejeicao r : rejeicoes) {
+            destino.write(Integer.toString(r.linha));
+            destino.write(';');
+            destino.write(r.motivo.replace(';', ','));
+            destino.write(';');
+            destino.write(r.conteudo);
+            destino.write('\n');
+        }
+        destino.flush();
+    }
+
+    @Override
+    public String toString() {
+        double segundos = getDuracaoSegundos();
+        return String.format("%s: %d linha(s) lida(s), %d importada(s), %d rejeitada(s) em %.2fs (%.0f linhas/s)",
+                arquivo, lidas, importadas, rejeicoes.size(), segundos, segundos > 0 ? lidas / segundos : 0.0);
+    }
+
+    public static class Rejeicao {
+        private final int linha;
+        private final String motivo;
+        private final String conteudo;
+
+        Rejeicao(int linha, String motivo, String conteudo) {
+            this.linha = linha;
+            this.motivo = motivo;
+            this.conteudo = conteudo;
+        }
+
+        public int getLinha() { return linha; }
+        public String getMotivo() { return motivo; }
+        public String getConteudo() { return conteudo; }
+
+        @Override
+        public String toString() {
+            return "Linha " + linha + ": " + motivo;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package servicos;
+
+// Resultado (imutável) das consultas de faturamento: uma linha por médico, especialidade,
+// plano ou dia. Consultas agendadas contam como valor previsto; o faturado é o que já foi
+// concluído (consultas realizadas e internações com alta).
+public class ResumoFaturamento {
+    private final long consultasAgendadas;
+    private final double valorAgendado;
+    private final long consultasRealizadas;
+    private final double valorConsultas;
+    private final long internacoesAtivas;
+    private final long internacoesConcluidas;
+    private final double valorInternacoes;
+
+    ResumoFaturamento(AgregadosFaturamento.Acumulado consultas, AgregadosFaturamento.Acumulado internacoes) {
+        if (consultas == null) consultas = new AgregadosFaturamento.Acumulado();
+        if (internacoes == null) internacoes = new AgregadosFaturamento.Acumulado();
+        this.consultasAgendadas = consultas.quantidadePrevista;
+        this.valorAgendado = consultas.centavosPrevistos / 100.0;
+        this.consultasRealizadas = consultas.quantidadeRealizada;
+        this.valorConsultas = consultas.centavosRealizados / 100.0;
+        this.internacoesAtivas = internacoes.quantidadePrevista;
+        this.internacoesConcluidas = internacoes.quantidadeRealizada;
+        this.valorInternacoes = internacoes.centavosRealizados / 100.0;
+    }
+
+    public long getConsultasAgendadas() { return consultasAgendadas; }
+    public double getValorAgendado() { return valorAgendado; }
+    public long getConsultasRealizadas() { return consultasRealizadas; }
+    public double getValorConsultas() { return valorConsultas; }
+    public long getInternacoesAtivas() { return internacoesAtivas; }
+    public long getInternacoesConcluidas() { return internacoesConcluidas; }
+    public double getValorInternacoes() { return valorInternacoes; }
+    public double getTotalFaturado() { return valorConsultas + valorInternacoes; }
+
+    @Override
+    public String toString() {
+        return String.format("Consultas: %d realizadas (R$%.2f), %d agendadas (R$%.2f previstos) | "
+                + "Internações: %d concluídas (R$%.2f), %d ativas | Total faturado: R$%.2f",
+                consultasRealizadas, valorConsultas, consultasAgendadas, valorAgendado,
+                internacoesConcluidas, valorInternacoes, internacoesAtivas, getTotalFaturado());
+    }
+}
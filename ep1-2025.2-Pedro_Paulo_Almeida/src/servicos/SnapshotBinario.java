@@ -0,0 +1,330 @@
+package servicos;
+
+import modelos.*;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Snapshot binário versionado do estado completo do Hospital. É a única forma binária de
+// persistir o Hospital: nem ele nem os modelos implementam Serializable.
+// Layout (big-endian):
+//   MAGIC, VERSAO, último segmento do diário incluído
+//   total de quartos, duração da consulta (segundos)
+//   tabela de strings (nomes, CPFs, CRMs, especialidades, locais, diagnósticos...)
+//   médicos, pacientes, consultas ativas e internações ativas
+//   estado dos históricos (ver EstadoHistorico): os registros ficam nos próprios
+//   arquivos do histórico e o snapshot confirma até onde eles valem
+//   próximos ids de consulta e de internação
+//   fila de internação: próximo id e os pedidos, na ordem de atendimento
+// Pessoas e textos são referenciados por índice inteiro; datas são gravadas como números
+// (segundos/dias desde a época). A leitura mapeia o arquivo e percorre um único ByteBuffer.
+// A gravação tem duas etapas: capturar (referências, com o Hospital travado para leitura) e
+// gravar (serialização e disco, já sem as travas), para as operações não esperarem por elas.
+class SnapshotBinario {
+    private static final int MAGIC = 0x484F5350; // "HOSP"
+    // Muda a cada alteração do layout; só a versão atual é lida (o CSV continua sendo a
+    // forma de levar os dados de uma versão para outra)
+    private static final int VERSAO = 7;
+
+    private static final byte PACIENTE_COMUM = 0;
+    private static final byte PACIENTE_ESPECIAL = 1;
+    private static final int SEM_VALOR = -1;
+    private static final long SEM_DATA = Long.MIN_VALUE;
+
+    private SnapshotBinario() {}
+
+    // Estado capturado com as travas de leitura: referências (pessoas não mudam; consultas e
+    // internações ativas também não, a conclusão arquiva uma cópia) e o estado dos históricos.
+    // Custa cópias de vetores; a serialização e o disco ficam para gravar(), sem as travas.
+    static final class Captura {
+        private final long segmentoDiario;
+        private final int totalQuartos;
+        private final Duration duracaoConsulta;
+        private final List<Medico> medicos;
+        private final List<Paciente> pacientes;
+        private final List<Consulta> consultas;
+        private final List<Internacao> internacoes;
+        private final EstadoHistorico historicoConsultas;
+        private final EstadoHistorico historicoInternacoes;
+        private final long proximoIdConsulta;
+        private final long proximoIdInternacao;
+        private final long proximoIdPedido;
+        private final List<PedidoInternacao> fila;
+
+        private Captura(Hospital hospital, long segmentoDiario) {
+            this.segmentoDiario = segmentoDiario;
+            this.totalQuartos = hospital.getTotalQuartos();
+            this.duracaoConsulta = hospital.getDuracaoConsulta();
+            this.medicos = hospital.getMedicos();
+            this.pacientes = hospital.getPacientes();
+            // Só as ativas; do histórico vai o estado dos arquivos
+            this.consultas = hospital.getConsultas();
+            this.internacoes = hospital.getInternacoes();
+            this.historicoConsultas = hospital.getArquivoConsultas().capturarEstado(pacientes);
+            this.historicoInternacoes = hospital.getArquivoInternacoes().capturarEstado(pacientes);
+            this.proximoIdConsulta = hospital.getProximoIdConsulta();
+            this.proximoIdInternacao = hospital.getProximoIdInternacao();
+            this.proximoIdPedido = hospital.getProximoIdPedido();
+            this.fila = hospital.getFilaInternacao();
+        }
+    }
+
+    // Chamado com as travas de leitura das três partições
+    static Captura capturar(Hospital hospital, long segmentoDiario) {
+        return new Captura(hospital, segmentoDiario);
+    }
+
+    // Serializa a captura no arquivo e força para o disco (sem travas)
+    static void gravar(Captura captura, Path arquivo) throws IOException {
+        TabelaStrings tabela = new TabelaStrings();
+        List<Medico> medicos = captura.medicos;
+        List<Paciente> pacientes = captura.pacientes;
+        List<Consulta> consultas = captura.consultas;
+        List<Internacao> internacoes = captura.internacoes;
+
+        // 1ª passada: monta a tabela de strings
+        for (Medico m : medicos) {
+            tabela.id(m.getNome()); tabela.id(m.getCpf()); tabela.id(m.getCrm()); tabela.id(m.getEspecialidade());
+        }
+        for (Paciente p : pacientes) {
+            tabela.id(p.getNome()); tabela.id(p.getCpf());
+            if (p instanceof PacienteEspecial) tabela.id(((PacienteEspecial) p).getPlano().getNome());
+        }
+        for (Consulta c : consultas) {
+            tabela.id(c.getLocal()); tabela.id(c.getDiagnostico());
+        }
+        for (StatusInternacao s : StatusInternacao.values()) {
+            tabela.id(s.getDescricao());
+        }
+
+        Map<Pessoa, Integer> idMedico = indicePorIdentidade(medicos);
+        Map<Pessoa, Integer> idPaciente = indicePorIdentidade(pacientes);
+
+        // 2ª passada: grava
+        try (FileOutputStream saida = new FileOutputStream(arquivo.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(saida, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSAO);
+            out.writeLong(captura.segmentoDiario);
+            out.writeInt(captura.totalQuartos);
+            out.writeLong(captura.duracaoConsulta.getSeconds());
+
+            out.writeInt(tabela.strings.size());
+            for (String s : tabela.strings) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeInt(medicos.size());
+            for (Medico m : medicos) {
+                out.writeInt(tabela.id(m.getNome()));
+                out.writeInt(tabela.id(m.getCpf()));
+                out.writeInt(m.getIdade());
+                out.writeInt(tabela.id(m.getCrm()));
+                out.writeInt(tabela.id(m.getEspecialidade()));
+                out.writeDouble(m.getCustoConsulta());
+            }
+
+            out.writeInt(pacientes.size());
+            for (Paciente p : pacientes) {
+                boolean especial = p instanceof PacienteEspecial;
+                out.writeByte(especial ? PACIENTE_ESPECIAL : PACIENTE_COMUM);
+                out.writeInt(tabela.id(p.getNome()));
+                out.writeInt(tabela.id(p.getCpf()));
+                out.writeInt(p.getIdade());
+                out.writeInt(especial ? tabela.id(((PacienteEspecial) p).getPlano().getNome()) : SEM_VALOR);
+            }
+
+            out.writeInt(consultas.size());
+            for (Consulta c : consultas) {
+                out.writeLong(c.getId());
+                out.writeInt(idPaciente.get(c.getPaciente()));
+                out.writeInt(idMedico.get(c.getMedico()));
+                out.writeLong(c.getDataHora().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(tabela.id(c.getLocal()));
+                out.writeByte(c.getStatus().ordinal());
+                out.writeInt(tabela.id(c.getDiagnostico()));
+                out.writeDouble(c.getValorCobrado());
+            }
+
+            out.writeInt(internacoes.size());
+            for (Internacao i : internacoes) {
+                out.writeLong(i.getId());
+                out.writeInt(idPaciente.get(i.getPaciente()));
+                out.writeInt(idMedico.get(i.getMedicoResponsavel()));
+                out.writeLong(i.getDataEntrada().toEpochDay());
+                out.writeLong(i.getDataSaida() == null ? SEM_DATA : i.getDataSaida().toEpochDay());
+                out.writeInt(i.getNumeroQuarto());
+                out.writeDouble(i.getCustoDiario());
+                out.writeInt(tabela.id(i.getStatus().getDescricao()));
+            }
+
+            captura.historicoConsultas.gravar(out, idPaciente, idMedico);
+            captura.historicoInternacoes.gravar(out, idPaciente, idMedico);
+
+            out.writeLong(captura.proximoIdConsulta);
+            out.writeLong(captura.proximoIdInternacao);
+            out.writeLong(captura.proximoIdPedido);
+            out.writeInt(captura.fila.size());
+            for (PedidoInternacao pedido : captura.fila) {
+                out.writeLong(pedido.getId());
+                out.writeInt(idPaciente.get(pedido.getPaciente()));
+                out.writeInt(idMedico.get(pedido.getMedicoResponsavel()));
+                out.writeInt(pedido.getUrgencia());
+                out.writeLong(pedido.getChegada().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(pedido.getChegada().getNano());
+            }
+
+            out.flush();
+            saida.getChannel().force(true);
+        }
+    }
+
+    // Carrega o snapshot no hospital (vazio) e retorna o último segmento do diário incluído nele
+    static long carregar(Hospital hospital, Path arquivo) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("arquivo não é um snapshot do hospital");
+        }
+        int versao = buffer.getInt();
+        if (versao != VERSAO) {
+            throw new IOException("versão de snapshot não suportada: " + versao);
+        }
+        long segmentoDiario = buffer.getLong();
+        // Antes das consultas e internações: vale para elas e para o diário reaplicado depois
+        hospital.setTotalQuartos(buffer.getInt());
+        hospital.setDuracaoConsulta(Duration.ofSeconds(buffer.getLong()));
+
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Map<String, PlanoSaude> planos = new HashMap<>();
+        for (PlanoSaude plano : hospital.getPlanos()) {
+            planos.put(plano.getNome(), plano);
+        }
+
+        Medico[] medicos = new Medico[buffer.getInt()];
+        for (int i = 0; i < medicos.length; i++) {
+            String nome = strings[buffer.getInt()];
+            String cpf = strings[buffer.getInt()];
+            int idade = buffer.getInt();
+            String crm = strings[buffer.getInt()];
+            String especialidade = strings[buffer.getInt()];
+            medicos[i] = new Medico(nome, cpf, idade, crm, especialidade, buffer.getDouble());
+            hospital.incluirMedico(medicos[i]);
+        }
+
+        Paciente[] pacientes = new Paciente[buffer.getInt()];
+        for (int i = 0; i < pacientes.length; i++) {
+            byte tipo = buffer.get();
+            String nome = strings[buffer.getInt()];
+            String cpf = strings[buffer.getInt()];
+            int idade = buffer.getInt();
+            int plano = buffer.getInt();
+            // Mesmo fallback do CSV: plano desconhecido vira paciente comum
+            PlanoSaude p = (tipo == PACIENTE_ESPECIAL) ? planos.get(strings[plano]) : null;
+            pacientes[i] = (p == null) ? new Paciente(nome, cpf, idade) : new PacienteEspecial(nome, cpf, idade, p);
+            hospital.incluirPaciente(pacientes[i]);
+        }
+
+        StatusConsulta[] status = StatusConsulta.values();
+        int totalConsultas = buffer.getInt();
+        for (int i = 0; i < totalConsultas; i++) {
+            long id = buffer.getLong();
+            Paciente p = pacientes[buffer.getInt()];
+            Medico m = medicos[buffer.getInt()];
+            LocalDateTime dataHora = LocalDateTime.ofEpochSecond(buffer.getLong(), 0, ZoneOffset.UTC);
+            String local = texto(strings, buffer.getInt());
+            StatusConsulta s = status[buffer.get()];
+            String diagnostico = texto(strings, buffer.getInt());
+            double valor = buffer.getDouble();
+            hospital.incorporarConsulta(Consulta.restaurar(id, p, m, dataHora, local, s, diagnostico, valor));
+        }
+
+        int totalInternacoes = buffer.getInt();
+        for (int i = 0; i < totalInternacoes; i++) {
+            long id = buffer.getLong();
+            Paciente p = pacientes[buffer.getInt()];
+            Medico m = medicos[buffer.getInt()];
+            LocalDate entrada = LocalDate.ofEpochDay(buffer.getLong());
+            long saida = buffer.getLong();
+            int quarto = buffer.getInt();
+            double custoDiario = buffer.getDouble();
+            StatusInternacao s = StatusInternacao.deTexto(strings[buffer.getInt()]);
+            hospital.incorporarInternacao(Internacao.restaurar(id, p, m, entrada,
+                    saida == SEM_DATA ? null : LocalDate.ofEpochDay(saida), quarto, custoDiario, s));
+        }
+
+        hospital.abrirHistorico(buffer, pacientes, medicos);
+
+        long proximoIdConsulta = buffer.getLong();
+        hospital.restaurarProximosIds(proximoIdConsulta, buffer.getLong());
+
+        long proximoIdPedido = buffer.getLong();
+        List<PedidoInternacao> fila = new ArrayList<>();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            long id = buffer.getLong();
+            Paciente p = pacientes[buffer.getInt()];
+            Medico m = medicos[buffer.getInt()];
+            int urgencia = buffer.getInt();
+            LocalDateTime chegada = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+            fila.add(new PedidoInternacao(id, p, m, urgencia, chegada));
+        }
+        hospital.restaurarFila(proximoIdPedido, fila);
+
+        return segmentoDiario;
+    }
+
+    private static String texto(String[] strings, int id) {
+        return id == SEM_VALOR ? null : strings[id];
+    }
+
+    private static Map<Pessoa, Integer> indicePorIdentidade(List<? extends Pessoa> pessoas) {
+        Map<Pessoa, Integer> indice = new IdentityHashMap<>(pessoas.size() * 2);
+        for (int i = 0; i < pessoas.size(); i++) {
+            indice.put(pessoas.get(i), i);
+        }
+        return indice;
+    }
+
+    // Strings repetidas (especialidades, locais, planos...) são gravadas uma única vez
+    private static class TabelaStrings {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        int id(String s) {
+            if (s == null) return SEM_VALOR;
+            Integer id = ids.get(s);
+            if (id == null) {
+                id = strings.size();
+                ids.put(s, id);
+                strings.add(s);
+            }
+            return id;
+        }
+    }
+}
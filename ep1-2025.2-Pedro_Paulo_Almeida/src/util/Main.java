@@ -4,22 +4,46 @@ import modelos.*;
 import servicos.*;
 
 import java.util.Scanner;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalDate; 
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.InputMismatchException;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.time.YearMonth;
 
 public class Main {
     private static Hospital hospital;
     private static Scanner scanner = new Scanner(System.in);
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy"); 
+    private static boolean autossalvamentoAtivo;
 
     public static void main(String[] args) {
         hospital = new Hospital();
-        hospital.carregarDadosCSV(); // Carrega dados ao iniciar
+        hospital.carregarDados(); // Carrega o snapshot e reaplica o diário de operações
+        iniciarMetricas();
+        iniciarAutossalvamento();
+
+        if (args.length > 0 && args[0].equals("--lote")) {
+            executarLote(args.length > 1 ? args[1] : "-");
+            return;
+        }
 
         int opcao = -1; 
         do {
@@ -39,9 +63,12 @@ public class Main {
                 case 2: menuAgendamento(); break; 
                 case 3: menuRelatorios(); break;
                 case 4: menuConclusao(); break; 
+                case 5: buscarPorNome(); break;
                 case 0:
                     System.out.println("\nSaindo do Sistema...");
-                    hospital.salvarDadosCSV(); // Salva em CSV antes de sair
+                    hospital.salvarDados(); // Snapshot binário (recarregado na próxima execução)
+                    hospital.salvarDadosCSV(); // Exporta também em CSV
+                    hospital.encerrar();
                     break;
                 default:
                     System.out.println("[ERRO] Opção inválida.");
@@ -49,19 +76,114 @@ public class Main {
         } while (opcao != 0);
     }
     
+    // Modo lote: java util.Main --lote <arquivo> (ou '-' para a entrada padrão). Executa os
+    // comandos sem menu (formatos em ExecutorLote), salva como a opção "Sair" e termina com
+    // código 1 se alguma linha falhou ou se o diário não confirmou a gravação.
+    private static void executarLote(String origem) {
+        PrintStream saida = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+        ExecutorLote.Resultado resultado = null;
+        try (BufferedReader entrada = origem.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+                : Files.newBufferedReader(Paths.get(origem), StandardCharsets.UTF_8)) {
+            resultado = new ExecutorLote(hospital, saida).executar(entrada);
+            saida.println("[INFO] Lote " + (origem.equals("-") ? "(entrada padrão)" : origem) + ": " + resultado);
+        } catch (IOException e) {
+            saida.println("[ERRO] Falha ao ler os comandos de " + origem + ": " + e.getMessage());
+        }
+        saida.flush();
+
+        hospital.salvarDados();
+        hospital.salvarDadosCSV();
+        hospital.encerrar();
+        if (resultado == null || resultado.getErros() > 0 || !resultado.isGravado()) System.exit(1);
+    }
+
+    // Publica as métricas no JMX (jconsole/VisualVM). Com -Dhospital.metricas=<segundos>,
+    // também acrescenta um resumo periódico em metricas.log.
+    private static void iniciarMetricas() {
+        hospital.getMetricas().registrarJMX();
+        String intervalo = System.getProperty("hospital.metricas");
+        if (intervalo == null) return;
+        try {
+            PrintStream log = new PrintStream(new FileOutputStream("metricas.log", true), true, "UTF-8");
+            hospital.getMetricas().iniciarDespejo(Long.parseLong(intervalo.trim()), log);
+            System.out.println("[INFO] Métricas gravadas em metricas.log a cada " + intervalo.trim() + "s.");
+        } catch (NumberFormatException e) {
+            System.out.println("[AVISO] hospital.metricas deve ser um número de segundos: " + intervalo);
+        } catch (IOException e) {
+            System.out.println("[ERRO] Não foi possível abrir metricas.log: " + e.getMessage());
+        }
+    }
+
+    // Snapshot em segundo plano a cada -Dhospital.autossalvamento=<segundos> (padrão 60; 0 desliga).
+    // -Dhospital.atrasoMaximo=<segundos> antecipa a gravação quando há alterações mais antigas que isso.
+    private static void iniciarAutossalvamento() {
+        String intervalo = System.getProperty("hospital.autossalvamento", "60");
+        String atraso = System.getProperty("hospital.atrasoMaximo");
+        try {
+            long segundos = Long.parseLong(intervalo.trim());
+            if (segundos <= 0) return;
+            Duration atrasoMaximo = (atraso == null) ? null : Duration.ofSeconds(Long.parseLong(atraso.trim()));
+            autossalvamentoAtivo = hospital.iniciarAutossalvamento(Duration.ofSeconds(segundos), atrasoMaximo);
+        } catch (NumberFormatException e) {
+            System.out.println("[AVISO] hospital.autossalvamento e hospital.atrasoMaximo devem ser números de segundos.");
+        }
+    }
+
     // ------------------------------------
     // MENU PRINCIPAL
     // ------------------------------------
     private static void exibirMenuPrincipal() {
         System.out.println("\n--- MENU PRINCIPAL ---");
+        Duration idade = hospital.getIdadeUltimaGravacao();
+        if (autossalvamentoAtivo && idade != null) {
+            System.out.println("(último salvamento automático há " + formatarIdade(idade) + ")");
+        }
         System.out.println("1. Cadastro (Paciente, Médico)");
         System.out.println("2. Agendamento (Consulta, Internação)");
         System.out.println("3. Relatórios");
         System.out.println("4. Concluir Atendimento (Consulta/Internação)");
+        System.out.println("5. Buscar Paciente/Médico por Nome");
         System.out.println("0. Sair e Salvar Dados");
         System.out.print("Escolha uma opção: ");
     }
     
+    private static String formatarIdade(Duration idade) {
+        long segundos = idade.getSeconds();
+        return (segundos < 60) ? segundos + "s" : (segundos / 60) + "min " + (segundos % 60) + "s";
+    }
+
+    // ------------------------------------
+    // BUSCA POR NOME
+    // ------------------------------------
+    private static final int LIMITE_BUSCA_NOME = 10;
+
+    // Para quem não tem o CPF/CRM em mãos: aceita parte do nome, sem acento, com erros de digitação
+    private static void buscarPorNome() {
+        System.out.println("\n--- BUSCAR POR NOME ---");
+        System.out.print("Nome (ou início do nome): ");
+        String nome = scanner.nextLine().trim();
+        if (nome.isEmpty()) {
+            System.out.println("[ERRO] Digite ao menos parte do nome.");
+            return;
+        }
+
+        List<Paciente> pacientes = hospital.buscarPacientesPorNome(nome, LIMITE_BUSCA_NOME);
+        List<Medico> medicos = hospital.buscarMedicosPorNome(nome, LIMITE_BUSCA_NOME);
+        if (pacientes.isEmpty() && medicos.isEmpty()) {
+            System.out.println("[INFO] Nenhum paciente ou médico encontrado para '" + nome + "'.");
+            return;
+        }
+        if (!pacientes.isEmpty()) {
+            System.out.println("Pacientes:");
+            for (Paciente p : pacientes) System.out.println("  " + p.exibirDetalhes());
+        }
+        if (!medicos.isEmpty()) {
+            System.out.println("Médicos:");
+            for (Medico m : medicos) System.out.println("  " + m.exibirDetalhes());
+        }
+    }
+
     // ------------------------------------
     // MENU 2: AGENDAMENTO (NOVO)
     // ------------------------------------
@@ -71,6 +193,8 @@ public class Main {
             System.out.println("\n--- MENU DE AGENDAMENTO ---");
             System.out.println("1. Agendar Nova Consulta (Por CPF/CRM)");
             System.out.println("2. Agendar Nova Internação (Por CPF/CRM)");
+            System.out.println("3. Agendar no Primeiro Horário Livre (Por Especialidade)");
+            System.out.println("4. Fila de Internação");
             System.out.println("0. Voltar ao Menu Principal");
             System.out.print("Escolha uma opção: ");
 
@@ -87,6 +211,8 @@ public class Main {
             switch (opcao) {
                 case 1: agendarConsultaPorDocumento(); break;
                 case 2: agendarInternacaoPorDocumento(); break;
+                case 3: agendarPorEspecialidade(); break;
+                case 4: menuFilaInternacao(); break;
                 case 0: break;
                 default: System.out.println("[ERRO] Opção inválida.");
             }
@@ -121,6 +247,61 @@ public class Main {
         }
     }
     
+    private static final int HORARIOS_SUGERIDOS = 5;
+
+    private static void agendarPorEspecialidade() {
+        System.out.println("\n--- PRIMEIRO HORÁRIO LIVRE (Por Especialidade) ---");
+
+        System.out.print("Digite o CPF do Paciente: ");
+        String cpf = scanner.nextLine();
+
+        System.out.print("Digite a Especialidade (ex: Cardiologia): ");
+        String especialidade = scanner.nextLine().trim();
+
+        System.out.print("A partir de (dd/MM/yyyy HH:mm; Enter = agora): ");
+        String aPartirDeStr = scanner.nextLine().trim();
+        LocalDateTime aPartirDe;
+        try {
+            aPartirDe = aPartirDeStr.isEmpty() ? LocalDateTime.now().withSecond(0).withNano(0)
+                                               : LocalDateTime.parse(aPartirDeStr, DATE_TIME_FORMATTER);
+        } catch (DateTimeParseException e) {
+            System.out.println("[ERRO] Formato de data/hora inválido. Use dd/MM/yyyy HH:mm.");
+            return;
+        }
+
+        System.out.print("Preferir o menor custo no mesmo horário? (s/N): ");
+        boolean menorCusto = scanner.nextLine().trim().equalsIgnoreCase("s");
+
+        List<HorarioLivre> horarios = hospital.primeirosHorariosLivres(especialidade, aPartirDe, HORARIOS_SUGERIDOS, menorCusto);
+        if (horarios.isEmpty()) {
+            System.out.println("[AVISO] Nenhum horário livre para " + especialidade + ".");
+            return;
+        }
+        for (int i = 0; i < horarios.size(); i++) {
+            System.out.println((i + 1) + ". " + horarios.get(i));
+        }
+
+        System.out.print("Escolha o horário (0 = cancelar): ");
+        int escolha;
+        try {
+            escolha = scanner.nextInt();
+            scanner.nextLine();
+        } catch (InputMismatchException e) {
+            System.out.println("[ERRO] Opção inválida.");
+            scanner.nextLine();
+            return;
+        }
+        if (escolha < 1 || escolha > horarios.size()) return;
+
+        System.out.print("Digite o local da consulta (ex: Sala 3): ");
+        String local = scanner.nextLine();
+
+        HorarioLivre horario = horarios.get(escolha - 1);
+        if (hospital.agendarConsulta(cpf, horario.getMedico().getCrm(), horario.getDataHora(), local)) {
+            System.out.println("[SUCESSO] Consulta agendada com sucesso!");
+        }
+    }
+
     private static void agendarInternacaoPorDocumento() {
         System.out.println("\n--- AGENDAR INTERNAÇÃO (Por CPF/CRM) ---");
 
@@ -140,6 +321,18 @@ public class Main {
             return;
         }
         
+        int sugestao = hospital.menorQuartoLivre(dataEntrada, null);
+        if (sugestao > 0) {
+            System.out.println("Quarto livre sugerido: " + sugestao);
+        } else {
+            System.out.println("[AVISO] Não há quartos livres a partir dessa data.");
+            System.out.print("Colocar o paciente na fila de internação? (s/N): ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("s")) {
+                entrarNaFila(cpf, crm);
+                return;
+            }
+        }
+
         System.out.print("Digite o número do Quarto: ");
         int numeroQuarto;
         try {
@@ -157,6 +350,105 @@ public class Main {
         }
     }
     
+    private static void menuFilaInternacao() {
+        int opcao = -1;
+        do {
+            System.out.println("\n--- FILA DE INTERNAÇÃO ---");
+            List<PedidoInternacao> fila = hospital.getFilaInternacao();
+            if (fila.isEmpty()) {
+                System.out.println("Nenhum paciente aguardando quarto.");
+            }
+            for (int i = 0; i < fila.size(); i++) {
+                System.out.println((i + 1) + "º " + fila.get(i));
+            }
+            System.out.println("1. Incluir Paciente na Fila (Por CPF/CRM)");
+            System.out.println("2. Alterar Urgência de um Pedido");
+            System.out.println("3. Retirar Pedido da Fila (desistência)");
+            System.out.println("0. Voltar");
+            System.out.print("Escolha uma opção: ");
+
+            try {
+                opcao = scanner.nextInt();
+                scanner.nextLine();
+            } catch (InputMismatchException e) {
+                System.out.println("\n[ERRO] Entrada inválida. Digite um número correspondente à opção.");
+                scanner.nextLine();
+                opcao = -1;
+                continue;
+            }
+
+            switch (opcao) {
+                case 1: {
+                    System.out.print("Digite o CPF do Paciente: ");
+                    String cpf = scanner.nextLine();
+                    System.out.print("Digite o CRM do Médico Responsável: ");
+                    String crm = scanner.nextLine();
+                    entrarNaFila(cpf, crm);
+                    break;
+                }
+                case 2: {
+                    long id = lerNumeroPedido();
+                    if (id < 0) break;
+                    int urgencia = lerUrgencia();
+                    if (urgencia > 0 && hospital.alterarUrgencia(id, urgencia)) {
+                        System.out.println("[SUCESSO] Urgência alterada.");
+                    }
+                    break;
+                }
+                case 3: {
+                    long id = lerNumeroPedido();
+                    if (id >= 0 && hospital.sairDaFilaInternacao(id)) {
+                        System.out.println("[SUCESSO] Pedido retirado da fila.");
+                    }
+                    break;
+                }
+                case 0: break;
+                default: System.out.println("[ERRO] Opção inválida.");
+            }
+        } while (opcao != 0);
+    }
+
+    private static void entrarNaFila(String cpf, String crm) {
+        int urgencia = lerUrgencia();
+        if (urgencia > 0 && hospital.entrarNaFilaInternacao(cpf, crm, urgencia)) {
+            System.out.println("[SUCESSO] Paciente incluído na fila de internação. O primeiro quarto liberado será atribuído automaticamente.");
+        }
+    }
+
+    // -1 se a entrada não for um número
+    private static long lerNumeroPedido() {
+        System.out.print("Número do Pedido: ");
+        try {
+            long id = scanner.nextLong();
+            scanner.nextLine();
+            return id;
+        } catch (InputMismatchException e) {
+            System.out.println("[ERRO] O número do pedido deve ser um número inteiro.");
+            scanner.nextLine();
+            return -1;
+        }
+    }
+
+    // -1 se a entrada não for uma urgência válida
+    private static int lerUrgencia() {
+        System.out.print("Urgência (" + PedidoInternacao.URGENCIA_MINIMA + " = eletiva ... "
+                + PedidoInternacao.URGENCIA_MAXIMA + " = emergência): ");
+        int urgencia;
+        try {
+            urgencia = scanner.nextInt();
+            scanner.nextLine();
+        } catch (InputMismatchException e) {
+            scanner.nextLine();
+            urgencia = -1;
+        }
+        if (urgencia < PedidoInternacao.URGENCIA_MINIMA || urgencia > PedidoInternacao.URGENCIA_MAXIMA) {
+            System.out.println("[ERRO] Urgência deve ser de " + PedidoInternacao.URGENCIA_MINIMA + " a "
+                    + PedidoInternacao.URGENCIA_MAXIMA + ".");
+            return -1;
+        }
+        return urgencia;
+    }
+
     // ------------------------------------
     // MENU 4: CONCLUSÃO
     // ------------------------------------
@@ -195,15 +487,15 @@ public class Main {
         }
         
         System.out.println("\n--- CONSULTAS AGENDADAS ---");
-        hospital.relatorioConsultas(); // Exibe com índice
+        hospital.relatorioConsultas(); // Exibe com o id (#)
         
-        System.out.print("\nDigite o índice da consulta a ser concluída: ");
-        int indice;
+        System.out.print("\nDigite o id da consulta a ser concluída: ");
+        long id;
         try {
-            indice = scanner.nextInt();
+            id = scanner.nextLong();
             scanner.nextLine(); 
         } catch (InputMismatchException e) {
-            System.out.println("[ERRO] Índice inválido.");
+            System.out.println("[ERRO] Id inválido.");
             scanner.nextLine();
             return;
         }
@@ -211,10 +503,10 @@ public class Main {
         System.out.print("Digite o Diagnóstico/Resultado da Consulta: ");
         String diagnostico = scanner.nextLine();
 
-        if (hospital.concluirERemoverConsulta(indice, diagnostico)) {
+        if (hospital.concluirERemoverConsulta(id, diagnostico)) {
             System.out.println("[SUCESSO] Consulta concluída e adicionada ao histórico do paciente.");
         } else {
-            System.out.println("[ERRO] Índice da consulta fora do limite.");
+            System.out.println("[ERRO] Nenhuma consulta agendada com o id " + id + ".");
         }
     }
 
@@ -225,15 +517,15 @@ public class Main {
         }
 
         System.out.println("\n--- INTERNAÇÕES ATIVAS ---");
-        hospital.relatorioInternacoes(); // Exibe com índice
+        hospital.relatorioInternacoes(); // Exibe com o id (#)
 
-        System.out.print("\nDigite o índice da internação a ser concluída: ");
-        int indice;
+        System.out.print("\nDigite o id da internação a ser concluída: ");
+        long id;
         try {
-            indice = scanner.nextInt();
+            id = scanner.nextLong();
             scanner.nextLine();
         } catch (InputMismatchException e) {
-            System.out.println("[ERRO] Índice inválido.");
+            System.out.println("[ERRO] Id inválido.");
             scanner.nextLine();
             return;
         }
@@ -248,10 +540,10 @@ public class Main {
             return;
         }
 
-        if (hospital.concluirERemoverInternacao(indice, dataSaida)) {
+        if (hospital.concluirERemoverInternacao(id, dataSaida)) {
             System.out.println("[SUCESSO] Internação finalizada e adicionada ao histórico do paciente.");
         } else {
-            System.out.println("[ERRO] Índice da internação fora do limite.");
+            System.out.println("[ERRO] Nenhuma internação ativa com o id " + id + ".");
         }
     }
     
@@ -265,6 +557,7 @@ public class Main {
             System.out.println("1. Cadastrar Paciente Comum");
             System.out.println("2. Cadastrar Paciente Especial (Com Plano)");
             System.out.println("3. Cadastrar Médico");
+            System.out.println("4. Importar em Lote (arquivo CSV de outra clínica)");
             System.out.println("0. Voltar ao Menu Principal");
             System.out.print("Escolha uma opção: ");
 
@@ -282,12 +575,55 @@ public class Main {
                 case 1: cadastrarPacienteComum(); break;
                 case 2: cadastrarPacienteEspecial(); break;
                 case 3: cadastrarMedico(); break;
+                case 4: importarEmLote(); break;
                 case 0: break;
                 default: System.out.println("[ERRO] Opção inválida.");
             }
         } while (opcao != 0);
     }
     
+    // Pacientes e médicos antes das consultas, que os referenciam pelo CPF/CRM
+    private static void importarEmLote() {
+        System.out.println("\n--- IMPORTAR EM LOTE ---");
+        System.out.println("1. Pacientes (PACIENTE_C;NOME;CPF;IDADE ou PACIENTE_E;NOME;CPF;IDADE;PLANO)");
+        System.out.println("2. Médicos (MEDICO;NOME;CPF;IDADE;CRM;ESPECIALIDADE;CUSTO_CONSULTA)");
+        System.out.println("3. Consultas (PACIENTE_CPF;MEDICO_CRM;dd/MM/yyyy HH:mm;LOCAL)");
+        System.out.print("Tipo de arquivo: ");
+        String tipo = scanner.nextLine().trim();
+        System.out.print("Caminho do arquivo (a primeira linha é o cabeçalho): ");
+        Path arquivo = Paths.get(scanner.nextLine().trim());
+
+        RelatorioImportacao relatorio;
+        try {
+            switch (tipo) {
+                case "1": relatorio = hospital.importarPacientes(arquivo); break;
+                case "2": relatorio = hospital.importarMedicos(arquivo); break;
+                case "3": relatorio = hospital.importarConsultas(arquivo); break;
+                default:
+                    System.out.println("[ERRO] Tipo inválido.");
+                    return;
+            }
+        } catch (IOException e) {
+            System.out.println("[ERRO] Falha ao ler o arquivo: " + e.getMessage());
+            return;
+        }
+
+        System.out.println("[INFO] " + relatorio);
+        if (relatorio.getRejeitadas() == 0) return;
+
+        List<RelatorioImportacao.Rejeicao> rejeicoes = relatorio.getRejeicoes();
+        for (int i = 0; i < Math.min(10, rejeicoes.size()); i++) {
+            System.out.println("[AVISO] " + rejeicoes.get(i));
+        }
+        Path saida = Paths.get(arquivo + ".rejeicoes.csv");
+        try (Writer destino = Files.newBufferedWriter(saida)) {
+            relatorio.gravarRejeicoes(destino);
+            System.out.println("[INFO] Relatório completo de rejeições: " + saida);
+        } catch (IOException e) {
+            System.out.println("[ERRO] Falha ao gravar o relatório de rejeições: " + e.getMessage());
+        }
+    }
+
     private static void cadastrarPacienteComum() {
         System.out.println("\n--- CADASTRAR PACIENTE COMUM ---");
         System.out.print("Nome: ");
@@ -306,8 +642,9 @@ public class Main {
         }
 
         Paciente p = new Paciente(nome, cpf, idade);
-        hospital.cadastrarPaciente(p);
-        System.out.println("[SUCESSO] Paciente Comum cadastrado.");
+        if (hospital.cadastrarPaciente(p)) {
+            System.out.println("[SUCESSO] Paciente Comum cadastrado.");
+        }
     }
     
     private static void cadastrarPacienteEspecial() {
@@ -353,8 +690,9 @@ public class Main {
         if (indicePlano >= 0 && indicePlano < planos.size()) {
             PlanoSaude plano = planos.get(indicePlano);
             PacienteEspecial pe = new PacienteEspecial(nome, cpf, idade, plano);
-            hospital.cadastrarPaciente(pe);
-            System.out.println("[SUCESSO] Paciente Especial cadastrado com o plano: " + plano.getNome());
+            if (hospital.cadastrarPaciente(pe)) {
+                System.out.println("[SUCESSO] Paciente Especial cadastrado com o plano: " + plano.getNome());
+            }
         } else {
             System.out.println("[ERRO] Índice do plano fora do limite.");
         }
@@ -392,8 +730,9 @@ public class Main {
         }
 
         Medico m = new Medico(nome, cpf, idade, crm, especialidade, custoConsulta);
-        hospital.cadastrarMedico(m);
-        System.out.println("[SUCESSO] Médico cadastrado.");
+        if (hospital.cadastrarMedico(m)) {
+            System.out.println("[SUCESSO] Médico cadastrado.");
+        }
     }
 
 
@@ -408,6 +747,14 @@ public class Main {
             System.out.println("2. Médicos");
             System.out.println("3. Consultas (Ativas e Histórico)");
             System.out.println("4. Internações (Ativas e Histórico)");
+            System.out.println("5. Agenda de um Médico (por período)");
+            System.out.println("6. Consultas/Internações com Filtros (paginado)");
+            System.out.println("7. Faturamento (Médico, Especialidade, Plano, Mês)");
+            System.out.println("8. Métricas de Desempenho");
+            System.out.println("9. Consultas por Diagnóstico");
+            System.out.println("10. Fechamento Mensal (faturas em arquivo)");
+            System.out.println("11. Agenda do Dia (todos os médicos)");
+            System.out.println("12. Consultas/Internações por Dia");
             System.out.println("0. Voltar ao Menu Principal");
             System.out.print("Escolha uma opção: ");
 
@@ -426,9 +773,257 @@ public class Main {
                 case 2: hospital.relatorioMedicos(); break;
                 case 3: hospital.relatorioConsultas(); break;
                 case 4: hospital.relatorioInternacoes(); break; 
+                case 5: exibirAgendaMedico(); break;
+                case 6: relatorioFiltrado(); break;
+                case 7: exibirFaturamento(); break;
+                case 8: System.out.println("\n" + hospital.getMetricas().resumo()); break;
+                case 9: buscarPorDiagnostico(); break;
+                case 10: fecharMes(); break;
+                case 11: exibirAgendaDoDia(); break;
+                case 12: exibirMovimentoPorDia(); break;
                 case 0: break;
                 default: System.out.println("[ERRO] Opção inválida.");
             }
         } while (opcao != 0);
     }
-}
\ No newline at end of file
+
+    private static void exibirAgendaMedico() {
+        System.out.println("\n--- AGENDA DO MÉDICO ---");
+        System.out.print("Digite o CRM do Médico: ");
+        String crm = scanner.nextLine();
+
+        System.out.print("Início do período (dd/MM/yyyy HH:mm): ");
+        String inicioStr = scanner.nextLine();
+        System.out.print("Fim do período (dd/MM/yyyy HH:mm): ");
+        String fimStr = scanner.nextLine();
+        LocalDateTime inicio, fim;
+        try {
+            inicio = LocalDateTime.parse(inicioStr, DATE_TIME_FORMATTER);
+            fim = LocalDateTime.parse(fimStr, DATE_TIME_FORMATTER);
+        } catch (DateTimeParseException e) {
+            System.out.println("[ERRO] Formato de data/hora inválido. Use dd/MM/yyyy HH:mm.");
+            return;
+        }
+
+        List<Consulta> agenda = hospital.agendaDoMedico(crm, inicio, fim);
+        if (agenda.isEmpty()) {
+            System.out.println("Nenhuma consulta agendada no período.");
+        }
+        for (Consulta c : agenda) {
+            System.out.println(c.toString());
+        }
+    }
+
+    private static void exibirAgendaDoDia() {
+        System.out.println("\n--- AGENDA DO DIA ---");
+        System.out.print("Dia (dd/MM/yyyy; Enter = hoje): ");
+        String diaStr = scanner.nextLine().trim();
+        LocalDate dia;
+        try {
+            dia = diaStr.isEmpty() ? LocalDate.now() : LocalDate.parse(diaStr, DATE_FORMATTER);
+        } catch (DateTimeParseException e) {
+            System.out.println("[ERRO] Formato de data inválido. Use dd/MM/yyyy.");
+            return;
+        }
+
+        List<Consulta> agenda = hospital.agendaDoDia(dia);
+        if (agenda.isEmpty()) {
+            System.out.println("Nenhuma consulta em " + dia.format(DATE_FORMATTER) + ".");
+        }
+        for (Consulta c : agenda) {
+            System.out.println(c.toString());
+        }
+        List<Internacao> entradas = hospital.internacoesIniciadasEntre(dia, dia);
+        List<Internacao> altas = hospital.altasEntre(dia, dia);
+        System.out.println("Internações iniciadas: " + entradas.size() + " | Altas: " + altas.size());
+    }
+
+    private static void exibirMovimentoPorDia() {
+        System.out.println("\n--- CONSULTAS/INTERNAÇÕES POR DIA ---");
+        System.out.print("Data inicial (dd/MM/yyyy): ");
+        String inicioStr = scanner.nextLine().trim();
+        System.out.print("Data final (dd/MM/yyyy): ");
+        String fimStr = scanner.nextLine().trim();
+        LocalDate inicio, fim;
+        try {
+            inicio = LocalDate.parse(inicioStr, DATE_FORMATTER);
+            fim = LocalDate.parse(fimStr, DATE_FORMATTER);
+        } catch (DateTimeParseException e) {
+            System.out.println("[ERRO] Formato de data inválido. Use dd/MM/yyyy.");
+            return;
+        }
+
+        Map<LocalDate, Integer> consultas = hospital.contarConsultasPorDia(inicio, fim);
+        Map<LocalDate, Integer> internacoes = hospital.contarInternacoesPorDia(inicio, fim);
+        if (consultas.isEmpty() && internacoes.isEmpty()) {
+            System.out.println("[INFO] Nenhuma consulta ou internação no período.");
+            return;
+        }
+        // Só os dias com movimento, em ordem
+        TreeSet<LocalDate> dias = new TreeSet<>(consultas.keySet());
+        dias.addAll(internacoes.keySet());
+        for (LocalDate dia : dias) {
+            System.out.println(dia.format(DATE_FORMATTER) + ": " + consultas.getOrDefault(dia, 0) + " consulta(s), "
+                    + internacoes.getOrDefault(dia, 0) + " internação(ões) iniciada(s)");
+        }
+    }
+
+    private static final int TAMANHO_PAGINA = 20;
+
+    private static void relatorioFiltrado() {
+        System.out.println("\n--- RELATÓRIO COM FILTROS ---");
+        System.out.print("1. Consultas  2. Internações: ");
+        String tipo = scanner.nextLine().trim();
+        if (!tipo.equals("1") && !tipo.equals("2")) {
+            System.out.println("[ERRO] Opção inválida.");
+            return;
+        }
+
+        // Campos em branco não filtram
+        FiltroRelatorio filtro = new FiltroRelatorio();
+        System.out.print("CPF do Paciente (Enter = todos): ");
+        String cpf = scanner.nextLine().trim();
+        if (!cpf.isEmpty()) filtro.paciente(cpf);
+        System.out.print("CRM do Médico (Enter = todos): ");
+        String crm = scanner.nextLine().trim();
+        if (!crm.isEmpty()) filtro.medico(crm);
+        System.out.print(tipo.equals("1") ? "Status (AGENDADA, CONCLUIDA, CANCELADA; Enter = todos): "
+                                          : "Status (Ativa, Concluída; Enter = todos): ");
+        String status = scanner.nextLine().trim();
+        if (!status.isEmpty()) filtro.status(status);
+
+        System.out.print("Data inicial (dd/MM/yyyy; Enter = sem limite): ");
+        String inicioStr = scanner.nextLine().trim();
+        System.out.print("Data final (dd/MM/yyyy; Enter = sem limite): ");
+        String fimStr = scanner.nextLine().trim();
+        try {
+            LocalDate inicio = inicioStr.isEmpty() ? null : LocalDate.parse(inicioStr, DATE_FORMATTER);
+            LocalDate fim = fimStr.isEmpty() ? null : LocalDate.parse(fimStr, DATE_FORMATTER);
+            filtro.periodo(inicio, fim);
+        } catch (DateTimeParseException e) {
+            System.out.println("[ERRO] Formato de data inválido. Use dd/MM/yyyy.");
+            return;
+        }
+
+        GeradorRelatorios gerador = new GeradorRelatorios(hospital);
+        Writer saida = GeradorRelatorios.escritor(System.out);
+        int pagina = 1;
+        try {
+            while (true) {
+                filtro.pagina(pagina, TAMANHO_PAGINA);
+                int total = tipo.equals("1") ? gerador.consultas(saida, filtro) : gerador.internacoes(saida, filtro);
+                if (pagina * TAMANHO_PAGINA >= total) break;
+
+                System.out.print("Enter para a próxima página, 0 para voltar: ");
+                if (scanner.nextLine().trim().equals("0")) break;
+                pagina++;
+            }
+        } catch (IOException e) {
+            System.out.println("[ERRO] Falha ao gerar o relatório: " + e.getMessage());
+        }
+    }
+
+    private static void buscarPorDiagnostico() {
+        System.out.println("\n--- CONSULTAS POR DIAGNÓSTICO ---");
+        System.out.print("Termos (espaço = E, 'ou' = OU; ex.: pneumonia ou bronquite aguda): ");
+        String termos = scanner.nextLine().trim();
+        if (termos.isEmpty()) {
+            System.out.println("[ERRO] Digite ao menos um termo.");
+            return;
+        }
+
+        FiltroRelatorio filtro = new FiltroRelatorio();
+        System.out.print("CRM do Médico (Enter = todos): ");
+        String crm = scanner.nextLine().trim();
+        if (!crm.isEmpty()) filtro.medico(crm);
+        System.out.print("Data inicial (dd/MM/yyyy; Enter = sem limite): ");
+        String inicioStr = scanner.nextLine().trim();
+        System.out.print("Data final (dd/MM/yyyy; Enter = sem limite): ");
+        String fimStr = scanner.nextLine().trim();
+        try {
+            LocalDate inicio = inicioStr.isEmpty() ? null : LocalDate.parse(inicioStr, DATE_FORMATTER);
+            LocalDate fim = fimStr.isEmpty() ? null : LocalDate.parse(fimStr, DATE_FORMATTER);
+            filtro.periodo(inicio, fim);
+        } catch (DateTimeParseException e) {
+            System.out.println("[ERRO] Formato de data inválido. Use dd/MM/yyyy.");
+            return;
+        }
+
+        int pagina = 1;
+        while (true) {
+            filtro.pagina(pagina, TAMANHO_PAGINA);
+            List<Consulta> encontradas = hospital.buscarPorDiagnostico(termos, filtro);
+            if (pagina == 1 && encontradas.isEmpty()) {
+                System.out.println("[INFO] Nenhuma consulta encontrada.");
+                return;
+            }
+            for (Consulta c : encontradas) System.out.println(c);
+            if (encontradas.size() < TAMANHO_PAGINA) break;
+
+            System.out.print("Enter para a próxima página, 0 para voltar: ");
+            if (scanner.nextLine().trim().equals("0")) break;
+            pagina++;
+        }
+    }
+
+    private static void exibirFaturamento() {
+        System.out.println("\n--- FATURAMENTO ---");
+        System.out.println("Total: " + hospital.faturamentoTotal());
+
+        System.out.println("\n-- Por Médico (CRM) --");
+        for (Map.Entry<String, ResumoFaturamento> e : hospital.faturamentoPorMedico().entrySet()) {
+            System.out.println(e.getKey() + ": " + e.getValue());
+        }
+        System.out.println("\n-- Por Especialidade --");
+        for (Map.Entry<String, ResumoFaturamento> e : hospital.faturamentoPorEspecialidade().entrySet()) {
+            System.out.println(e.getKey() + ": " + e.getValue());
+        }
+        System.out.println("\n-- Por Plano --");
+        for (Map.Entry<String, ResumoFaturamento> e : hospital.faturamentoPorPlano().entrySet()) {
+            System.out.println(e.getKey() + ": " + e.getValue());
+        }
+
+        System.out.print("\nMês para detalhar por dia (MM/yyyy; Enter = mês atual): ");
+        String mesStr = scanner.nextLine().trim();
+        YearMonth mes;
+        try {
+            mes = mesStr.isEmpty() ? YearMonth.now() : YearMonth.parse(mesStr, DateTimeFormatter.ofPattern("MM/yyyy"));
+        } catch (DateTimeParseException e) {
+            System.out.println("[ERRO] Formato de mês inválido. Use MM/yyyy.");
+            return;
+        }
+        System.out.println("\n-- Mês " + mes + " --");
+        for (Map.Entry<LocalDate, ResumoFaturamento> e : hospital.faturamentoPorDia(mes.atDay(1), mes.atEndOfMonth()).entrySet()) {
+            System.out.println(e.getKey().format(DATE_FORMATTER) + ": " + e.getValue());
+        }
+        System.out.println("Total do mês: " + hospital.faturamentoNoPeriodo(mes.atDay(1), mes.atEndOfMonth()));
+    }
+
+    // Faturas de todos os pacientes no mês (até hoje, se o mês está em curso), gravadas em
+    // faturas-yyyy-MM.txt
+    private static void fecharMes() {
+        System.out.println("\n--- FECHAMENTO MENSAL ---");
+        System.out.print("Mês (MM/yyyy; Enter = mês atual): ");
+        String mesStr = scanner.nextLine().trim();
+        YearMonth mes;
+        try {
+            mes = mesStr.isEmpty() ? YearMonth.now() : YearMonth.parse(mesStr, DateTimeFormatter.ofPattern("MM/yyyy"));
+        } catch (DateTimeParseException e) {
+            System.out.println("[ERRO] Formato de mês inválido. Use MM/yyyy.");
+            return;
+        }
+        if (mes.isAfter(YearMonth.now())) {
+            System.out.println("[ERRO] O mês " + mes + " ainda não começou.");
+            return;
+        }
+
+        Path saida = Paths.get("faturas-" + mes + ".txt");
+        try (Writer destino = Files.newBufferedWriter(saida)) {
+            MotorFaturamento.Resultado resultado = new MotorFaturamento(hospital).fecharMes(mes, destino);
+            System.out.println("[INFO] " + resultado);
+            System.out.println("[INFO] Faturas gravadas em " + saida);
+        } catch (IOException e) {
+            System.out.println("[ERRO] Falha ao gravar as faturas: " + e.getMessage());
+        }
+    }
+}